@@ -1,5 +1,6 @@
 package com.bss.application.controller.account;
 
+import com.bss.application.dto.request.account.StripeAccountRequest;
 import com.bss.application.dto.request.account.UpdateAccountRequest;
 import com.bss.application.dto.response.account.AccountResponse;
 import com.bss.application.service.account.port.in.AccountService;
@@ -51,6 +52,13 @@ public class AccountController {
         return ResponseEntity.ok(updatedAccount);
     }
 
+    @PostMapping("/{id}/stripe")
+    public ResponseEntity<AccountResponse> stripeAccount(@PathVariable Long id, @Valid @RequestBody StripeAccountRequest request) {
+        AccountResponse stripedAccount = accountService.stripeAccount(id, request.slots());
+        stripedAccount.add(linkTo(methodOn(AccountController.class).getAccountById(id)).withSelfRel());
+        return ResponseEntity.ok(stripedAccount);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> inactivateAccount(@PathVariable Long id) {
         accountService.inactivateAccount(id);
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Component;
 public class AccountMapper {
 
     public AccountResponse toAccountResponse(Account account) {
-        return new AccountResponse(
+        AccountResponse response = new AccountResponse(
             account.getId(),
             account.getUser().getId(),
             account.getBalance(),
@@ -16,5 +16,7 @@ public class AccountMapper {
             account.getCreatedAt(),
             account.getUpdatedAt()
         );
+        response.setVersion(account.getVersion());
+        return response;
     }
 }
@@ -1,16 +1,22 @@
 package com.bss.application.controller.transfer;
 
 import com.bss.application.controller.transfer.mapper.TransferMapper;
+import com.bss.application.dto.request.transfer.TransferBatchRequest;
 import com.bss.application.dto.request.transfer.TransferRequest;
+import com.bss.application.dto.response.transfer.TransferBatchResponse;
 import com.bss.application.service.transfer.TransferService;
+import com.bss.domain.transfer.Transfer;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/transfers")
 public class TransferController {
@@ -30,4 +36,14 @@ public class TransferController {
         transferService.transfer(transfer);
         return ResponseEntity.accepted().build();
     }
+
+    @PostMapping("/batch")
+    @RateLimiter(name = "transferBatches")
+    public ResponseEntity<TransferBatchResponse> transferBatch(@Valid @RequestBody TransferBatchRequest request) {
+        List<Transfer> transfers = request.getTransfers().stream()
+                .map(transferMapper::toDomain)
+                .toList();
+        TransferBatchResponse response = transferService.transferBatch(transfers);
+        return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(response);
+    }
 }
@@ -0,0 +1,12 @@
+package com.bss.application.dto.request.account;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record StripeAccountRequest(
+    @NotNull(message = "Slots is required")
+    @Min(value = 2, message = "A striped account needs at least 2 slots")
+    @Max(value = 64, message = "A striped account cannot have more than 64 slots")
+    Integer slots
+) {}
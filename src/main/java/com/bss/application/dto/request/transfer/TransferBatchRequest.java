@@ -0,0 +1,22 @@
+package com.bss.application.dto.request.transfer;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class TransferBatchRequest {
+
+    // Items are validated one by one by the service so a single bad entry does not reject the whole batch
+    @NotEmpty
+    private List<TransferRequest> transfers;
+
+    // Getters and setters
+
+    public List<TransferRequest> getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(List<TransferRequest> transfers) {
+        this.transfers = transfers;
+    }
+}
@@ -20,6 +20,7 @@ public class AccountResponse extends RepresentationModel<AccountResponse> {
     private Long userId;
     private BigDecimal balance;
     private AccountStatus status;
+    private Long version;
 
     @JsonFormat(pattern = "MM/dd/yyyy HH:mm:ss.SSS")
     private LocalDateTime createdAt;
@@ -51,6 +52,8 @@ public class AccountResponse extends RepresentationModel<AccountResponse> {
     public void setBalance(BigDecimal balance) { this.balance = balance; }
     public AccountStatus getStatus() { return status; }
     public void setStatus(AccountStatus status) { this.status = status; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
@@ -66,12 +69,13 @@ public class AccountResponse extends RepresentationModel<AccountResponse> {
                 Objects.equals(userId, that.userId) &&
                 Objects.equals(balance, that.balance) &&
                 status == that.status &&
+                Objects.equals(version, that.version) &&
                 Objects.equals(createdAt, that.createdAt) &&
                 Objects.equals(updatedAt, that.updatedAt);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), id, userId, balance, status, createdAt, updatedAt);
+        return Objects.hash(super.hashCode(), id, userId, balance, status, version, createdAt, updatedAt);
     }
 }
@@ -0,0 +1,22 @@
+package com.bss.application.dto.response.transfer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * Outcome of a single entry of a batch transfer request (207 Multi-Status semantics).
+ *
+ * @param index          Position of the transfer in the submitted batch.
+ * @param idempotencyKey The idempotency key of the transfer, when present.
+ * @param status         HTTP-like status of the item (202 accepted, 400 invalid, 409 duplicated).
+ * @param error          Rejection reason, absent for accepted items.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransferBatchItemResponse(
+    int index,
+    UUID idempotencyKey,
+    int status,
+    String error
+) {
+}
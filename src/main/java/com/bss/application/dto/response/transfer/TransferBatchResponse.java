@@ -0,0 +1,17 @@
+package com.bss.application.dto.response.transfer;
+
+import java.util.List;
+
+/**
+ * Result of a batch transfer ingestion. Accepted items were persisted to the outbox in a single commit.
+ *
+ * @param accepted Number of transfers accepted for asynchronous processing.
+ * @param rejected Number of transfers rejected during validation.
+ * @param results  Per-item outcome, in the same order as the request.
+ */
+public record TransferBatchResponse(
+    int accepted,
+    int rejected,
+    List<TransferBatchItemResponse> results
+) {
+}
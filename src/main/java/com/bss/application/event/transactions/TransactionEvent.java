@@ -12,6 +12,11 @@ public class TransactionEvent {
     private BigDecimal amount;
     private LocalDateTime timestamp;
     private UUID idempotencyKey;
+    // Participant details, embedded at production time so consumers need no lookup; absent in older events
+    private String senderName;
+    private String senderEmail;
+    private String receiverName;
+    private String receiverEmail;
 
     /**
      * Construtor padrão para deserialização pelo Jackson/Kafka.
@@ -28,6 +33,15 @@ public class TransactionEvent {
         this.idempotencyKey = idempotencyKey;
     }
 
+    public TransactionEvent(Long transactionId, Long senderAccountId, Long receiverAccountId, BigDecimal amount, LocalDateTime timestamp, UUID idempotencyKey,
+                            String senderName, String senderEmail, String receiverName, String receiverEmail) {
+        this(transactionId, senderAccountId, receiverAccountId, amount, timestamp, idempotencyKey);
+        this.senderName = senderName;
+        this.senderEmail = senderEmail;
+        this.receiverName = receiverName;
+        this.receiverEmail = receiverEmail;
+    }
+
     // Getters and Setters
     public Long getTransactionId() {
         return transactionId;
@@ -76,4 +90,36 @@ public class TransactionEvent {
     public void setIdempotencyKey(UUID idempotencyKey) {
         this.idempotencyKey = idempotencyKey;
     }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public void setSenderName(String senderName) {
+        this.senderName = senderName;
+    }
+
+    public String getSenderEmail() {
+        return senderEmail;
+    }
+
+    public void setSenderEmail(String senderEmail) {
+        this.senderEmail = senderEmail;
+    }
+
+    public String getReceiverName() {
+        return receiverName;
+    }
+
+    public void setReceiverName(String receiverName) {
+        this.receiverName = receiverName;
+    }
+
+    public String getReceiverEmail() {
+        return receiverEmail;
+    }
+
+    public void setReceiverEmail(String receiverEmail) {
+        this.receiverEmail = receiverEmail;
+    }
 }
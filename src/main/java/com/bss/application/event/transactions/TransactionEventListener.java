@@ -3,15 +3,23 @@ package com.bss.application.event.transactions;
 import com.bss.application.exception.ResourceNotFoundException;
 import com.bss.application.exception.TransactionEventListenerException;
 import com.bss.application.service.notification.EmailService;
+import com.bss.domain.account.Account;
+import com.bss.domain.account.AccountRepository;
 import com.bss.domain.user.User;
-import com.bss.domain.user.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 public class TransactionEventListener {
@@ -19,47 +27,118 @@ public class TransactionEventListener {
     private static final Logger log = LoggerFactory.getLogger(TransactionEventListener.class);
 
     private final EmailService emailService;
-    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
     private final ObjectMapper objectMapper;
 
-    public TransactionEventListener(EmailService emailService, UserRepository userRepository, ObjectMapper objectMapper) {
+    public TransactionEventListener(EmailService emailService, AccountRepository accountRepository, ObjectMapper objectMapper) {
         this.emailService = emailService;
-        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
         this.objectMapper = objectMapper;
     }
 
-    @Transactional
-    @KafkaListener(topics = "transactions", groupId = "${spring.kafka.consumer.group-id}")
-    public void handleTransactionEvent(@Payload String jsonPayload) {
-        try {
-            TransactionEvent event = objectMapper.readValue(jsonPayload, TransactionEvent.class);
+    /**
+     * Handles a whole poll: the payloads are deserialized in one pass. Events carry the participants' names
+     * and addresses, so no lookup is needed; for older events without them, every account's user is loaded
+     * with a single query.
+     *
+     * <p>Notifications go out in record order. The first record that cannot be processed stops the batch
+     * with a {@link BatchListenerFailedException} carrying its index, so the records already notified are
+     * committed and only that record goes through the retry and dead-letter path.
+     */
+    @KafkaListener(topics = "transactions", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void handleTransactionEvents(@Payload List<String> jsonPayloads) {
+        List<TransactionEvent> events = new ArrayList<>(jsonPayloads.size());
+        int failedIndex = -1;
+        Exception failure = null;
 
-            log.info("Evento de TRANSAÇÃO recebido para notificação. IdempotencyKey: {}", event.getIdempotencyKey());
+        for (String jsonPayload : jsonPayloads) {
+            try {
+                events.add(objectMapper.readValue(jsonPayload, TransactionEvent.class));
+            } catch (Exception e) {
+                failedIndex = events.size();
+                failure = e;
+                break; // Records after it are redelivered, no need to read them now
+            }
+        }
 
-            User sender = userRepository.findById(event.getSenderAccountId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Usuário remetente não encontrado para o ID: " + event.getSenderAccountId()));
+        Map<Long, User> users = findUsers(events);
 
-            User receiver = userRepository.findById(event.getReceiverAccountId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Usuário destinatário não encontrado para o ID: " + event.getReceiverAccountId()));
+        for (int i = 0; i < events.size(); i++) {
+            try {
+                notifyParticipants(events.get(i), users);
+            } catch (RuntimeException e) {
+                failedIndex = i;
+                failure = e;
+                break;
+            }
+        }
 
-            String senderSubject = "Comprovante de Transferência Enviada";
-            String senderBody = String.format(
-                    "Olá, %s! Você enviou %.2f para %s.",
-                    sender.getName(), event.getAmount(), receiver.getName()
-            );
-            emailService.sendTransactionNotification(sender.getEmail(), senderSubject, senderBody);
+        if (failure != null) {
+            // Including payload in the exception message to provide context without double logging
+            String jsonPayload = jsonPayloads.get(failedIndex);
+            throw new BatchListenerFailedException("Falha ao processar o lote de eventos de transação.",
+                    new TransactionEventListenerException(
+                            "Falha ao desserializar ou processar o evento de transação. Payload: " + jsonPayload, failure),
+                    failedIndex);
+        }
+    }
 
-            String receiverSubject = "Você Recebeu uma Transferência";
-            String receiverBody = String.format(
-                    "Olá, %s! Você recebeu %.2f de %s.",
-                    receiver.getName(), event.getAmount(), sender.getName()
-            );
-            emailService.sendTransactionNotification(receiver.getEmail(), receiverSubject, receiverBody);
+    private Map<Long, User> findUsers(List<TransactionEvent> events) {
+        Set<Long> accountIds = new HashSet<>();
+        for (TransactionEvent event : events) {
+            if (!hasParticipantDetails(event)) {
+                accountIds.add(event.getSenderAccountId());
+                accountIds.add(event.getReceiverAccountId());
+            }
+        }
+        if (accountIds.isEmpty()) {
+            return Map.of();
+        }
+        return accountRepository.findWithUserByIds(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Account::getUser));
+    }
 
-        } catch (Exception e) {
-            // Re-throw to let the error handler manage it (e.g., move to DLT)
-            // Including payload in the exception message to provide context without double logging
-            throw new TransactionEventListenerException("Falha ao desserializar ou processar o evento de transação. Payload: " + jsonPayload, e);
+    private static boolean hasParticipantDetails(TransactionEvent event) {
+        return event.getSenderEmail() != null && event.getReceiverEmail() != null;
+    }
+
+    private void notifyParticipants(TransactionEvent event, Map<Long, User> usersByAccountId) {
+        log.info("Evento de TRANSAÇÃO recebido para notificação. IdempotencyKey: {}", event.getIdempotencyKey());
+
+        Participant sender;
+        Participant receiver;
+        if (hasParticipantDetails(event)) {
+            sender = new Participant(event.getSenderName(), event.getSenderEmail());
+            receiver = new Participant(event.getReceiverName(), event.getReceiverEmail());
+        } else {
+            User senderUser = usersByAccountId.get(event.getSenderAccountId());
+            if (senderUser == null) {
+                throw new ResourceNotFoundException("Usuário remetente não encontrado para a conta: " + event.getSenderAccountId());
+            }
+            User receiverUser = usersByAccountId.get(event.getReceiverAccountId());
+            if (receiverUser == null) {
+                throw new ResourceNotFoundException("Usuário destinatário não encontrado para a conta: " + event.getReceiverAccountId());
+            }
+            sender = new Participant(senderUser.getName(), senderUser.getEmail());
+            receiver = new Participant(receiverUser.getName(), receiverUser.getEmail());
         }
+
+        String senderSubject = "Comprovante de Transferência Enviada";
+        String senderBody = String.format(
+                "Olá, %s! Você enviou %.2f para %s.",
+                sender.name(), event.getAmount(), receiver.name()
+        );
+        emailService.sendTransactionNotification(sender.email(), senderSubject, senderBody);
+
+        String receiverSubject = "Você Recebeu uma Transferência";
+        String receiverBody = String.format(
+                "Olá, %s! Você recebeu %.2f de %s.",
+                receiver.name(), event.getAmount(), sender.name()
+        );
+        emailService.sendTransactionNotification(receiver.email(), receiverSubject, receiverBody);
+    }
+
+    private record Participant(String name, String email) {
     }
 }
@@ -8,141 +8,422 @@ import com.bss.domain.outbox.OutboxEventRepository;
 import com.bss.domain.outbox.OutboxEventStatus;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Relays notification outbox events (TransactionCompleted, TransactionFailed, AccountCreated) to Kafka
+ * with a fixed set of long-lived worker threads. Like the transfer workers, each one keeps claiming
+ * while batches come back non-empty and backs off exponentially when the outbox is drained.
+ *
+ * <p>The batch size adapts per worker: a full batch doubles it (up to the maximum) so a backlog is
+ * drained with few, large transactions; a batch less than half full halves it again so a quiet
+ * outbox is relayed with short transactions. The unsent backlog is exposed as
+ * {@code ledger.outbox.notifications.backlog}.
+ *
+ * <p>The claim commits on its own, so no database transaction is held while waiting for Kafka. Claimed
+ * rows stay PROCESSING under the batch's {@link OutboxLease} token; they are deleted only once Kafka has
+ * acknowledged them, in a short finalizing transaction. Only a failure caused by the row itself (it cannot
+ * be serialized, the broker rejects the record) counts against its retries; rows hit by a broker outage or a
+ * timeout, and a batch whose finalization fails, are retried later without a retry charge. The rows of a
+ * node that crashed are returned by {@link OutboxLeaseReaper} once their lease expires.
+ *
+ * <p>In transactional mode ({@code ledger.outbox.relay.transactional}, pass-through only) the whole batch
+ * is sent in one Kafka transaction, committed, and only then deleted. A transaction that aborts for a reason
+ * other than an outage is split in halves, each sent in its own transaction, until the rows at fault are
+ * isolated. {@code read_committed} consumers
+ * never see part of a batch nor the records of a failed attempt, so timeouts and partial failures no
+ * longer produce duplicates. The Kafka commit and the database commit remain two separate commits,
+ * though: a crash between them re-sends the batch, so consumers still need idempotent handling for
+ * that (rare) case.
+ */
 @Component
-public class OutboxEventScheduler {
+public class OutboxEventScheduler implements SmartLifecycle {
 
     private static final Logger log = LoggerFactory.getLogger(OutboxEventScheduler.class);
-    private static final int BATCH_SIZE = 100;
     private static final int MAX_RETRIES = 5;
     private static final String EVENT_ACCOUNT_CREATED = "AccountCreated";
     private static final List<String> NOTIFICATION_EVENT_TYPES = List.of("TransactionCompleted", "TransactionFailed", EVENT_ACCOUNT_CREATED);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
 
     private final OutboxEventRepository outboxEventRepository;
     private final KafkaProducerService kafkaProducerService;
     private final ObjectMapper objectMapper;
+    private final OutboxLease lease;
+    private final OutboxRetryBackoff retryBackoff;
+    private final TransactionTemplate transactionTemplate;
+    private final int workerCount;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long minIdleBackoffMillis;
+    private final long maxIdleBackoffMillis;
+    private final long ackTimeoutNanos;
+    private final boolean passThrough;
+    private final boolean transactional;
+    private final AtomicLong backlog = new AtomicLong();
+    // Batches in a row that hit an outage; spaces out the rows deferred without a retry charge
+    private final AtomicInteger transientFailures = new AtomicInteger();
+    private final Counter claimedEvents;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running;
+    private volatile CountDownLatch stopRequested = new CountDownLatch(0);
 
     public OutboxEventScheduler(OutboxEventRepository outboxEventRepository,
                                 KafkaProducerService kafkaProducerService,
-                                ObjectMapper objectMapper) {
+                                ObjectMapper objectMapper,
+                                OutboxLease lease,
+                                OutboxRetryBackoff retryBackoff,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${ledger.outbox.relay.workers:4}") int workerCount,
+                                @Value("${ledger.outbox.relay.min-batch-size:100}") int minBatchSize,
+                                @Value("${ledger.outbox.relay.max-batch-size:1000}") int maxBatchSize,
+                                @Value("${ledger.outbox.relay.min-idle-backoff-ms:50}") long minIdleBackoffMillis,
+                                @Value("${ledger.outbox.relay.max-idle-backoff-ms:1000}") long maxIdleBackoffMillis,
+                                @Value("${ledger.outbox.relay.ack-timeout-ms:10000}") long ackTimeoutMillis,
+                                @Value("${ledger.outbox.relay.mode:passthrough}") String relayMode,
+                                @Value("${ledger.outbox.relay.transactional:false}") boolean transactional) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("Invalid notification relay batch size " + minBatchSize + "..." + maxBatchSize + ".");
+        }
+        if (transactional && !("passthrough".equalsIgnoreCase(relayMode) && kafkaProducerService.supportsTransactions())) {
+            throw new IllegalArgumentException("The transactional notification relay requires the passthrough mode and a transactional producer.");
+        }
         this.outboxEventRepository = outboxEventRepository;
         this.kafkaProducerService = kafkaProducerService;
         this.objectMapper = objectMapper;
+        this.lease = lease;
+        this.retryBackoff = retryBackoff;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workerCount = workerCount;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.minIdleBackoffMillis = minIdleBackoffMillis;
+        this.maxIdleBackoffMillis = maxIdleBackoffMillis;
+        this.ackTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(ackTimeoutMillis);
+        this.passThrough = "passthrough".equalsIgnoreCase(relayMode);
+        this.transactional = transactional;
+
+        Gauge.builder("ledger.outbox.notifications.backlog", backlog, AtomicLong::get)
+                .description("Notification outbox events waiting to be relayed (refreshed periodically)")
+                .register(meterRegistry);
+        this.claimedEvents = Counter.builder("ledger.outbox.notifications.claimed")
+                .description("Notification outbox events claimed by the relay workers")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        stopRequested = new CountDownLatch(1);
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofPlatform().name("notification-relay-" + i).start(this::workerLoop));
+        }
+        log.info("[Notifications] Started {} relay workers.", workerCount);
     }
 
-    @Scheduled(fixedDelay = 3000)
-    @Transactional
-    public void processNotificationEvents() {
-        List<OutboxEvent> events = fetchAndLockEvents();
+    /**
+     * Lets every worker finish the batch it is relaying, then returns.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        stopRequested.countDown(); // Ends idle waits immediately
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MILLIS);
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Restore interrupted status
+                break;
+            }
+            if (worker.isAlive()) {
+                log.warn("[Notifications] Relay worker {} did not finish its batch within {} ms.", worker.getName(), SHUTDOWN_TIMEOUT_MILLIS);
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void workerLoop() {
+        int batchSize = minBatchSize;
+        long idleBackoffMillis = minIdleBackoffMillis;
+        while (running) {
+            int claimed = relayBatch(batchSize);
+            batchSize = nextBatchSize(batchSize, claimed);
+            if (claimed > 0) {
+                idleBackoffMillis = minIdleBackoffMillis;
+                continue;
+            }
+            try {
+                stopRequested.await(idleBackoffMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            idleBackoffMillis = Math.min(idleBackoffMillis * 2, maxIdleBackoffMillis);
+        }
+    }
+
+    int nextBatchSize(int batchSize, int claimed) {
+        if (claimed >= batchSize) {
+            return Math.min(batchSize * 2, maxBatchSize);
+        }
+        if (claimed < batchSize / 2) {
+            return Math.max(batchSize / 2, minBatchSize);
+        }
+        return batchSize;
+    }
+
+    /**
+     * Claims up to {@code batchSize} events, sends them and finalizes the outcome in its own transaction.
+     *
+     * @return The number of events claimed, 0 when there was nothing to do.
+     */
+    int relayBatch(int batchSize) {
+        String leaseToken = lease.newToken();
+        List<OutboxEvent> events = claimEvents(batchSize, leaseToken);
 
         if (events.isEmpty()) {
-            return;
+            return 0;
         }
+        claimedEvents.increment(events.size());
 
         log.info("[Notifications] Found {} events to process.", events.size());
-        processEvents(events);
+        try {
+            ProcessingResult result = transactional ? processEventsInKafkaTransaction(events) : processEvents(events);
+            transactionTemplate.executeWithoutResult(status -> persistResults(result, leaseToken));
+            if (!result.hasDeferred()) {
+                transientFailures.set(0);
+            }
+        } catch (Exception e) {
+            log.error("[Notifications] Error relaying notification batch of {} events.", events.size(), e);
+            release(events, leaseToken);
+        }
+        return events.size();
     }
 
-    private List<OutboxEvent> fetchAndLockEvents() {
-        List<OutboxEvent> events = fetchUnprocessedEvents();
-        lockEvents(events);
-        return events;
+    // The failure is not the rows' fault, so no retry is charged; if even this fails, the lease expiry frees the rows
+    private void release(List<OutboxEvent> events, String leaseToken) {
+        try {
+            LocalDateTime nextAttemptAt = retryBackoff.nextAttemptAt(transientFailures.incrementAndGet(), LocalDateTime.now());
+            int released = outboxEventRepository.releaseLeasedEvents(ids(events), leaseToken, nextAttemptAt);
+            log.warn("[Notifications] Released {} events for another attempt at {}.", released, nextAttemptAt);
+        } catch (Exception e) {
+            log.error("[Notifications] Failed to release {} events; they are reclaimed once their lease expires.", events.size(), e);
+        }
+    }
+
+    private static UUID[] ids(List<OutboxEvent> events) {
+        return events.stream().map(OutboxEvent::getId).toArray(UUID[]::new);
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.outbox.relay.backlog-refresh-ms:5000}")
+    public void refreshBacklog() {
+        backlog.set(outboxEventRepository.countByStatusAndEventTypeIn(OutboxEventStatus.UNPROCESSED, NOTIFICATION_EVENT_TYPES));
     }
 
-    private List<OutboxEvent> fetchUnprocessedEvents() {
-        LocalDateTime lockTimeout = LocalDateTime.now().minusMinutes(1);
+    private List<OutboxEvent> claimEvents(int batchSize, String leaseToken) {
+        LocalDateTime now = LocalDateTime.now();
         List<OutboxEvent> events = new ArrayList<>();
         
         for (String eventType : NOTIFICATION_EVENT_TYPES) {
-            if (isBatchFull(events)) {
+            if (events.size() >= batchSize) {
+                break;
+            }
+            try {
+                claimEventsByType(eventType, now, leaseToken, batchSize, events);
+            } catch (Exception e) {
+                // Earlier types' claims are already committed, so relay those rather than strand them until their lease expires
+                log.error("[Notifications] Error claiming {} events.", eventType, e);
                 break;
             }
-            fetchEventsByType(eventType, lockTimeout, events);
         }
         return events;
     }
 
-    private boolean isBatchFull(List<OutboxEvent> events) {
-        return events.size() >= BATCH_SIZE;
-    }
-
-    private void fetchEventsByType(String eventType, LocalDateTime lockTimeout, List<OutboxEvent> events) {
-        int remainingBatchSize = BATCH_SIZE - events.size();
+    // Each claim commits on its own (no transaction is active here). Rows come back already marked
+    // PROCESSING by the claim statement; rows still backing off are skipped
+    private void claimEventsByType(String eventType, LocalDateTime now, String leaseToken, int batchSize, List<OutboxEvent> events) {
+        int remainingBatchSize = batchSize - events.size();
         if (remainingBatchSize <= 0) {
             return;
         }
         
-        List<OutboxEvent> typeEvents = outboxEventRepository.findAndLockUnprocessedEvents(
-                OutboxEventStatus.UNPROCESSED, eventType, lockTimeout, PageRequest.of(0, remainingBatchSize));
+        List<OutboxEvent> typeEvents = outboxEventRepository.claimUnprocessedEvents(
+                eventType, now, leaseToken, lease.expiresAt(now), remainingBatchSize);
         
         events.addAll(typeEvents);
     }
 
-    private void lockEvents(List<OutboxEvent> events) {
-        if (events.isEmpty()) {
-            return;
+    // Sends are pipelined: every record of the batch is handed to the producer before the first
+    // acknowledgement is awaited, so they share producer batches and network round trips.
+    private ProcessingResult processEvents(List<OutboxEvent> events) {
+        ProcessingResult result = new ProcessingResult();
+        List<PendingSend> pendingSends = new ArrayList<>(events.size());
+
+        for (OutboxEvent event : events) {
+            try {
+                pendingSends.add(new PendingSend(event, sendEventToKafka(event)));
+            } catch (Exception e) {
+                handleProcessingError(event, e, result);
+            }
         }
-        LocalDateTime newLockTime = LocalDateTime.now();
-        events.forEach(event -> {
-            event.setStatus(OutboxEventStatus.PROCESSING);
-            event.setLockedAt(newLockTime);
-        });
-        outboxEventRepository.saveAll(events);
+
+        awaitAcknowledgements(pendingSends, result);
+        return result;
     }
 
-    private void processEvents(List<OutboxEvent> events) {
+    // An aborted Kafka transaction leaves no visible record, so the rows it carried can be sent again as they are
+    private ProcessingResult processEventsInKafkaTransaction(List<OutboxEvent> events) {
         ProcessingResult result = new ProcessingResult();
+        List<OutboxEvent> sentEvents = new ArrayList<>(events.size());
+        List<ProducerRecord<String, String>> records = new ArrayList<>(events.size());
 
         for (OutboxEvent event : events) {
-            processSingleEvent(event, result);
+            try {
+                records.add(toRawRecord(event));
+                sentEvents.add(event);
+            } catch (Exception e) {
+                handleProcessingError(event, e, result);
+            }
         }
 
-        persistResults(result);
+        if (!records.isEmpty()) {
+            sendInTransactionIsolatingFailures(sentEvents, records, result);
+        }
+        return result;
     }
 
-    private void processSingleEvent(OutboxEvent event, ProcessingResult result) {
+    // A transaction aborted by an outage is deferred whole. Any other abort is retried in halves until a single
+    // row fails alone: only that row is charged a retry, the others are committed by their own transactions.
+    private void sendInTransactionIsolatingFailures(List<OutboxEvent> events, List<ProducerRecord<String, String>> records,
+                                                    ProcessingResult result) {
         try {
-            sendEventToKafka(event);
-            result.addProcessed(event);
+            kafkaProducerService.sendRawInTransaction(records);
+            events.forEach(result::addProcessed);
         } catch (Exception e) {
-            handleProcessingError(event, e, result);
+            if (OutboxFailures.isTransient(e) || events.size() == 1) {
+                events.forEach(event -> handleProcessingError(event, e, result));
+                return;
+            }
+            log.warn("[Notifications] Kafka transaction of {} events aborted; retrying its halves to isolate the failing events.",
+                    events.size(), e);
+            int half = events.size() / 2;
+            sendInTransactionIsolatingFailures(events.subList(0, half), records.subList(0, half), result);
+            sendInTransactionIsolatingFailures(events.subList(half, events.size()), records.subList(half, records.size()), result);
         }
     }
 
-    private void sendEventToKafka(OutboxEvent event) throws JsonProcessingException {
+    private ProducerRecord<String, String> toRawRecord(OutboxEvent event) {
+        return EVENT_ACCOUNT_CREATED.equals(event.getEventType())
+                ? kafkaProducerService.rawAccountCreatedRecord(event.getPayload(), Long.valueOf(event.getAggregateId()))
+                : kafkaProducerService.rawTransactionRecord(event.getPayload(), event.getTransfer());
+    }
+
+    // Only rows the broker acknowledged within the deadline are deleted; the rest go to retry. A send
+    // that times out may still be delivered later, so consumers must tolerate duplicates.
+    private void awaitAcknowledgements(List<PendingSend> pendingSends, ProcessingResult result) {
+        long deadline = System.nanoTime() + ackTimeoutNanos;
+        for (PendingSend pending : pendingSends) {
+            try {
+                pending.future().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                result.addProcessed(pending.event());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Remaining gets fail fast, their rows are retried
+                handleProcessingError(pending.event(), e, result);
+            } catch (ExecutionException | TimeoutException e) {
+                handleProcessingError(pending.event(), e, result);
+            }
+        }
+    }
+
+    private CompletableFuture<?> sendEventToKafka(OutboxEvent event) throws JsonProcessingException {
+        if (passThrough) {
+            // The payload already is the event's JSON: no deserialize/serialize round trip
+            return EVENT_ACCOUNT_CREATED.equals(event.getEventType())
+                    ? kafkaProducerService.sendRawAccountCreatedEvent(event.getPayload(), Long.valueOf(event.getAggregateId()))
+                    : kafkaProducerService.sendRawTransactionEvent(event.getPayload(), event.getTransfer());
+        }
         if (EVENT_ACCOUNT_CREATED.equals(event.getEventType())) {
             AccountCreatedEvent accountEvent = objectMapper.readValue(event.getPayload(), AccountCreatedEvent.class);
-            kafkaProducerService.sendAccountCreatedEvent(accountEvent);
-        } else {
-            TransactionEvent transactionEvent = objectMapper.readValue(event.getPayload(), TransactionEvent.class);
-            kafkaProducerService.sendTransactionEvent(transactionEvent);
+            return kafkaProducerService.sendAccountCreatedEvent(accountEvent);
         }
+        TransactionEvent transactionEvent = objectMapper.readValue(event.getPayload(), TransactionEvent.class);
+        return kafkaProducerService.sendTransactionEvent(transactionEvent);
     }
 
     private void handleProcessingError(OutboxEvent event, Exception e, ProcessingResult result) {
+        if (OutboxFailures.isTransient(e)) {
+            log.warn("[Notifications] Kafka unavailable for outbox event id: {}. Will retry.", event.getId(), e);
+            defer(event, result);
+            return;
+        }
         log.error("[Notifications] Failed to send event to Kafka for outbox event id: {}. Will retry or mark as FAILED.", event.getId(), e);
+        retryOrFail(event, result);
+    }
+
+    // Backs off like a failed send, without using up one of the event's retries
+    private void defer(OutboxEvent event, ProcessingResult result) {
+        if (!result.hasDeferred()) {
+            transientFailures.incrementAndGet();
+        }
+        event.scheduleRetry(retryBackoff.nextAttemptAt(transientFailures.get(), LocalDateTime.now()));
+        result.addDeferred(event);
+    }
+
+    private void retryOrFail(OutboxEvent event, ProcessingResult result) {
         event.incrementRetryCount();
         
         if (event.getRetryCount() >= MAX_RETRIES) {
             event.setStatus(OutboxEventStatus.FAILED);
             result.addFailed(event);
         } else {
-            event.setStatus(OutboxEventStatus.UNPROCESSED);
+            event.scheduleRetry(retryBackoff.nextAttemptAt(event.getRetryCount(), LocalDateTime.now()));
             result.addRetry(event);
         }
     }
 
-    private void persistResults(ProcessingResult result) {
+    // Locks the claimed rows first; rows another claim took over after our lease expired are left to it
+    private void persistResults(ProcessingResult result, String leaseToken) {
+        List<OutboxEvent> claimed = result.getAllEvents();
+        Set<UUID> leased = new HashSet<>();
+        outboxEventRepository.lockLeasedEvents(ids(claimed), leaseToken).forEach(event -> leased.add(event.getId()));
+        int lost = result.retainAll(leased);
+        if (lost > 0) {
+            log.warn("[Notifications] Lease on {} of {} claimed events expired before finalizing; leaving them to their new owner.",
+                    lost, claimed.size());
+        }
         persistProcessedEvents(result);
         persistFailedEvents(result);
         persistRetryEvents(result);
@@ -169,15 +450,20 @@ public class OutboxEventScheduler {
         }
     }
 
+    private record PendingSend(OutboxEvent event, CompletableFuture<?> future) {
+    }
+
     // Inner class to hold processing results, avoiding multiple list arguments
     private static class ProcessingResult {
         private final List<OutboxEvent> processedEvents = new ArrayList<>();
         private final List<OutboxEvent> failedEvents = new ArrayList<>();
         private final List<OutboxEvent> eventsToRetry = new ArrayList<>();
+        private boolean deferred;
 
         void addProcessed(OutboxEvent event) { processedEvents.add(event); }
         void addFailed(OutboxEvent event) { failedEvents.add(event); }
         void addRetry(OutboxEvent event) { eventsToRetry.add(event); }
+        void addDeferred(OutboxEvent event) { eventsToRetry.add(event); deferred = true; }
 
         List<OutboxEvent> getProcessedEvents() { return processedEvents; }
         List<OutboxEvent> getFailedEvents() { return failedEvents; }
@@ -186,9 +472,26 @@ public class OutboxEventScheduler {
         boolean hasProcessed() { return !processedEvents.isEmpty(); }
         boolean hasFailed() { return !failedEvents.isEmpty(); }
         boolean hasRetries() { return !eventsToRetry.isEmpty(); }
+        boolean hasDeferred() { return deferred; }
 
         int getProcessedCount() { return processedEvents.size(); }
         int getFailedCount() { return failedEvents.size(); }
         int getRetryCount() { return eventsToRetry.size(); }
+
+        List<OutboxEvent> getAllEvents() {
+            List<OutboxEvent> all = new ArrayList<>(processedEvents);
+            all.addAll(failedEvents);
+            all.addAll(eventsToRetry);
+            return all;
+        }
+
+        // Returns the number of events dropped
+        int retainAll(Set<UUID> ids) {
+            int before = processedEvents.size() + failedEvents.size() + eventsToRetry.size();
+            processedEvents.removeIf(event -> !ids.contains(event.getId()));
+            failedEvents.removeIf(event -> !ids.contains(event.getId()));
+            eventsToRetry.removeIf(event -> !ids.contains(event.getId()));
+            return before - processedEvents.size() - failedEvents.size() - eventsToRetry.size();
+        }
     }
 }
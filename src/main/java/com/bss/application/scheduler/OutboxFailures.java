@@ -0,0 +1,35 @@
+package com.bss.application.scheduler;
+
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tells failures of the infrastructure (database or broker unreachable, lock or ack timeouts) apart
+ * from failures caused by the outbox rows themselves. The former say nothing about the rows, so they
+ * are retried without charging the rows' retry count.
+ */
+final class OutboxFailures {
+
+    private OutboxFailures() {
+    }
+
+    static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof RetriableException
+                    || cause instanceof TimeoutException
+                    || cause instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+package com.bss.application.scheduler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lease granted to a batch when it claims outbox rows. A claimed row records the batch's token and
+ * the expiry; if the owner dies before finishing the row, {@link OutboxLeaseReaper} returns it
+ * to UNPROCESSED once the lease has expired, so another worker picks it up.
+ *
+ * <p>Every claim gets a fresh token, so a worker whose lease ran out cannot finalize rows that
+ * another worker has since claimed, even one on the same node.
+ *
+ * <p>The duration must comfortably exceed the time a batch takes to process, otherwise a slow
+ * but healthy worker could see its rows handed to someone else.
+ */
+@Component
+public class OutboxLease {
+
+    private final String owner;
+    private final Duration duration;
+
+    public OutboxLease(@Value("${ledger.outbox.lease.owner:}") String owner,
+                       @Value("${ledger.outbox.lease.duration-ms:60000}") long durationMillis) {
+        if (durationMillis <= 0) {
+            throw new IllegalArgumentException("Outbox lease duration must be positive.");
+        }
+        // pid@hostname by default
+        this.owner = owner.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : owner;
+        this.duration = Duration.ofMillis(durationMillis);
+    }
+
+    // owner/uuid: the owner tells operators which node held a stuck row, the uuid tells claims apart
+    public String newToken() {
+        return owner + "/" + UUID.randomUUID();
+    }
+
+    public LocalDateTime expiresAt(LocalDateTime claimedAt) {
+        return claimedAt.plus(duration);
+    }
+}
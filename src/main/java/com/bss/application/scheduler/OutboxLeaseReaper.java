@@ -0,0 +1,43 @@
+package com.bss.application.scheduler;
+
+import com.bss.domain.outbox.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Returns outbox rows whose lease expired while still PROCESSING (the owning node crashed or
+ * lost its connection after the claim committed) to UNPROCESSED in one bulk statement. Each
+ * return is charged as a retry, so a row that keeps taking its node down is eventually FAILED.
+ */
+@Component
+public class OutboxLeaseReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxLeaseReaper.class);
+
+    private static final int MAX_RETRIES = 5;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final Counter reclaimedEvents;
+
+    public OutboxLeaseReaper(OutboxEventRepository outboxEventRepository, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.reclaimedEvents = Counter.builder("ledger.outbox.leases.reclaimed")
+                .description("PROCESSING outbox events returned to UNPROCESSED after their lease expired")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.outbox.lease.reaper-interval-ms:10000}")
+    public void releaseExpiredLeases() {
+        int released = outboxEventRepository.releaseExpiredLeases(LocalDateTime.now(), MAX_RETRIES);
+        if (released > 0) {
+            reclaimedEvents.increment(released);
+            log.warn("[Outbox] Reclaimed {} events whose lease expired while PROCESSING.", released);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.bss.application.scheduler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when a failed outbox event becomes due again: the delay doubles with every retry up to
+ * a cap, and half of it is randomised so events that failed together (e.g. during a Kafka outage)
+ * do not all come back in the same poll.
+ */
+@Component
+public class OutboxRetryBackoff {
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public OutboxRetryBackoff(@Value("${ledger.outbox.retry.base-delay-ms:5000}") long baseDelayMillis,
+                              @Value("${ledger.outbox.retry.max-delay-ms:300000}") long maxDelayMillis) {
+        if (baseDelayMillis <= 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("Invalid outbox retry backoff " + baseDelayMillis + "ms..." + maxDelayMillis + "ms.");
+        }
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * @param retryCount Retries so far, including the failure being handled (1 for the first retry).
+     */
+    public LocalDateTime nextAttemptAt(int retryCount, LocalDateTime now) {
+        return now.plus(delayFor(retryCount));
+    }
+
+    Duration delayFor(int retryCount) {
+        int exponent = Math.min(Math.max(retryCount - 1, 0), 30); // 2^30 already exceeds any sane cap
+        long delay = Math.min(maxDelayMillis, baseDelayMillis << exponent);
+        if (delay < 0) {
+            delay = maxDelayMillis; // Shift overflow with a very large base delay
+        }
+        long half = delay / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(delay - half + 1));
+    }
+}
@@ -1,23 +1,35 @@
 package com.bss.application.scheduler;
 
+import com.bss.application.controller.account.mapper.AccountMapper;
+import com.bss.application.dto.response.account.AccountResponse;
+import com.bss.application.event.transactions.TransferRequestedEvent;
 import com.bss.application.service.transaction.TransactionAuditService;
 import com.bss.domain.account.Account;
+import com.bss.domain.account.AccountBalanceNetting;
+import com.bss.domain.account.AccountBalanceUpdate;
+import com.bss.domain.account.AccountBalanceSlotRepository;
+import com.bss.domain.account.BalanceSlotKey;
 import com.bss.domain.account.AccountRepository;
 import com.bss.domain.account.InsufficientBalanceException;
 import com.bss.domain.outbox.OutboxEvent;
 import com.bss.domain.outbox.OutboxEventRepository;
 import com.bss.domain.outbox.OutboxEventStatus;
+import com.bss.domain.outbox.TransferDetails;
 import com.bss.domain.transaction.Transaction;
 import com.bss.domain.transaction.TransactionRepository;
+import com.bss.domain.transaction.TransactionStatus;
+import com.bss.infrastructure.redis.AccountCache;
+import com.bss.infrastructure.redis.NegativeCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -26,117 +38,351 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Processes TransferRequested outbox events with a fixed set of long-lived worker threads. Each worker
+ * claims and processes one batch at a time, keeps claiming while batches come back non-empty and backs
+ * off exponentially (or waits for a {@link TransferWorkSignal}) when idle. In-flight batches are therefore
+ * bounded by the worker count, exposed as {@code ledger.transfers.batches.inflight}.
+ *
+ * <p>The claim commits on its own, before the batch is processed: the rows stay PROCESSING under the
+ * batch's {@link OutboxLease} token until the batch transaction deletes or reschedules them. A batch that
+ * rolls back is split in halves and retried until the rows that fail on their own are isolated; only
+ * those are charged a retry, the others commit with their half. A transient failure (database
+ * unavailable, lock timeout) releases the batch with a backoff but no retry charge. If the node dies
+ * first, {@link OutboxLeaseReaper} returns the rows once the lease expires.
+ */
 @Component
-public class TransferEventScheduler {
+public class TransferEventScheduler implements SmartLifecycle {
 
     private static final Logger log = LoggerFactory.getLogger(TransferEventScheduler.class);
     
     // Aumentado para drenar o backlog rapidamente
     private static final int BATCH_SIZE = 2000; 
-    private static final int THREAD_COUNT = 8; 
     private static final int MAX_RETRIES = 5;
-    private static final String IDEMPOTENCY_KEY = "idempotencyKey";
+    private static final String TRANSFER_REQUESTED = "TransferRequested";
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
 
     private final OutboxEventRepository outboxEventRepository;
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final AccountBalanceSlotRepository balanceSlotRepository;
     private final TransactionAuditService transactionAuditService;
+    private final AccountCache accountCache;
+    private final NegativeCache negativeCache;
+    private final AccountMapper accountMapper;
     private final ObjectMapper objectMapper;
     private final TransactionTemplate transactionTemplate;
-    private final ExecutorService executorService;
+    private final TransferShardAssignment shardAssignment;
+    private final OutboxLease lease;
+    private final OutboxRetryBackoff retryBackoff;
+    private final boolean stripingEnabled;
+    private final TransferWorkSignal workSignal;
+    private final int workerCount;
+    private final long minIdleBackoffMillis;
+    private final long maxIdleBackoffMillis;
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+    // Batches in a row that hit a transient failure; spaces out uncharged releases while the database is unwell
+    private final AtomicInteger transientFailures = new AtomicInteger();
+    private final Counter claimedEvents;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running;
 
     public TransferEventScheduler(OutboxEventRepository outboxEventRepository,
                                   TransactionRepository transactionRepository,
                                   AccountRepository accountRepository,
+                                  AccountBalanceSlotRepository balanceSlotRepository,
                                   TransactionAuditService transactionAuditService,
+                                  AccountCache accountCache,
+                                  NegativeCache negativeCache,
+                                  AccountMapper accountMapper,
                                   ObjectMapper objectMapper,
-                                  PlatformTransactionManager transactionManager) {
+                                  PlatformTransactionManager transactionManager,
+                                  TransferShardAssignment shardAssignment,
+                                  OutboxLease lease,
+                                  OutboxRetryBackoff retryBackoff,
+                                  @Value("${ledger.accounts.striping.enabled:false}") boolean stripingEnabled,
+                                  TransferWorkSignal workSignal,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${ledger.transfers.workers.count:8}") int workerCount,
+                                  @Value("${ledger.transfers.workers.min-idle-backoff-ms:10}") long minIdleBackoffMillis,
+                                  @Value("${ledger.transfers.workers.max-idle-backoff-ms:500}") long maxIdleBackoffMillis) {
         this.outboxEventRepository = outboxEventRepository;
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
+        this.balanceSlotRepository = balanceSlotRepository;
         this.transactionAuditService = transactionAuditService;
+        this.accountCache = accountCache;
+        this.negativeCache = negativeCache;
+        this.accountMapper = accountMapper;
         this.objectMapper = objectMapper;
         this.transactionTemplate = new TransactionTemplate(transactionManager);
-        
-        this.executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+        this.shardAssignment = shardAssignment;
+        this.lease = lease;
+        this.retryBackoff = retryBackoff;
+        this.stripingEnabled = stripingEnabled;
+        this.workSignal = workSignal;
+        this.workerCount = workerCount;
+        this.minIdleBackoffMillis = minIdleBackoffMillis;
+        this.maxIdleBackoffMillis = maxIdleBackoffMillis;
+
+        Gauge.builder("ledger.transfers.batches.inflight", inFlightBatches, AtomicInteger::get)
+                .description("Transfer batches currently being processed (bounded by the worker count)")
+                .register(meterRegistry);
+        this.claimedEvents = Counter.builder("ledger.transfers.events.claimed")
+                .description("TransferRequested outbox events claimed by the workers")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            int workerIndex = i;
+            workers.add(Thread.ofPlatform().name("transfer-worker-" + i).start(() -> workerLoop(workerIndex)));
+        }
+        log.info("Started {} transfer workers.", workerCount);
     }
 
-    // Delay reduzido para 10ms (Turbo Mode)
-    @Scheduled(fixedDelay = 10)
-    public void scheduleTransferProcessing() {
-        for (int i = 0; i < THREAD_COUNT; i++) {
-            executorService.submit(this::processBatchInTransaction);
+    /**
+     * Lets every worker finish the batch it is processing, then returns. Idle workers are woken up
+     * so they notice the shutdown immediately.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        workSignal.signal();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MILLIS);
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Restore interrupted status
+                break;
+            }
+            if (worker.isAlive()) {
+                log.warn("Transfer worker {} did not finish its batch within {} ms.", worker.getName(), SHUTDOWN_TIMEOUT_MILLIS);
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void workerLoop(int workerIndex) {
+        long idleBackoffMillis = minIdleBackoffMillis;
+        while (running) {
+            // Read before claiming: a signal raised during the batch cuts the next idle wait short
+            long generation = workSignal.generation();
+            if (processBatchInTransaction(workerIndex) > 0) {
+                idleBackoffMillis = minIdleBackoffMillis;
+                continue;
+            }
+            try {
+                workSignal.awaitWork(generation, idleBackoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            idleBackoffMillis = Math.min(idleBackoffMillis * 2, maxIdleBackoffMillis);
         }
     }
 
-    private void processBatchInTransaction() {
+    /**
+     * Claims a batch in its own short transaction, then processes it in a second one.
+     *
+     * @return The number of events claimed, 0 when there was nothing to do or the claim failed.
+     */
+    int processBatchInTransaction(int workerIndex) {
+        inFlightBatches.incrementAndGet();
         try {
-            transactionTemplate.execute(status -> {
-                processNextBatch();
-                return null;
-            });
+            String leaseToken = lease.newToken();
+            List<OutboxEvent> events = claimEvents(workerIndex, leaseToken);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            claimedEvents.increment(events.size());
+
+            processIsolatingFailures(events, leaseToken);
+            return events.size();
         } catch (Exception e) {
-            log.error("Error processing batch in parallel thread", e);
+            log.error("Error claiming transfer batch in worker {}", workerIndex, e);
+            return 0;
+        } finally {
+            inFlightBatches.decrementAndGet();
         }
     }
 
-    private void processNextBatch() {
-        LocalDateTime lockTimeout = LocalDateTime.now().minusMinutes(1);
-        
-        List<OutboxEvent> events = outboxEventRepository.findAndLockUnprocessedEvents(
-                OutboxEventStatus.UNPROCESSED, "TransferRequested", lockTimeout, PageRequest.of(0, BATCH_SIZE));
+    /**
+     * Processes the claimed events in one transaction. If it rolls back, the halves are retried in their
+     * own transactions until a single event fails alone: only that one was at fault, so only it is charged
+     * a retry. A transient failure says nothing about the rows, so it releases them uncharged instead.
+     */
+    private void processIsolatingFailures(List<OutboxEvent> claimed, String leaseToken) {
+        try {
+            transactionTemplate.execute(status -> processLeasedEvents(claimed, leaseToken));
+            transientFailures.set(0);
+        } catch (Exception e) {
+            if (OutboxFailures.isTransient(e)) {
+                log.warn("Transient failure processing {} transfer events; releasing them.", claimed.size(), e);
+                release(claimed, leaseToken, transientFailures.incrementAndGet());
+            } else if (claimed.size() == 1) {
+                log.error("Transfer event {} failed on its own; charging it a retry.", claimed.get(0).getId(), e);
+                releaseFailed(claimed.get(0), leaseToken);
+            } else {
+                log.warn("Batch of {} transfer events rolled back; retrying its halves to isolate the failing events.",
+                        claimed.size(), e);
+                int half = claimed.size() / 2;
+                processIsolatingFailures(claimed.subList(0, half), leaseToken);
+                processIsolatingFailures(claimed.subList(half, claimed.size()), leaseToken);
+            }
+        }
+    }
 
-        if (events.isEmpty()) {
-            return;
+    // Reloads the rows under lock, so every attempt starts from their committed state. Rows another worker took
+    // over after our lease expired are not returned.
+    private Void processLeasedEvents(List<OutboxEvent> claimed, String leaseToken) {
+        List<OutboxEvent> events = outboxEventRepository.lockLeasedEvents(ids(claimed), leaseToken);
+        if (events.size() < claimed.size()) {
+            log.warn("Lease on {} of {} claimed transfer events expired before processing; skipping them.",
+                    claimed.size() - events.size(), claimed.size());
+        }
+        if (!events.isEmpty()) {
+            processBatchLogic(events);
+        }
+        return null;
+    }
+
+    // If even the release fails, the lease expiry frees the rows
+    private void release(List<OutboxEvent> events, String leaseToken, int attempt) {
+        try {
+            LocalDateTime nextAttemptAt = retryBackoff.nextAttemptAt(attempt, LocalDateTime.now());
+            int released = outboxEventRepository.releaseLeasedEvents(ids(events), leaseToken, nextAttemptAt);
+            log.warn("Released {} transfer events for another attempt at {}.", released, nextAttemptAt);
+        } catch (Exception e) {
+            log.error("Failed to release {} transfer events; they are reclaimed once their lease expires.", events.size(), e);
         }
+    }
 
-        LocalDateTime newLockTime = LocalDateTime.now();
-        events.forEach(event -> {
-            event.setStatus(OutboxEventStatus.PROCESSING);
-            event.setLockedAt(newLockTime);
-        });
-        outboxEventRepository.saveAll(events);
+    private void releaseFailed(OutboxEvent event, String leaseToken) {
+        try {
+            LocalDateTime nextAttemptAt = retryBackoff.nextAttemptAt(event.getRetryCount() + 1, LocalDateTime.now());
+            outboxEventRepository.releaseFailedLeasedEvents(new UUID[]{event.getId()}, leaseToken, nextAttemptAt, MAX_RETRIES);
+        } catch (Exception e) {
+            log.error("Failed to release transfer event {}; it is reclaimed once its lease expires.", event.getId(), e);
+        }
+    }
+
+    private static UUID[] ids(List<OutboxEvent> events) {
+        return events.stream().map(OutboxEvent::getId).toArray(UUID[]::new);
+    }
+
+    // Commits on its own (the repository method is @Transactional and no transaction is active here). The
+    // claim marks the rows PROCESSING in the same statement that locks them; rows still backing off are not claimed.
+    private List<OutboxEvent> claimEvents(int workerIndex, String leaseToken) {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (!shardAssignment.isEnabled()) {
+            return outboxEventRepository.claimUnprocessedEvents(
+                    TRANSFER_REQUESTED, now, leaseToken, lease.expiresAt(now), BATCH_SIZE);
+        }
 
-        processBatchLogic(events);
+        TransferShardAssignment.ShardRange range = shardAssignment.rangeFor(workerIndex, workerCount);
+        return outboxEventRepository.claimUnprocessedEventsInShardRange(
+                TRANSFER_REQUESTED, now, leaseToken, lease.expiresAt(now), range.from(), range.to(), BATCH_SIZE);
     }
 
     private void processBatchLogic(List<OutboxEvent> events) {
-        Map<Long, Account> accountsMap = fetchAccountsForEvents(events);
-        List<Transaction> transactionsToSave = new ArrayList<>();
         List<OutboxEvent> failedEvents = new ArrayList<>();
+        Map<OutboxEvent, TransferDetails> transfers = resolveTransfers(events, failedEvents);
+        Map<Long, Account> accountsMap = fetchAccountsForTransfers(transfers.values());
+        Map<BalanceSlotKey, BigDecimal> lockedSlots = lockBalanceSlots(accountsMap, transfers.values());
+        List<Transaction> transactionsToSave = new ArrayList<>();
 
-        prepareTransactions(events, accountsMap, transactionsToSave, failedEvents);
+        prepareTransactions(transfers, accountsMap, transactionsToSave, failedEvents);
 
         if (!transactionsToSave.isEmpty()) {
-            transactionsToSave = saveTransactionsOrRetry(transactionsToSave, events, failedEvents);
+            transactionsToSave = saveTransactionsOrRetry(transactionsToSave, transfers, failedEvents);
+        }
+
+        // Balances are netted in memory and written once per account instead of through entity dirty checking
+        AccountBalanceNetting netting = new AccountBalanceNetting(lockedSlots);
+        List<OutboxEvent> processedEvents = executeTransactions(transfers, transactionsToSave, failedEvents, netting);
+
+        persistFinalState(netting, accountsMap, transactionsToSave, processedEvents, failedEvents);
+    }
+
+    /**
+     * Resolves the transfer data of every event exactly once, keeping batch order.
+     * Events that cannot be resolved are marked as FAILED and left out of the batch.
+     */
+    private Map<OutboxEvent, TransferDetails> resolveTransfers(List<OutboxEvent> events, List<OutboxEvent> failedEvents) {
+        Map<OutboxEvent, TransferDetails> transfers = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            if (shouldSkipEvent(event)) continue;
+
+            TransferDetails details = resolveTransfer(event);
+            if (details == null) {
+                log.error("Failed to resolve transfer data for event {}. Marking as FAILED.", event.getId());
+                markEventAsFailed(event, failedEvents);
+            } else {
+                transfers.put(event, details);
+            }
         }
+        return transfers;
+    }
 
-        List<OutboxEvent> processedEvents = executeTransactions(events, transactionsToSave, failedEvents);
+    private TransferDetails resolveTransfer(OutboxEvent event) {
+        TransferDetails details = event.getTransfer();
+        if (details == null) {
+            // Rows written before the typed columns existed only carry the JSON payload
+            details = parseLegacyPayload(event);
+        }
+        return details != null && details.isComplete() ? details : null;
+    }
 
-        persistFinalState(accountsMap, transactionsToSave, processedEvents, failedEvents);
+    private TransferDetails parseLegacyPayload(OutboxEvent event) {
+        try {
+            TransferRequestedEvent payload = objectMapper.readValue(event.getPayload(), TransferRequestedEvent.class);
+            return new TransferDetails(payload.senderAccountId(), payload.receiverAccountId(),
+                    payload.amount(), payload.idempotencyKey());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.error("Failed to parse payload for event {}.", event.getId(), e);
+            return null;
+        }
     }
 
-    private List<Transaction> saveTransactionsOrRetry(List<Transaction> transactions, List<OutboxEvent> events, List<OutboxEvent> failedEvents) {
+    private List<Transaction> saveTransactionsOrRetry(List<Transaction> transactions, Map<OutboxEvent, TransferDetails> transfers,
+                                                      List<OutboxEvent> failedEvents) {
         try {
             return transactionRepository.saveAll(transactions);
         } catch (DataIntegrityViolationException e) {
             log.warn("Batch save failed due to data integrity violation. Retrying individually.");
-            return saveTransactionsIndividually(transactions, events, failedEvents);
+            return saveTransactionsIndividually(transactions, transfers, failedEvents);
         }
     }
 
-    private List<Transaction> saveTransactionsIndividually(List<Transaction> transactions, List<OutboxEvent> events, List<OutboxEvent> failedEvents) {
+    private List<Transaction> saveTransactionsIndividually(List<Transaction> transactions, Map<OutboxEvent, TransferDetails> transfers,
+                                                           List<OutboxEvent> failedEvents) {
         List<Transaction> savedTransactions = new ArrayList<>();
-        Map<UUID, OutboxEvent> eventMap = mapEventsByIdempotencyKey(events);
+        Map<UUID, OutboxEvent> eventMap = mapEventsByIdempotencyKey(transfers);
 
         for (Transaction tx : transactions) {
             try {
@@ -149,34 +395,26 @@ public class TransferEventScheduler {
         return savedTransactions;
     }
 
-    private List<OutboxEvent> executeTransactions(List<OutboxEvent> events, List<Transaction> transactions, List<OutboxEvent> failedEvents) {
+    private List<OutboxEvent> executeTransactions(Map<OutboxEvent, TransferDetails> transfers, List<Transaction> transactions,
+                                                  List<OutboxEvent> failedEvents, AccountBalanceNetting netting) {
         List<OutboxEvent> processedEvents = new ArrayList<>();
         Map<UUID, Transaction> transactionMap = mapTransactionsByIdempotencyKey(transactions);
 
-        for (OutboxEvent event : events) {
-            processEvent(event, transactionMap, processedEvents, failedEvents);
-        }
+        transfers.forEach((event, details) -> processEvent(event, details, transactionMap, processedEvents, failedEvents, netting));
         return processedEvents;
     }
 
-    private void processEvent(OutboxEvent event, Map<UUID, Transaction> transactionMap,
-                              List<OutboxEvent> processedEvents, List<OutboxEvent> failedEvents) {
+    private void processEvent(OutboxEvent event, TransferDetails details, Map<UUID, Transaction> transactionMap,
+                              List<OutboxEvent> processedEvents, List<OutboxEvent> failedEvents, AccountBalanceNetting netting) {
         if (shouldSkipEvent(event)) return;
 
-        UUID idempotencyKey = extractIdempotencyKey(event);
-        if (idempotencyKey == null) {
-            log.error("Missing idempotency key for event {}. Marking as FAILED.", event.getId());
-            markEventAsFailed(event, failedEvents);
-            return;
-        }
-
-        Transaction transaction = transactionMap.get(idempotencyKey);
+        Transaction transaction = transactionMap.get(details.getIdempotencyKey());
         if (transaction == null) {
             handleMissingTransaction(event, failedEvents);
             return;
         }
 
-        processTransactionAndHandleErrors(event, transaction, processedEvents, failedEvents);
+        processTransactionAndHandleErrors(event, transaction, processedEvents, failedEvents, netting);
     }
 
     private boolean shouldSkipEvent(OutboxEvent event) {
@@ -193,24 +431,10 @@ public class TransferEventScheduler {
         markEventAsFailed(event, failedEvents);
     }
 
-    private Map<UUID, OutboxEvent> mapEventsByIdempotencyKey(List<OutboxEvent> events) {
-        return events.stream().collect(Collectors.toMap(
-                this::extractIdempotencyKey,
-                Function.identity(),
-                (existing, replacement) -> existing
-        ));
-    }
-
-    private UUID extractIdempotencyKey(OutboxEvent event) {
-        try {
-            JsonNode payload = objectMapper.readTree(event.getPayload());
-            if (payload.has(IDEMPOTENCY_KEY)) {
-                return UUID.fromString(payload.get(IDEMPOTENCY_KEY).asText());
-            }
-        } catch (JsonProcessingException | IllegalArgumentException e) {
-            // Log handled elsewhere or ignored for map creation purposes
-        }
-        return null;
+    private Map<UUID, OutboxEvent> mapEventsByIdempotencyKey(Map<OutboxEvent, TransferDetails> transfers) {
+        Map<UUID, OutboxEvent> eventMap = new HashMap<>();
+        transfers.forEach((event, details) -> eventMap.putIfAbsent(details.getIdempotencyKey(), event));
+        return eventMap;
     }
 
     private void markEventAsFailed(OutboxEvent event, List<OutboxEvent> failedEvents) {
@@ -221,52 +445,77 @@ public class TransferEventScheduler {
         }
     }
 
-    private Map<Long, Account> fetchAccountsForEvents(List<OutboxEvent> events) {
-        List<Long> accountIds = extractAccountIds(events);
-        return fetchAndLockAccounts(accountIds);
-    }
+    private Map<Long, Account> fetchAccountsForTransfers(Collection<TransferDetails> transfers) {
+        Set<Long> accountIds = new HashSet<>(transfers.size() * 2);
+        for (TransferDetails details : transfers) {
+            accountIds.add(details.getSenderAccountId());
+            accountIds.add(details.getReceiverAccountId());
+        }
 
-    private List<Long> extractAccountIds(List<OutboxEvent> events) {
-        List<Long> accountIds = new ArrayList<>();
-        for (OutboxEvent event : events) {
-            extractIdsFromEvent(event, accountIds);
+        Map<Long, Account> accounts = new HashMap<>();
+        if (stripingEnabled) {
+            // Striped receivers that are not debited in this batch are credited through a slot, so their row is not locked
+            Set<Long> creditOnlyIds = new HashSet<>(accountIds);
+            creditOnlyIds.removeAll(senderIds(transfers));
+            if (!creditOnlyIds.isEmpty()) {
+                accountRepository.findStripedByIds(creditOnlyIds).forEach(account -> accounts.put(account.getId(), account));
+                accountIds.removeAll(accounts.keySet());
+            }
+        }
+        accounts.putAll(fetchAndLockAccounts(new ArrayList<>(accountIds)));
+        return accounts;
+    }
+
+    /**
+     * Locks the balance slots of the striped accounts in the batch, after every account row lock is held:
+     * all slots of a debited account, one random slot of a credited one. Acquiring rows first and slots
+     * second, each in key order, keeps the global lock order deadlock-free.
+     */
+    private Map<BalanceSlotKey, BigDecimal> lockBalanceSlots(Map<Long, Account> accountsMap, Collection<TransferDetails> transfers) {
+        Set<Long> senderIds = senderIds(transfers);
+        List<BalanceSlotKey> keys = new ArrayList<>();
+        for (Account account : accountsMap.values()) {
+            if (!account.isStriped()) continue;
+
+            if (senderIds.contains(account.getId())) {
+                for (int slot = 0; slot < account.getBalanceSlots(); slot++) {
+                    keys.add(new BalanceSlotKey(account.getId(), slot));
+                }
+            } else {
+                keys.add(new BalanceSlotKey(account.getId(), ThreadLocalRandom.current().nextInt(account.getBalanceSlots())));
+            }
         }
-        return accountIds;
+        return keys.isEmpty() ? Map.of() : balanceSlotRepository.lockSlots(keys);
     }
 
-    private void extractIdsFromEvent(OutboxEvent event, List<Long> accountIds) {
-        try {
-            JsonNode payload = objectMapper.readTree(event.getPayload());
-            accountIds.add(payload.get("senderAccountId").asLong());
-            accountIds.add(payload.get("receiverAccountId").asLong());
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse payload for event {}. Marking as FAILED.", event.getId(), e);
-            event.setStatus(OutboxEventStatus.FAILED);
-        }
+    private Set<Long> senderIds(Collection<TransferDetails> transfers) {
+        Set<Long> senderIds = new HashSet<>();
+        transfers.forEach(details -> senderIds.add(details.getSenderAccountId()));
+        return senderIds;
     }
 
     private Map<Long, Account> fetchAndLockAccounts(List<Long> accountIds) {
-        List<Long> sortedIds = accountIds.stream().distinct().sorted().toList();
+        if (accountIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        Long[] sortedIds = accountIds.stream().distinct().sorted().toArray(Long[]::new);
 
-        return sortedIds.stream()
-                .map(id -> accountRepository.findByIdForUpdate(id).orElse(null))
-                .filter(java.util.Objects::nonNull)
+        return accountRepository.findAllByIdForUpdate(sortedIds).stream()
                 .collect(Collectors.toMap(Account::getId, Function.identity()));
     }
 
-    private void prepareTransactions(List<OutboxEvent> events, Map<Long, Account> accountsMap,
+    private void prepareTransactions(Map<OutboxEvent, TransferDetails> transfers, Map<Long, Account> accountsMap,
                                      List<Transaction> transactionsToSave, List<OutboxEvent> failedEvents) {
-        for (OutboxEvent event : events) {
-            prepareTransactionForEvent(event, accountsMap, transactionsToSave, failedEvents);
-        }
+        transfers.forEach((event, details) ->
+                prepareTransactionForEvent(event, details, accountsMap, transactionsToSave, failedEvents));
     }
 
-    private void prepareTransactionForEvent(OutboxEvent event, Map<Long, Account> accountsMap,
+    private void prepareTransactionForEvent(OutboxEvent event, TransferDetails details, Map<Long, Account> accountsMap,
                                             List<Transaction> transactionsToSave, List<OutboxEvent> failedEvents) {
         if (shouldSkipEvent(event)) return;
 
         try {
-            Transaction transaction = createTransactionFromEvent(event, accountsMap);
+            Transaction transaction = createTransaction(event, details, accountsMap);
             transactionsToSave.add(transaction);
         } catch (Exception e) {
             log.error("Failed to prepare transaction for event {}. Marking as FAILED.", event.getId(), e);
@@ -275,27 +524,21 @@ public class TransferEventScheduler {
         }
     }
 
-    private Transaction createTransactionFromEvent(OutboxEvent event, Map<Long, Account> accountsMap) throws JsonProcessingException {
-        JsonNode payload = objectMapper.readTree(event.getPayload());
-        Long senderId = payload.get("senderAccountId").asLong();
-        Long receiverId = payload.get("receiverAccountId").asLong();
-        BigDecimal amount = new BigDecimal(payload.get("amount").asText());
-        UUID idempotencyKey = UUID.fromString(payload.get(IDEMPOTENCY_KEY).asText());
-
-        Account sender = accountsMap.get(senderId);
-        Account receiver = accountsMap.get(receiverId);
+    private Transaction createTransaction(OutboxEvent event, TransferDetails details, Map<Long, Account> accountsMap) {
+        Account sender = accountsMap.get(details.getSenderAccountId());
+        Account receiver = accountsMap.get(details.getReceiverAccountId());
 
         if (sender == null || receiver == null) {
             throw new IllegalStateException("Sender or receiver account not found for event " + event.getId());
         }
 
-        return new Transaction(sender, receiver, amount, idempotencyKey);
+        return new Transaction(sender, receiver, details.getAmount(), details.getIdempotencyKey());
     }
 
-    private void processTransactionAndHandleErrors(OutboxEvent event, Transaction transaction,
-                                                   List<OutboxEvent> processedEvents, List<OutboxEvent> failedEvents) {
+    private void processTransactionAndHandleErrors(OutboxEvent event, Transaction transaction, List<OutboxEvent> processedEvents,
+                                                   List<OutboxEvent> failedEvents, AccountBalanceNetting netting) {
         try {
-            processSingleTransaction(transaction);
+            processSingleTransaction(transaction, netting);
             processedEvents.add(event);
         } catch (InsufficientBalanceException | IllegalStateException e) {
             handleTransactionFailure(event, transaction, e);
@@ -305,21 +548,15 @@ public class TransferEventScheduler {
         }
     }
 
-    private void processSingleTransaction(Transaction transaction) {
-        Account sender = transaction.getSender();
-        Account receiver = transaction.getReceiver();
+    private void processSingleTransaction(Transaction transaction, AccountBalanceNetting netting) {
+        netting.transfer(transaction.getSender(), transaction.getReceiver(), transaction.getAmount());
 
-        sender.withdraw(transaction.getAmount());
-        receiver.deposit(transaction.getAmount());
-
-        transaction.complete();
-        transactionAuditService.createAuditEvent(transaction, "TransactionCompleted");
+        transaction.complete(); // Audited with the rest of the batch in persistFinalState
     }
 
     private void handleTransactionFailure(OutboxEvent event, Transaction transaction, Exception e) {
         log.warn("Transaction for event {} FAILED. Reason: {}", event.getId(), e.getMessage());
         transaction.fail(e.getMessage());
-        transactionAuditService.createAuditEvent(transaction, "TransactionFailed");
     }
 
     private void handleUnexpectedError(OutboxEvent event, Exception e, List<OutboxEvent> failedEvents) {
@@ -345,14 +582,19 @@ public class TransferEventScheduler {
         if (event.getRetryCount() >= MAX_RETRIES) {
             markEventAsFailed(event, failedEvents);
         } else {
-            event.setStatus(OutboxEventStatus.UNPROCESSED);
+            // Flushed on commit: the event was loaded by the batch transaction
+            event.scheduleRetry(retryBackoff.nextAttemptAt(event.getRetryCount(), LocalDateTime.now()));
         }
     }
 
-    private void persistFinalState(Map<Long, Account> accountsMap, List<Transaction> transactions,
+    private void persistFinalState(AccountBalanceNetting netting, Map<Long, Account> accountsMap, List<Transaction> transactions,
                                    List<OutboxEvent> processedEvents, List<OutboxEvent> failedEvents) {
-        saveIfNotEmpty(accountsMap.values(), accountRepository::saveAll);
+        List<AccountBalanceUpdate> balanceUpdates = applyNetBalances(netting);
+        writeBalancesThroughAfterCommit(balanceUpdates, accountsMap);
         saveIfNotEmpty(transactions, transactionRepository::saveAll);
+        // A client polling its new transaction id may already have it recorded as missing
+        negativeCache.evictAfterCommit("transactions", transactions.stream().map(Transaction::getId).toList());
+        createAuditEvents(transactions);
         saveIfNotEmpty(failedEvents, outboxEventRepository::saveAll);
 
         if (!processedEvents.isEmpty()) {
@@ -360,22 +602,70 @@ public class TransferEventScheduler {
         }
     }
 
+    // One outbox batch per outcome instead of one save per transaction; still-PENDING transactions were not executed
+    private void createAuditEvents(List<Transaction> transactions) {
+        List<Transaction> completed = new ArrayList<>();
+        List<Transaction> failed = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getStatus() == TransactionStatus.SUCCESS) {
+                completed.add(transaction);
+            } else if (transaction.getStatus() == TransactionStatus.FAILED) {
+                failed.add(transaction);
+            }
+        }
+        if (!completed.isEmpty()) {
+            transactionAuditService.createAuditEvents(completed, "TransactionCompleted");
+        }
+        if (!failed.isEmpty()) {
+            transactionAuditService.createAuditEvents(failed, "TransactionFailed");
+        }
+    }
+
+    private List<AccountBalanceUpdate> applyNetBalances(AccountBalanceNetting netting) {
+        AccountBalanceNetting.BalanceWrites writes = netting.balanceWrites();
+
+        List<AccountBalanceUpdate> balanceUpdates = List.of();
+        Map<Long, BigDecimal> accountDeltas = writes.accountDeltas();
+        if (!accountDeltas.isEmpty()) {
+            balanceUpdates = accountRepository.applyBalanceDeltas(accountDeltas);
+            expectUpdated("account balances", accountDeltas.size(), balanceUpdates.size());
+        }
+        Map<BalanceSlotKey, BigDecimal> slotDeltas = writes.slotDeltas();
+        if (!slotDeltas.isEmpty()) {
+            expectUpdated("balance slots", slotDeltas.size(), balanceSlotRepository.applySlotDeltas(slotDeltas));
+        }
+        return balanceUpdates;
+    }
+
+    /**
+     * Hands the committed balances and versions of the updated accounts to the read cache in one pipeline.
+     * Striped accounts are not cached: their balance also lives in slots that do not bump the version.
+     */
+    private void writeBalancesThroughAfterCommit(List<AccountBalanceUpdate> balanceUpdates, Map<Long, Account> accountsMap) {
+        List<AccountResponse> responses = new ArrayList<>(balanceUpdates.size());
+        for (AccountBalanceUpdate update : balanceUpdates) {
+            Account account = accountsMap.get(update.accountId());
+            if (account == null || account.isStriped()) continue;
+
+            AccountResponse response = accountMapper.toAccountResponse(account);
+            response.setBalance(update.balance());
+            response.setVersion(update.version());
+            response.setUpdatedAt(update.updatedAt());
+            responses.add(response);
+        }
+        accountCache.putAllAfterCommit(responses);
+    }
+
+    private void expectUpdated(String what, int expected, int updated) {
+        if (updated != expected) {
+            // Rolls the batch back; processIsolatingFailures then retries its halves to find the events at fault
+            throw new IllegalStateException("Expected to update " + expected + " " + what + " but updated " + updated + ".");
+        }
+    }
+
     private <T> void saveIfNotEmpty(Collection<T> entities, Function<Collection<T>, ?> saveFunction) {
         if (!entities.isEmpty()) {
             saveFunction.apply(entities);
         }
     }
-    
-    @PreDestroy
-    public void shutdown() {
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-            Thread.currentThread().interrupt(); // Restore interrupted status
-        }
-    }
 }
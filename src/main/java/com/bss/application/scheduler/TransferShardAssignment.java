@@ -0,0 +1,56 @@
+package com.bss.application.scheduler;
+
+import com.bss.domain.outbox.TransferShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Splits the transfer shard space between nodes and, inside a node, between its workers.
+ * Each (node, worker) pair owns a contiguous, disjoint shard range, so no two workers ever
+ * claim transfers debiting the same account and they stop blocking on each other's sender locks.
+ *
+ * <p>Receivers are not sharded: a receiver may be the sender of another worker's shard. That is
+ * still safe because every worker locks its accounts in ascending id order in one statement, so
+ * cross-shard credits can only wait, never deadlock.
+ */
+@Component
+public class TransferShardAssignment {
+
+    private final boolean enabled;
+    private final int nodeIndex;
+    private final int nodeCount;
+
+    public TransferShardAssignment(@Value("${ledger.transfers.sharding.enabled:false}") boolean enabled,
+                                   @Value("${ledger.transfers.sharding.node-index:0}") int nodeIndex,
+                                   @Value("${ledger.transfers.sharding.node-count:1}") int nodeCount) {
+        if (nodeCount < 1 || nodeIndex < 0 || nodeIndex >= nodeCount) {
+            throw new IllegalArgumentException("Invalid transfer sharding node " + nodeIndex + " of " + nodeCount + ".");
+        }
+        this.enabled = enabled;
+        this.nodeIndex = nodeIndex;
+        this.nodeCount = nodeCount;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The half-open shard range [from, to) owned by the given worker of this node.
+     */
+    public ShardRange rangeFor(int workerIndex, int workerCount) {
+        int owners = nodeCount * workerCount;
+        if (owners > TransferShards.SHARD_COUNT) {
+            throw new IllegalStateException("Cannot split " + TransferShards.SHARD_COUNT + " shards between " + owners + " workers.");
+        }
+        int owner = nodeIndex * workerCount + workerIndex;
+        return new ShardRange(boundary(owner, owners), boundary(owner + 1, owners));
+    }
+
+    private static int boundary(int owner, int owners) {
+        return (int) ((long) owner * TransferShards.SHARD_COUNT / owners);
+    }
+
+    public record ShardRange(int from, int to) {
+    }
+}
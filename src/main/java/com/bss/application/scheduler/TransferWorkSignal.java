@@ -0,0 +1,73 @@
+package com.bss.application.scheduler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wake-up signal for transfer workers. Every {@link #signal()} bumps a generation counter; a worker
+ * reads the generation before it claims, so a signal raised while it was busy is never lost.
+ */
+@Component
+public class TransferWorkSignal {
+
+    private final boolean notifyMode;
+    private final long fallbackPollMillis;
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    public TransferWorkSignal(@Value("${ledger.transfers.wakeup.mode:poll}") String wakeupMode,
+                              @Value("${ledger.transfers.wakeup.fallback-poll-ms:1000}") long fallbackPollMillis) {
+        this.notifyMode = "notify".equalsIgnoreCase(wakeupMode);
+        this.fallbackPollMillis = fallbackPollMillis;
+    }
+
+    public void signal() {
+        generation.incrementAndGet();
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Idle wait of a worker that found nothing to claim. In notify mode it lasts until the next signal
+     * or the fallback poll (covers notifications missed while the listener reconnects); in poll mode
+     * it lasts the worker's current idle backoff.
+     */
+    public void awaitWork(long seenGeneration, long idleBackoffMillis) throws InterruptedException {
+        awaitSignal(seenGeneration, notifyMode ? fallbackPollMillis : idleBackoffMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Blocks until the generation differs from {@code seenGeneration} or the timeout elapses.
+     *
+     * @return {@code true} if a signal arrived, {@code false} on timeout.
+     */
+    public boolean awaitSignal(long seenGeneration, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (generation.get() == seenGeneration) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = changed.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -9,11 +9,15 @@ import com.bss.application.exception.JsonSerializationException;
 import com.bss.application.exception.ResourceNotFoundException;
 import com.bss.application.service.account.port.in.AccountService;
 import com.bss.domain.account.Account;
+import com.bss.domain.account.AccountBalanceSlot;
+import com.bss.domain.account.AccountBalanceSlotRepository;
 import com.bss.domain.account.AccountRepository;
 import com.bss.domain.outbox.OutboxEvent;
 import com.bss.domain.outbox.OutboxEventRepository;
 import com.bss.domain.user.User;
 import com.bss.domain.user.UserRepository;
+import com.bss.infrastructure.redis.AccountCache;
+import com.bss.infrastructure.redis.NegativeCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -24,6 +28,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
 
 @Service
 @Transactional
@@ -34,17 +41,23 @@ public class AccountServiceImpl implements AccountService {
     private static final String USER_NOT_FOUND_ID = "User not found with id: ";
 
     private final AccountRepository accountRepository;
+    private final AccountBalanceSlotRepository balanceSlotRepository;
     private final UserRepository userRepository;
     private final AccountMapper accountMapper;
     private final OutboxEventRepository outboxEventRepository;
     private final ObjectMapper objectMapper;
+    private final AccountCache accountCache;
+    private final NegativeCache negativeCache;
 
-    public AccountServiceImpl(AccountRepository accountRepository, UserRepository userRepository, AccountMapper accountMapper, OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+    public AccountServiceImpl(AccountRepository accountRepository, AccountBalanceSlotRepository balanceSlotRepository, UserRepository userRepository, AccountMapper accountMapper, OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper, AccountCache accountCache, NegativeCache negativeCache) {
         this.accountRepository = accountRepository;
+        this.balanceSlotRepository = balanceSlotRepository;
         this.userRepository = userRepository;
         this.accountMapper = accountMapper;
         this.outboxEventRepository = outboxEventRepository;
         this.objectMapper = objectMapper;
+        this.accountCache = accountCache;
+        this.negativeCache = negativeCache;
     }
 
     @Override
@@ -58,6 +71,7 @@ public class AccountServiceImpl implements AccountService {
         
         Account newAccount = new Account(user, initialBalance);
         Account savedAccount = accountRepository.save(newAccount);
+        negativeCache.evictAfterCommit(AccountCache.CACHE_NAME, List.of(savedAccount.getId()));
 
         // Use Outbox Pattern instead of direct Kafka call
         createOutboxEvent(savedAccount, user);
@@ -108,16 +122,33 @@ public class AccountServiceImpl implements AccountService {
     @Override
     @Transactional(readOnly = true)
     public AccountResponse findAccountById(Long id) {
-        return accountRepository.findById(id)
-            .map(accountMapper::toAccountResponse)
-            .orElseThrow(() -> new ResourceNotFoundException(ACCOUNT_NOT_FOUND_ID + id));
+        AccountResponse cached = accountCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (negativeCache.isMissing(AccountCache.CACHE_NAME, id)) {
+            throw new ResourceNotFoundException(ACCOUNT_NOT_FOUND_ID + id);
+        }
+        Optional<Account> found = accountRepository.findById(id);
+        if (found.isEmpty()) {
+            negativeCache.putMissing(AccountCache.CACHE_NAME, id);
+            throw new ResourceNotFoundException(ACCOUNT_NOT_FOUND_ID + id);
+        }
+        Account account = found.get();
+        AccountResponse response = toAccountResponse(account);
+        // Slot credits do not bump the account version, so a striped balance cannot be cached safely
+        if (!account.isStriped()) {
+            accountCache.put(response);
+        }
+        return response;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<AccountResponse> findAllAccounts(Pageable pageable) {
         return accountRepository.findAll(pageable)
-            .map(accountMapper::toAccountResponse);
+            .map(this::toAccountResponse);
     }
 
     @Override
@@ -126,6 +157,7 @@ public class AccountServiceImpl implements AccountService {
             .orElseThrow(() -> new ResourceNotFoundException(ACCOUNT_NOT_FOUND_ID + id));
         
         account.adjustBalance(request.balance());
+        evictFromCache(account);
 
         Account updatedAccount = accountRepository.save(account);
         return accountMapper.toAccountResponse(updatedAccount);
@@ -136,16 +168,56 @@ public class AccountServiceImpl implements AccountService {
         Account account = accountRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException(ACCOUNT_NOT_FOUND_ID + id));
         
+        if (account.isStriped() && balanceSlotRepository.sumBalanceByAccountId(id).signum() != 0) {
+            throw new IllegalStateException("Cannot inactivate account with a non-zero balance.");
+        }
         account.inactivate();
+        evictFromCache(account);
 
         accountRepository.save(account);
     }
 
+    @Override
+    public AccountResponse stripeAccount(Long id, int slots) {
+        // Row lock: transfer workers holding this account finish before it switches to slots
+        Account account = accountRepository.findByIdForUpdate(id)
+            .orElseThrow(() -> new ResourceNotFoundException(ACCOUNT_NOT_FOUND_ID + id));
+
+        account.stripe(slots);
+        evictFromCache(account);
+        balanceSlotRepository.saveAll(IntStream.range(0, slots)
+            .mapToObj(slot -> new AccountBalanceSlot(id, slot))
+            .toList());
+
+        Account stripedAccount = accountRepository.save(account);
+        log.info("Account {} striped over {} balance slots.", id, slots);
+        return toAccountResponse(stripedAccount);
+    }
+
+    // The balance of a striped account is its row balance plus its slots
+    private AccountResponse toAccountResponse(Account account) {
+        AccountResponse response = accountMapper.toAccountResponse(account);
+        if (account.isStriped()) {
+            response.setBalance(account.getBalance().add(balanceSlotRepository.sumBalanceByAccountId(account.getId())));
+        }
+        return response;
+    }
+
     @Override
     public void deleteAccount(Long id) {
         Account account = accountRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException(ACCOUNT_NOT_FOUND_ID + id));
-        
+
+        // Slots reference the account row, so they go first (executed right away, the entity delete on flush)
+        if (account.isStriped()) {
+            balanceSlotRepository.deleteByAccountId(id);
+        }
         accountRepository.delete(account);
+        evictFromCache(account);
+    }
+
+    // The entity update commits as version + 1; reads of the current version can no longer be cached after it
+    private void evictFromCache(Account account) {
+        accountCache.evictAfterCommit(account.getId(), AccountCache.versionOf(account.getVersion()) + 1);
     }
 }
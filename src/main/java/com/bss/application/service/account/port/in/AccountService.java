@@ -19,5 +19,6 @@ public interface AccountService {
     Page<AccountResponse> findAllAccounts(Pageable pageable);
     AccountResponse updateAccount(Long id, UpdateAccountRequest request);
     void inactivateAccount(Long id);
+    AccountResponse stripeAccount(Long id, int slots);
     void deleteAccount(Long id);
 }
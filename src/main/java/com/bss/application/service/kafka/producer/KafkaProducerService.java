@@ -3,12 +3,20 @@ package com.bss.application.service.kafka.producer;
 import com.bss.application.event.account.AccountCreatedEvent;
 import com.bss.application.event.transactions.TransactionEvent;
 import com.bss.application.event.transactions.TransferRequestedEvent;
+import com.bss.domain.outbox.TransferDetails;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
@@ -22,14 +30,24 @@ public class KafkaProducerService {
     private static final String TOPIC_TRANSFER_REQUESTS = "transfer-requests";
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaTemplate<String, String> rawKafkaTemplate;
+    private final KafkaTemplate<String, String> transactionalRawKafkaTemplate;
+    private final TransactionEventKey transactionKey;
 
-    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate,
+                                @Qualifier("rawKafkaTemplate") KafkaTemplate<String, String> rawKafkaTemplate,
+                                @Qualifier("transactionalRawKafkaTemplate") Optional<KafkaTemplate<String, String>> transactionalRawKafkaTemplate,
+                                @Value("${ledger.kafka.transactions.key:SENDER_ACCOUNT}") TransactionEventKey transactionKey) {
         this.kafkaTemplate = kafkaTemplate;
+        this.rawKafkaTemplate = rawKafkaTemplate;
+        this.transactionalRawKafkaTemplate = transactionalRawKafkaTemplate.orElse(null);
+        this.transactionKey = transactionKey;
     }
 
     public CompletableFuture<SendResult<String, Object>> sendTransactionEvent(TransactionEvent event) {
         return sendAndLog(
                 TOPIC_TRANSACTIONS,
+                transactionKey.of(event.getSenderAccountId(), event.getReceiverAccountId(), event.getIdempotencyKey()),
                 event,
                 e -> String.valueOf(e.getIdempotencyKey()),
                 "TRANSACTION"
@@ -39,6 +57,7 @@ public class KafkaProducerService {
     public CompletableFuture<SendResult<String, Object>> sendAccountCreatedEvent(AccountCreatedEvent event) {
         return sendAndLog(
                 TOPIC_ACCOUNTS,
+                accountKey(event.getAccountId()),
                 event,
                 e -> String.valueOf(e.getAccountId()),
                 "ACCOUNT CREATION"
@@ -48,16 +67,95 @@ public class KafkaProducerService {
     public CompletableFuture<SendResult<String, Object>> sendTransferRequestedEvent(TransferRequestedEvent event) {
         return sendAndLog(
                 TOPIC_TRANSFER_REQUESTS,
+                transactionKey.of(event.senderAccountId(), event.receiverAccountId(), event.idempotencyKey()),
                 event,
                 e -> String.valueOf(e.idempotencyKey()),
                 "TRANSFER REQUEST"
         );
     }
 
+    /**
+     * Sends an already serialized {@link TransactionEvent} as is, with the type header a JsonSerializer would have added.
+     * The record key comes from the typed columns of the outbox row, so the JSON is never parsed.
+     *
+     * @param transfer Typed transfer columns of the outbox row; {@code null} for legacy rows, which are sent unkeyed.
+     */
+    public CompletableFuture<SendResult<String, String>> sendRawTransactionEvent(String json, TransferDetails transfer) {
+        return sendRaw(rawTransactionRecord(json, transfer));
+    }
+
+    /**
+     * Sends an already serialized {@link AccountCreatedEvent} as is, with the type header a JsonSerializer would have added.
+     */
+    public CompletableFuture<SendResult<String, String>> sendRawAccountCreatedEvent(String json, Long accountId) {
+        return sendRaw(rawAccountCreatedRecord(json, accountId));
+    }
+
+    /**
+     * The record {@link #sendRawTransactionEvent} sends, for {@link #sendRawInTransaction}.
+     */
+    public ProducerRecord<String, String> rawTransactionRecord(String json, TransferDetails transfer) {
+        String key = transfer != null
+                ? transactionKey.of(transfer.getSenderAccountId(), transfer.getReceiverAccountId(), transfer.getIdempotencyKey())
+                : null;
+        return rawRecord(TOPIC_TRANSACTIONS, key, json, TransactionEvent.class);
+    }
+
+    /**
+     * The record {@link #sendRawAccountCreatedEvent} sends, for {@link #sendRawInTransaction}.
+     */
+    public ProducerRecord<String, String> rawAccountCreatedRecord(String json, Long accountId) {
+        return rawRecord(TOPIC_ACCOUNTS, accountKey(accountId), json, AccountCreatedEvent.class);
+    }
+
+    public boolean supportsTransactions() {
+        return transactionalRawKafkaTemplate != null;
+    }
+
+    /**
+     * Sends the records in one Kafka transaction and commits it: {@code read_committed} consumers see
+     * all of them or none. Returns once the commit is acknowledged.
+     *
+     * @throws org.apache.kafka.common.KafkaException If a send or the commit failed; the transaction is aborted.
+     * @throws IllegalStateException If no transactional producer is configured (ledger.outbox.relay.transactional).
+     */
+    public void sendRawInTransaction(List<ProducerRecord<String, String>> records) {
+        if (transactionalRawKafkaTemplate == null) {
+            throw new IllegalStateException("No transactional Kafka producer is configured.");
+        }
+        // commitTransaction() flushes and fails if any send of the transaction failed
+        transactionalRawKafkaTemplate.executeInTransaction(operations -> {
+            records.forEach(operations::send);
+            return null;
+        });
+    }
+
+    private static String accountKey(Long accountId) {
+        return accountId != null ? accountId.toString() : null;
+    }
+
+    // No per-record success log here: this is the high-volume relay path
+    private CompletableFuture<SendResult<String, String>> sendRaw(ProducerRecord<String, String> producerRecord) {
+        CompletableFuture<SendResult<String, String>> future = rawKafkaTemplate.send(producerRecord);
+        future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to send raw event to Kafka topic {}. Cause: {}", producerRecord.topic(), ex.getMessage());
+            }
+        });
+        return future;
+    }
+
+    private static ProducerRecord<String, String> rawRecord(String topic, String key, String json, Class<?> type) {
+        ProducerRecord<String, String> producerRecord = new ProducerRecord<>(topic, key, json);
+        producerRecord.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, type.getName().getBytes(StandardCharsets.UTF_8));
+        return producerRecord;
+    }
+
     /**
      * Generic method to handle Kafka sending and logging boilerplate.
      *
      * @param topic       The Kafka topic to send to.
+     * @param key         The record key, which picks the partition; {@code null} spreads records round-robin.
      * @param event       The event object payload.
      * @param idExtractor A function to extract a unique ID from the event for logging purposes.
      * @param eventName   A human-readable name for the event type for logging.
@@ -65,10 +163,11 @@ public class KafkaProducerService {
      * @return The CompletableFuture of the send result.
      */
     private <T> CompletableFuture<SendResult<String, Object>> sendAndLog(String topic,
+                                                                         String key,
                                                                          T event,
                                                                          Function<T, String> idExtractor,
                                                                          String eventName) {
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, event);
+        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, key, event);
 
         future.whenComplete((result, ex) -> {
             String id = idExtractor.apply(event);
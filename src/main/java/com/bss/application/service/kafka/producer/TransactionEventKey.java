@@ -0,0 +1,28 @@
+package com.bss.application.service.kafka.producer;
+
+import java.util.UUID;
+
+/**
+ * Record key of transaction and transfer events. Kafka keeps records with the same key in one
+ * partition, in order, so the key decides which events a consumer sees in sequence: all events
+ * debiting an account ({@link #SENDER_ACCOUNT}), all events crediting it ({@link #RECEIVER_ACCOUNT}),
+ * or no ordering at all but an even spread ({@link #IDEMPOTENCY_KEY}).
+ */
+public enum TransactionEventKey {
+
+    SENDER_ACCOUNT,
+    RECEIVER_ACCOUNT,
+    IDEMPOTENCY_KEY;
+
+    /**
+     * @return The key, or {@code null} (round-robin partitioning) when the chosen field is unknown.
+     */
+    public String of(Long senderAccountId, Long receiverAccountId, UUID idempotencyKey) {
+        Object key = switch (this) {
+            case SENDER_ACCOUNT -> senderAccountId;
+            case RECEIVER_ACCOUNT -> receiverAccountId;
+            case IDEMPOTENCY_KEY -> idempotencyKey;
+        };
+        return key != null ? key.toString() : null;
+    }
+}
@@ -3,7 +3,15 @@ package com.bss.application.service.transaction;
 import com.bss.application.dto.response.transaction.TransactionUserResponse;
 import com.bss.domain.transaction.Transaction;
 
+import java.util.List;
+
 public interface TransactionAuditService {
     void createAuditEvent(Transaction transaction, String eventType);
+
+    /**
+     * Creates the audit events of a whole processing batch, persisted as one JDBC batch.
+     */
+    void createAuditEvents(List<Transaction> transactions, String eventType);
+
     TransactionUserResponse findUserByTransactionId(Long transactionId);
 }
@@ -5,8 +5,10 @@ import com.bss.application.event.transactions.TransactionEvent;
 import com.bss.application.exception.ResourceNotFoundException;
 import com.bss.domain.outbox.OutboxEvent;
 import com.bss.domain.outbox.OutboxEventRepository;
+import com.bss.domain.outbox.TransferDetails;
 import com.bss.domain.transaction.Transaction;
 import com.bss.domain.transaction.TransactionRepository;
+import com.bss.domain.user.User;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -14,6 +16,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 public class TransactionAuditServiceImpl implements TransactionAuditService {
 
@@ -33,13 +38,50 @@ public class TransactionAuditServiceImpl implements TransactionAuditService {
 
     @Override
     public void createAuditEvent(Transaction transaction, String eventType) {
+        OutboxEvent outboxEvent = toOutboxEvent(transaction, eventType);
+        if (outboxEvent == null) {
+            return;
+        }
+        outboxEventRepository.save(outboxEvent);
+        log.info("Outbox audit event '{}' created for transaction {}.", eventType, transaction.getId());
+    }
+
+    @Override
+    public void createAuditEvents(List<Transaction> transactions, String eventType) {
+        List<OutboxEvent> outboxEvents = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            OutboxEvent outboxEvent = toOutboxEvent(transaction, eventType);
+            if (outboxEvent != null) {
+                outboxEvents.add(outboxEvent);
+            }
+        }
+        if (outboxEvents.isEmpty()) {
+            return;
+        }
+
+        // Flushed as a single JDBC batch (hibernate.jdbc.batch_size + reWriteBatchedInserts)
+        outboxEventRepository.saveAll(outboxEvents);
+        log.info("{} outbox audit events '{}' created.", outboxEvents.size(), eventType);
+    }
+
+    /**
+     * @return The outbox row, or {@code null} if the event could not be serialized (logged).
+     */
+    private OutboxEvent toOutboxEvent(Transaction transaction, String eventType) {
+        // The users come with the accounts locked for the batch (batch-fetched), so consumers need no lookup
+        User sender = transaction.getSender().getUser();
+        User receiver = transaction.getReceiver().getUser();
         TransactionEvent event = new TransactionEvent(
                 transaction.getId(),
                 transaction.getSender().getId(),
                 transaction.getReceiver().getId(),
                 transaction.getAmount(),
                 transaction.getCreatedAt(),
-                transaction.getIdempotencyKey()
+                transaction.getIdempotencyKey(),
+                sender.getName(),
+                sender.getEmail(),
+                receiver.getName(),
+                receiver.getEmail()
         );
 
         String payload;
@@ -47,17 +89,17 @@ public class TransactionAuditServiceImpl implements TransactionAuditService {
             payload = objectMapper.writeValueAsString(event);
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize transaction event to JSON for transaction {}", transaction.getId(), e);
-            return;
+            return null;
         }
 
-        OutboxEvent outboxEvent = new OutboxEvent(
+        // Typed columns next to the payload: the relay keys the Kafka record from them
+        return new OutboxEvent(
                 "Transaction",
                 transaction.getId().toString(),
                 eventType,
-                payload
+                payload,
+                new TransferDetails(event.getSenderAccountId(), event.getReceiverAccountId(), event.getAmount(), event.getIdempotencyKey())
         );
-        outboxEventRepository.save(outboxEvent);
-        log.info("Outbox audit event '{}' created for transaction {}.", eventType, transaction.getId());
     }
 
     @Override
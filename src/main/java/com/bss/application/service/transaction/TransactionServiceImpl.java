@@ -4,23 +4,32 @@ import com.bss.application.controller.transaction.mapper.TransactionMapper;
 import com.bss.application.dto.response.transaction.TransactionResponse;
 import com.bss.application.exception.ResourceNotFoundException;
 import com.bss.application.service.transaction.port.in.TransactionService;
+import com.bss.domain.transaction.Transaction;
 import com.bss.domain.transaction.TransactionRepository;
+import com.bss.infrastructure.redis.NegativeCache;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Optional;
+
 @Service
 @Transactional(readOnly = true)
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final String TRANSACTIONS_CACHE = "transactions";
+
     private final TransactionRepository transactionRepository;
     private final TransactionMapper transactionMapper;
+    private final NegativeCache negativeCache;
 
-    public TransactionServiceImpl(TransactionRepository transactionRepository, TransactionMapper transactionMapper) {
+    public TransactionServiceImpl(TransactionRepository transactionRepository, TransactionMapper transactionMapper,
+                                  NegativeCache negativeCache) {
         this.transactionRepository = transactionRepository;
         this.transactionMapper = transactionMapper;
+        this.negativeCache = negativeCache;
     }
 
     @Override
@@ -36,10 +45,17 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    @Cacheable(value = "transactions", key = "#id")
+    @Cacheable(value = "transactions", key = "#id", sync = true) // One load per id in flight, see TwoLevelCache
     public TransactionResponse findTransactionById(Long id) {
-        return transactionRepository.findById(id)
-            .map(transactionMapper::toTransactionResponse)
-            .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
+        // Only reached on a cache miss; ids seen missing recently are not looked up again
+        if (negativeCache.isMissing(TRANSACTIONS_CACHE, id)) {
+            throw new ResourceNotFoundException("Transaction not found with id: " + id);
+        }
+        Optional<Transaction> transaction = transactionRepository.findById(id);
+        if (transaction.isEmpty()) {
+            negativeCache.putMissing(TRANSACTIONS_CACHE, id);
+            throw new ResourceNotFoundException("Transaction not found with id: " + id);
+        }
+        return transactionMapper.toTransactionResponse(transaction.get());
     }
 }
@@ -0,0 +1,226 @@
+package com.bss.application.service.transfer;
+
+import com.bss.domain.outbox.OutboxEvent;
+import com.bss.domain.outbox.OutboxEventRepository;
+import com.bss.infrastructure.postgres.TransferWorkNotifier;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit for the single transfer endpoint: concurrent callers hand over their outbox row and
+ * a single flusher thread persists whatever arrived within the window (or up to the batch size)
+ * as one JDBC batch and one commit, then releases every waiting request. When the group commit fails,
+ * each row is retried in its own transaction, so only the request whose row cannot be written fails.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.transfers.group-commit.enabled", havingValue = "true")
+public class TransferCommitCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferCommitCoalescer.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransferWorkNotifier workNotifier;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchFill;
+    private final Timer waitTimer;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public TransferCommitCoalescer(OutboxEventRepository outboxEventRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${ledger.transfers.group-commit.window-micros:500}") long windowMicros,
+                                   @Value("${ledger.transfers.group-commit.max-batch-size:256}") int maxBatchSize,
+                                   Optional<TransferWorkNotifier> workNotifier) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.workNotifier = workNotifier.orElse(null);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.batchFill = DistributionSummary.builder("ledger.transfers.group_commit.batch.size")
+                .description("Outbox rows persisted per group commit")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("ledger.transfers.group_commit.wait")
+                .description("Time a request waits from hand-over until its group commit completes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = Thread.ofPlatform().name("transfer-group-commit").daemon().start(this::flushLoop);
+    }
+
+    /**
+     * Queues the outbox row for the next group commit.
+     *
+     * @return A future completed once the row is durable, or completed exceptionally if the commit failed.
+     */
+    public CompletableFuture<Void> submit(OutboxEvent event) {
+        if (!running) {
+            return CompletableFuture.failedFuture(notRunning());
+        }
+        PendingWrite pending = new PendingWrite(event, new CompletableFuture<>(), System.nanoTime());
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            // Shut down between the check and the add; the flusher may already be gone
+            pending.future().completeExceptionally(notRunning());
+        }
+        return pending.future();
+    }
+
+    private void flushLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<PendingWrite> batch = collectBatch();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                // Keep the only flusher alive; the failed batch's futures were already completed by flush
+                log.error("Transfer group commit flusher hit an unexpected error.", e);
+            }
+        }
+        drainRemaining();
+    }
+
+    private List<PendingWrite> collectBatch() throws InterruptedException {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                break;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    void flush(List<PendingWrite> batch) {
+        List<OutboxEvent> events = batch.stream().map(PendingWrite::event).toList();
+        try {
+            commit(events);
+        } catch (Exception e) {
+            log.warn("Group commit of {} transfer outbox events failed; writing them one by one.", batch.size(), e);
+            flushIndividually(batch);
+            return;
+        } catch (Error e) {
+            log.error("Group commit of {} transfer outbox events failed.", batch.size(), e);
+            batch.forEach(pending -> pending.future().completeExceptionally(e));
+            throw e;
+        }
+
+        batchFill.record(batch.size());
+        long now = System.nanoTime();
+        batch.forEach(pending -> complete(pending, now));
+    }
+
+    // One bad row (e.g. a duplicate idempotency key) must not fail the unrelated requests it was batched with
+    private void flushIndividually(List<PendingWrite> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite pending = batch.get(i);
+            pending.event().resetGeneratedId(); // Assigned by the rolled-back batch insert
+            try {
+                commit(List.of(pending.event()));
+                batchFill.record(1);
+                complete(pending, System.nanoTime());
+            } catch (Exception e) {
+                log.error("Transfer outbox event {} of a failed group commit could not be written.", pending.event().getAggregateId(), e);
+                pending.future().completeExceptionally(e);
+            } catch (Error e) {
+                batch.subList(i, batch.size()).forEach(remaining -> remaining.future().completeExceptionally(e));
+                throw e;
+            }
+        }
+    }
+
+    private void commit(List<OutboxEvent> events) {
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxEventRepository.saveAll(events);
+            if (workNotifier != null) {
+                workNotifier.notifyTransfersPending(); // Delivered on commit
+            }
+        });
+    }
+
+    private void complete(PendingWrite pending, long now) {
+        waitTimer.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        pending.future().complete(null);
+    }
+
+    private void drainRemaining() {
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flusher == null) {
+            return;
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Restore interrupted status
+        }
+        failQueued();
+    }
+
+    // Whatever the flusher did not take before giving up is never written; release its callers
+    private void failQueued() {
+        List<PendingWrite> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        if (!abandoned.isEmpty()) {
+            log.warn("Transfer group commit shut down with {} outbox events not written.", abandoned.size());
+            abandoned.forEach(pending -> pending.future().completeExceptionally(notRunning()));
+        }
+    }
+
+    private static IllegalStateException notRunning() {
+        return new IllegalStateException("Transfer group commit is not running.");
+    }
+
+    record PendingWrite(OutboxEvent event, CompletableFuture<Void> future, long enqueuedAt) {
+    }
+}
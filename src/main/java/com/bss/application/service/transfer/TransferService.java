@@ -1,8 +1,11 @@
 package com.bss.application.service.transfer;
 
+import com.bss.application.dto.response.transfer.TransferBatchResponse;
 import com.bss.domain.transaction.Transaction;
 import com.bss.domain.transfer.Transfer;
 
+import java.util.List;
+
 public interface TransferService {
 
     /**
@@ -13,4 +16,13 @@ public interface TransferService {
      * @return A entidade Transaction com o resultado final.
      */
     Transaction transfer(Transfer transfer);
+
+    /**
+     * Validates a batch of transfers and persists every valid one to the outbox in a single commit.
+     * Invalid entries are reported individually and do not prevent the others from being accepted.
+     *
+     * @param transfers The transfers to ingest, in request order.
+     * @return The per-item outcome of the batch.
+     */
+    TransferBatchResponse transferBatch(List<Transfer> transfers);
 }
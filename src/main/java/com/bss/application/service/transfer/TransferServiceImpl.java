@@ -1,59 +1,179 @@
 package com.bss.application.service.transfer;
 
-import com.bss.application.event.transactions.TransferRequestedEvent;
-import com.bss.application.exception.JsonSerializationException;
+import com.bss.application.dto.response.transfer.TransferBatchItemResponse;
+import com.bss.application.dto.response.transfer.TransferBatchResponse;
 import com.bss.domain.outbox.OutboxEvent;
 import com.bss.domain.outbox.OutboxEventRepository;
+import com.bss.domain.outbox.TransferDetails;
 import com.bss.domain.transaction.Transaction;
 import com.bss.domain.transfer.Transfer;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.bss.infrastructure.postgres.TransferWorkNotifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class TransferServiceImpl implements TransferService {
 
+    private static final String SAME_ACCOUNT_MESSAGE = "Sender and receiver accounts cannot be the same.";
+
     private final OutboxEventRepository outboxEventRepository;
-    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+    private final TransferCommitCoalescer commitCoalescer;
+    private final TransferWorkNotifier workNotifier;
+    private final long groupCommitTimeoutMillis;
+    private final TransactionTemplate transactionTemplate;
 
-    public TransferServiceImpl(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+    public TransferServiceImpl(OutboxEventRepository outboxEventRepository,
+                               @Value("${ledger.transfers.batch.max-size:1000}") int maxBatchSize,
+                               Optional<TransferCommitCoalescer> commitCoalescer,
+                               Optional<TransferWorkNotifier> workNotifier,
+                               @Value("${ledger.transfers.group-commit.await-timeout-ms:5000}") long groupCommitTimeoutMillis,
+                               PlatformTransactionManager transactionManager) {
         this.outboxEventRepository = outboxEventRepository;
-        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
+        this.commitCoalescer = commitCoalescer.orElse(null);
+        this.workNotifier = workNotifier.orElse(null);
+        this.groupCommitTimeoutMillis = groupCommitTimeoutMillis;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    // Not @Transactional: the single outbox write is atomic on its own, and in group-commit mode
+    // the caller must not hold a pooled connection while it waits for the shared commit.
+    // With a notifier the write and its NOTIFY share one transaction, so one connection and one commit.
     @Override
-    @Transactional // Garante que o evento seja salvo no banco de forma atômica e segura
     public Transaction transfer(Transfer transfer) {
         if (transfer.getSenderAccountId().equals(transfer.getReceiverAccountId())) {
-            throw new IllegalArgumentException("Sender and receiver accounts cannot be the same.");
+            throw new IllegalArgumentException(SAME_ACCOUNT_MESSAGE);
         }
 
-        TransferRequestedEvent event = new TransferRequestedEvent(
-                transfer.getSenderAccountId(),
-                transfer.getReceiverAccountId(),
-                transfer.getAmount(),
-                transfer.getIdempotencyKey()
-        );
+        OutboxEvent outboxEvent = toOutboxEvent(transfer);
 
-        try {
-            String payload = objectMapper.writeValueAsString(event);
-            
-            OutboxEvent outboxEvent = new OutboxEvent(
-                    "Transfer",
-                    transfer.getIdempotencyKey().toString(),
-                    "TransferRequested",
-                    payload
-            );
-            
-            // Gravação síncrona no banco de dados (Segurança Máxima)
+        // Gravação síncrona no banco de dados (Segurança Máxima)
+        if (commitCoalescer != null) {
+            awaitGroupCommit(outboxEvent); // The coalescer notifies inside its own commit
+        } else if (workNotifier != null) {
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxEventRepository.save(outboxEvent);
+                workNotifier.notifyTransfersPending(); // Delivered by PostgreSQL when this transaction commits
+            });
+        } else {
             outboxEventRepository.save(outboxEvent);
-            
-        } catch (JsonProcessingException e) {
-            throw new JsonSerializationException("Error serializing transfer event", e);
         }
 
         // Retorna null pois o processamento é assíncrono (202 Accepted)
         return null;
     }
+
+    private void awaitGroupCommit(OutboxEvent outboxEvent) {
+        try {
+            commitCoalescer.submit(outboxEvent)
+                    .orTimeout(groupCommitTimeoutMillis, TimeUnit.MILLISECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                // The row may still commit; a retry with the same idempotency key cannot transfer twice
+                throw new QueryTimeoutException("Transfer was not committed within " + groupCommitTimeoutMillis + " ms.", e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void notifyWorkers() {
+        if (workNotifier != null) {
+            workNotifier.notifyTransfersPending();
+        }
+    }
+
+    @Override
+    @Transactional // One commit (and one fsync) for the whole batch
+    public TransferBatchResponse transferBatch(List<Transfer> transfers) {
+        if (transfers == null || transfers.isEmpty()) {
+            throw new IllegalArgumentException("Transfer batch cannot be empty.");
+        }
+        if (transfers.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Transfer batch cannot exceed " + maxBatchSize + " items.");
+        }
+
+        List<TransferBatchItemResponse> results = new ArrayList<>(transfers.size());
+        List<OutboxEvent> outboxEvents = new ArrayList<>(transfers.size());
+        Set<UUID> seenKeys = new HashSet<>();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            Transfer transfer = transfers.get(i);
+            TransferBatchItemResponse rejection = validateBatchItem(i, transfer, seenKeys);
+            if (rejection != null) {
+                results.add(rejection);
+                continue;
+            }
+            outboxEvents.add(toOutboxEvent(transfer));
+            results.add(new TransferBatchItemResponse(i, transfer.getIdempotencyKey(), HttpStatus.ACCEPTED.value(), null));
+        }
+
+        // Flushed as a single JDBC batch (hibernate.jdbc.batch_size + reWriteBatchedInserts)
+        if (!outboxEvents.isEmpty()) {
+            outboxEventRepository.saveAll(outboxEvents);
+            notifyWorkers(); // Delivered by PostgreSQL when this transaction commits
+        }
+
+        return new TransferBatchResponse(outboxEvents.size(), transfers.size() - outboxEvents.size(), results);
+    }
+
+    private TransferBatchItemResponse validateBatchItem(int index, Transfer transfer, Set<UUID> seenKeys) {
+        if (transfer == null || transfer.getSenderAccountId() == null || transfer.getReceiverAccountId() == null
+                || transfer.getAmount() == null || transfer.getIdempotencyKey() == null) {
+            return rejected(index, transfer, HttpStatus.BAD_REQUEST,
+                    "senderAccountId, receiverAccountId, amount and idempotencyKey are required.");
+        }
+        if (transfer.getSenderAccountId().equals(transfer.getReceiverAccountId())) {
+            return rejected(index, transfer, HttpStatus.BAD_REQUEST, SAME_ACCOUNT_MESSAGE);
+        }
+        if (transfer.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return rejected(index, transfer, HttpStatus.BAD_REQUEST, "Transfer amount must be positive.");
+        }
+        if (!seenKeys.add(transfer.getIdempotencyKey())) {
+            return rejected(index, transfer, HttpStatus.CONFLICT, "Duplicate idempotencyKey within the batch.");
+        }
+        return null;
+    }
+
+    private TransferBatchItemResponse rejected(int index, Transfer transfer, HttpStatus status, String error) {
+        UUID idempotencyKey = transfer != null ? transfer.getIdempotencyKey() : null;
+        return new TransferBatchItemResponse(index, idempotencyKey, status.value(), error);
+    }
+
+    private OutboxEvent toOutboxEvent(Transfer transfer) {
+        // Typed columns only: the processor reads them directly, no JSON payload is needed
+        TransferDetails details = new TransferDetails(
+                transfer.getSenderAccountId(),
+                transfer.getReceiverAccountId(),
+                transfer.getAmount(),
+                transfer.getIdempotencyKey()
+        );
+
+        return new OutboxEvent(
+                "Transfer",
+                transfer.getIdempotencyKey().toString(),
+                "TransferRequested",
+                details
+        );
+    }
 }
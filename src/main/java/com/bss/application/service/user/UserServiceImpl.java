@@ -12,12 +12,14 @@ import com.bss.domain.user.Role;
 import com.bss.domain.user.User;
 import com.bss.domain.user.UserRepository;
 import com.bss.domain.user.UserStatus;
+import com.bss.infrastructure.redis.NegativeCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -26,14 +28,19 @@ import java.util.function.Consumer;
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    private static final String USERS_CACHE = "users";
+
     private final UserRepository userRepository;
     private final AccountService accountService;
     private final UserMapper userMapper;
+    private final NegativeCache negativeCache;
 
-    public UserServiceImpl(UserRepository userRepository, AccountService accountService, UserMapper userMapper) {
+    public UserServiceImpl(UserRepository userRepository, AccountService accountService, UserMapper userMapper,
+                           NegativeCache negativeCache) {
         this.userRepository = userRepository;
         this.accountService = accountService;
         this.userMapper = userMapper;
+        this.negativeCache = negativeCache;
     }
 
     @Override
@@ -51,6 +58,7 @@ public class UserServiceImpl implements UserService {
         User savedUser = userRepository.save(newUser);
 
         accountService.createAccountForUser(savedUser, new BigDecimal("1000.00"));
+        negativeCache.evictAfterCommit(USERS_CACHE, List.of(savedUser.getId()));
 
         return userMapper.toUserResponse(savedUser);
     }
@@ -58,9 +66,15 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public UserResponse findUserById(Long id) {
-        return userRepository.findById(id)
-            .map(userMapper::toUserResponse)
-            .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
+        if (negativeCache.isMissing(USERS_CACHE, id)) {
+            throw new UserNotFoundException("User not found with id: " + id);
+        }
+        Optional<User> user = userRepository.findById(id);
+        if (user.isEmpty()) {
+            negativeCache.putMissing(USERS_CACHE, id);
+            throw new UserNotFoundException("User not found with id: " + id);
+        }
+        return userMapper.toUserResponse(user.get());
     }
 
     @Override
@@ -23,6 +23,8 @@ public class Account implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    public static final int MAX_BALANCE_SLOTS = 64;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -41,6 +43,10 @@ public class Account implements Serializable {
     @Column(nullable = false)
     private AccountStatus status;
 
+    // Number of AccountBalanceSlot rows holding part of the balance; 0 means not striped
+    @Column(nullable = false)
+    private int balanceSlots;
+
     @CreatedDate
     @JsonFormat(pattern = "MM/dd/yyyy HH:mm:ss.SSS")
     @Column(nullable = false, updatable = false)
@@ -65,40 +71,74 @@ public class Account implements Serializable {
     public User getUser() { return user; }
     public BigDecimal getBalance() { return balance; }
     public AccountStatus getStatus() { return status; }
+    public int getBalanceSlots() { return balanceSlots; }
+    public boolean isStriped() { return balanceSlots > 0; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
 
     // Business methods
     public void deposit(BigDecimal amount) {
+        this.balance = balanceAfterDeposit(this.balance, amount);
+    }
+
+    public void withdraw(BigDecimal amount) {
+        this.balance = balanceAfterWithdraw(this.balance, amount);
+    }
+
+    /**
+     * Applies the deposit rules to the given balance without touching this entity.
+     * Used by batch processing, which tracks balances in memory and writes only the net result.
+     */
+    public BigDecimal balanceAfterDeposit(BigDecimal currentBalance, BigDecimal amount) {
         if (this.status != AccountStatus.ACTIVE) {
             throw new IllegalStateException("Account is not active. Cannot deposit.");
         }
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Deposit amount must be positive.");
         }
-        this.balance = this.balance.add(amount);
+        return currentBalance.add(amount);
     }
 
-    public void withdraw(BigDecimal amount) {
+    /**
+     * Applies the withdrawal rules to the given balance without touching this entity.
+     */
+    public BigDecimal balanceAfterWithdraw(BigDecimal currentBalance, BigDecimal amount) {
         if (this.status != AccountStatus.ACTIVE) {
             throw new IllegalStateException("Account is not active. Cannot withdraw.");
         }
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Withdrawal amount must be positive.");
         }
-        if (this.balance.compareTo(amount) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance for withdrawal. Current: " + this.balance + ", Required: " + amount);
+        if (currentBalance.compareTo(amount) < 0) {
+            throw new InsufficientBalanceException("Insufficient balance for withdrawal. Current: " + currentBalance + ", Required: " + amount);
         }
-        this.balance = this.balance.subtract(amount);
+        return currentBalance.subtract(amount);
     }
 
     public void adjustBalance(BigDecimal newBalance) {
+        if (isStriped()) {
+            throw new IllegalStateException("Cannot adjust the balance of a striped account.");
+        }
         if (newBalance == null || newBalance.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("New balance cannot be null or negative.");
         }
         this.balance = newBalance;
     }
 
+    /**
+     * Marks the account as striped over the given number of balance slots. The current balance stays
+     * on the account row; the slots start empty and receive the credits from then on. Striping is one-way.
+     */
+    public void stripe(int slots) {
+        if (isStriped()) {
+            throw new IllegalStateException("Account is already striped.");
+        }
+        if (slots < 2 || slots > MAX_BALANCE_SLOTS) {
+            throw new IllegalArgumentException("Balance slots must be between 2 and " + MAX_BALANCE_SLOTS + ".");
+        }
+        this.balanceSlots = slots;
+    }
+
     public void block() {
         this.status = AccountStatus.BLOCKED;
     }
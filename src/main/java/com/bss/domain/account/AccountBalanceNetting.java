@@ -0,0 +1,130 @@
+package com.bss.domain.account;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory balance book for one processing batch. Transfers are applied in order against running
+ * balances (with the same rules as {@link Account#withdraw}/{@link Account#deposit}) to decide each
+ * one's outcome, while the managed entities stay untouched. Only the net delta per account is
+ * written back, through {@link AccountRepositoryCustom#applyBalanceDeltas} and, for striped
+ * accounts, {@link AccountBalanceSlotRepositoryCustom#applySlotDeltas}.
+ *
+ * <p>For a striped account the opening balance is its row balance plus the slots locked for this
+ * batch. Debited accounts have all their slots locked; credit-only ones a single slot, which
+ * understates the balance but is never used for a withdrawal.
+ */
+public class AccountBalanceNetting {
+
+    private final Map<Long, Account> accounts = new HashMap<>();
+    private final Map<Long, BigDecimal> balances = new HashMap<>();
+    private final Map<Long, List<Map.Entry<BalanceSlotKey, BigDecimal>>> slotsByAccount;
+
+    public AccountBalanceNetting() {
+        this(Map.of());
+    }
+
+    /**
+     * @param lockedSlots Balance of every slot row locked for this batch.
+     */
+    public AccountBalanceNetting(Map<BalanceSlotKey, BigDecimal> lockedSlots) {
+        this.slotsByAccount = new TreeMap<>(lockedSlots).entrySet().stream()
+                .collect(Collectors.groupingBy(entry -> entry.getKey().accountId()));
+    }
+
+    /**
+     * Moves the amount between the running balances. Either both sides are applied or, if a rule
+     * is violated, neither is and the exception of the violated rule is thrown.
+     */
+    public void transfer(Account sender, Account receiver, BigDecimal amount) {
+        BigDecimal senderBalance = sender.balanceAfterWithdraw(balanceOf(sender), amount);
+        BigDecimal receiverBalance = receiver.balanceAfterDeposit(balanceOf(receiver), amount);
+
+        track(sender, senderBalance);
+        track(receiver, receiverBalance);
+    }
+
+    public BigDecimal balanceOf(Account account) {
+        BigDecimal balance = balances.get(account.getId());
+        return balance != null ? balance : openingBalance(account);
+    }
+
+    /**
+     * @return The non-zero net change per account, ordered by account id.
+     */
+    public Map<Long, BigDecimal> netDeltas() {
+        Map<Long, BigDecimal> deltas = new TreeMap<>();
+        balances.forEach((id, balance) -> {
+            BigDecimal delta = balance.subtract(openingBalance(accounts.get(id)));
+            if (delta.signum() != 0) {
+                deltas.put(id, delta);
+            }
+        });
+        return deltas;
+    }
+
+    /**
+     * Splits the net deltas into row and slot writes. Credits to a striped account go to its first
+     * locked slot; debits drain the account row first and then the slots in order.
+     */
+    public BalanceWrites balanceWrites() {
+        Map<Long, BigDecimal> accountDeltas = new TreeMap<>();
+        Map<BalanceSlotKey, BigDecimal> slotDeltas = new TreeMap<>();
+
+        netDeltas().forEach((id, delta) -> {
+            List<Map.Entry<BalanceSlotKey, BigDecimal>> slots = slotsByAccount.getOrDefault(id, List.of());
+            if (slots.isEmpty()) {
+                accountDeltas.put(id, delta);
+            } else if (delta.signum() > 0) {
+                slotDeltas.put(slots.get(0).getKey(), delta);
+            } else {
+                allocateDebit(accounts.get(id), delta.negate(), slots, accountDeltas, slotDeltas);
+            }
+        });
+        return new BalanceWrites(accountDeltas, slotDeltas);
+    }
+
+    private void allocateDebit(Account account, BigDecimal amount, List<Map.Entry<BalanceSlotKey, BigDecimal>> slots,
+                               Map<Long, BigDecimal> accountDeltas, Map<BalanceSlotKey, BigDecimal> slotDeltas) {
+        BigDecimal remaining = amount;
+        BigDecimal fromRow = remaining.min(account.getBalance());
+        if (fromRow.signum() > 0) {
+            accountDeltas.put(account.getId(), fromRow.negate());
+            remaining = remaining.subtract(fromRow);
+        }
+        for (Map.Entry<BalanceSlotKey, BigDecimal> slot : slots) {
+            if (remaining.signum() == 0) {
+                break;
+            }
+            BigDecimal fromSlot = remaining.min(slot.getValue());
+            if (fromSlot.signum() > 0) {
+                slotDeltas.put(slot.getKey(), fromSlot.negate());
+                remaining = remaining.subtract(fromSlot);
+            }
+        }
+        if (remaining.signum() != 0) {
+            // Cannot happen while withdrawals are checked against the same opening balance
+            throw new IllegalStateException("Locked balance of account " + account.getId() + " does not cover its net debit.");
+        }
+    }
+
+    private BigDecimal openingBalance(Account account) {
+        BigDecimal balance = account.getBalance();
+        for (Map.Entry<BalanceSlotKey, BigDecimal> slot : slotsByAccount.getOrDefault(account.getId(), List.of())) {
+            balance = balance.add(slot.getValue());
+        }
+        return balance;
+    }
+
+    private void track(Account account, BigDecimal balance) {
+        accounts.putIfAbsent(account.getId(), account);
+        balances.put(account.getId(), balance);
+    }
+
+    public record BalanceWrites(Map<Long, BigDecimal> accountDeltas, Map<BalanceSlotKey, BigDecimal> slotDeltas) {
+    }
+}
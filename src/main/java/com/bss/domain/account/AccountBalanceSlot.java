@@ -0,0 +1,45 @@
+package com.bss.domain.account;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Check;
+
+import java.math.BigDecimal;
+
+/**
+ * One of the K sub-balances of a striped account (see {@link Account#stripe(int)}). Transfers credit
+ * a single slot, so concurrent credits to a hot account no longer queue on its {@code tb_account} row.
+ */
+@Entity
+@Table(name = "tb_account_balance_slot", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_balance_slot_account_slot", columnNames = {"account_id", "slot"})
+})
+@Check(constraints = "balance >= 0")
+public class AccountBalanceSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    protected AccountBalanceSlot() {}
+
+    public AccountBalanceSlot(Long accountId, int slot) {
+        this.accountId = accountId;
+        this.slot = slot;
+        this.balance = BigDecimal.ZERO;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getAccountId() { return accountId; }
+    public int getSlot() { return slot; }
+    public BigDecimal getBalance() { return balance; }
+}
@@ -0,0 +1,22 @@
+package com.bss.domain.account;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+public interface AccountBalanceSlotRepositoryCustom {
+
+    /**
+     * Locks the given slot rows in (accountId, slot) order with a single statement.
+     *
+     * @return The current balance of every slot that exists, ordered by key.
+     */
+    Map<BalanceSlotKey, BigDecimal> lockSlots(Collection<BalanceSlotKey> keys);
+
+    /**
+     * Adds each delta to its slot in a single set-based UPDATE. Callers must already hold the slot locks.
+     *
+     * @return The number of slot rows updated.
+     */
+    int applySlotDeltas(Map<BalanceSlotKey, BigDecimal> deltas);
+}
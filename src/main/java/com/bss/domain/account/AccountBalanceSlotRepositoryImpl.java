@@ -0,0 +1,70 @@
+package com.bss.domain.account;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Picked up by Spring Data as the implementation of AccountBalanceSlotRepositoryCustom
+class AccountBalanceSlotRepositoryImpl implements AccountBalanceSlotRepositoryCustom {
+
+    private static final String LOCK_SLOTS_SQL = """
+            SELECT s.account_id, s.slot, s.balance
+              FROM tb_account_balance_slot s
+              JOIN unnest(?, ?) AS k(account_id, slot) ON s.account_id = k.account_id AND s.slot = k.slot
+             ORDER BY s.account_id, s.slot
+               FOR UPDATE OF s
+            """;
+
+    private static final String APPLY_DELTAS_SQL = """
+            UPDATE tb_account_balance_slot s
+               SET balance = s.balance + d.delta
+              FROM unnest(?, ?, ?) AS d(account_id, slot, delta)
+             WHERE s.account_id = d.account_id AND s.slot = d.slot
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    AccountBalanceSlotRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<BalanceSlotKey, BigDecimal> lockSlots(Collection<BalanceSlotKey> keys) {
+        Map<BalanceSlotKey, BigDecimal> balances = new TreeMap<>();
+        if (keys.isEmpty()) {
+            return balances;
+        }
+        Long[] accountIds = keys.stream().map(BalanceSlotKey::accountId).toArray(Long[]::new);
+        Integer[] slots = keys.stream().map(BalanceSlotKey::slot).toArray(Integer[]::new);
+
+        jdbcTemplate.query(LOCK_SLOTS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", accountIds));
+            ps.setArray(2, connection.createArrayOf("integer", slots));
+        }, rs -> {
+            balances.put(new BalanceSlotKey(rs.getLong("account_id"), rs.getInt("slot")), rs.getBigDecimal("balance"));
+        });
+        return balances;
+    }
+
+    @Override
+    public int applySlotDeltas(Map<BalanceSlotKey, BigDecimal> deltas) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        Long[] accountIds = deltas.keySet().stream().map(BalanceSlotKey::accountId).toArray(Long[]::new);
+        Integer[] slots = deltas.keySet().stream().map(BalanceSlotKey::slot).toArray(Integer[]::new);
+        BigDecimal[] amounts = deltas.values().toArray(BigDecimal[]::new);
+
+        return jdbcTemplate.update(APPLY_DELTAS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", accountIds));
+            ps.setArray(2, connection.createArrayOf("integer", slots));
+            ps.setArray(3, connection.createArrayOf("numeric", amounts));
+        });
+    }
+}
@@ -0,0 +1,10 @@
+package com.bss.domain.account;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * State of an account row right after {@link AccountRepositoryCustom#applyBalanceDeltas} changed it.
+ */
+public record AccountBalanceUpdate(Long accountId, BigDecimal balance, Long version, LocalDateTime updatedAt) {
+}
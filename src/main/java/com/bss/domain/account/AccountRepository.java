@@ -6,10 +6,11 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountRepositoryCustom {
 
     @Override
     Optional<Account> findById(Long id);
@@ -18,11 +19,24 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Query("SELECT a FROM Account a WHERE a.id = :id")
     Optional<Account> findByIdForUpdate(@Param("id") Long id);
 
+    // Locks the whole id set in one round trip; rows are locked in id order to avoid deadlocks between workers.
+    // The ids travel as a single array bind, so every batch size shares one statement and one plan.
+    @Query(value = "SELECT * FROM tb_account WHERE id = ANY(CAST(:ids AS bigint[])) ORDER BY id FOR UPDATE",
+            nativeQuery = true)
+    List<Account> findAllByIdForUpdate(@Param("ids") Long[] ids);
+
+    // Non-locking read of the striped accounts among the ids; their credits lock a balance slot instead of the row
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids AND a.balanceSlots > 0")
+    List<Account> findStripedByIds(@Param("ids") Collection<Long> ids);
+
     Optional<Account> findByUser_Id(Long userId);
 
     @Query("SELECT a FROM Account a WHERE a.id IN :ids")
     List<Account> findByIds(@Param("ids") List<Long> ids);
 
+    @Query("SELECT a FROM Account a JOIN FETCH a.user WHERE a.id IN :ids")
+    List<Account> findWithUserByIds(@Param("ids") Collection<Long> ids);
+
     @Override
     <S extends Account> S save(S entity);
 
@@ -0,0 +1,16 @@
+package com.bss.domain.account;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public interface AccountRepositoryCustom {
+
+    /**
+     * Adds each delta to its account balance in a single set-based UPDATE, bumping the version
+     * like an entity update would. Callers must already hold the row locks.
+     *
+     * @return The new state of every account row updated.
+     */
+    List<AccountBalanceUpdate> applyBalanceDeltas(Map<Long, BigDecimal> deltas);
+}
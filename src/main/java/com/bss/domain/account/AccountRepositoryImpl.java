@@ -0,0 +1,47 @@
+package com.bss.domain.account;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+
+// Picked up by Spring Data as the implementation of AccountRepositoryCustom
+class AccountRepositoryImpl implements AccountRepositoryCustom {
+
+    private static final String APPLY_DELTAS_SQL = """
+            UPDATE tb_account a
+               SET balance = a.balance + d.delta,
+                   version = COALESCE(a.version, 0) + 1,
+                   updated_at = CURRENT_TIMESTAMP
+              FROM unnest(?, ?) AS d(id, delta)
+             WHERE a.id = d.id
+            RETURNING a.id, a.balance, a.version, a.updated_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    AccountRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<AccountBalanceUpdate> applyBalanceDeltas(Map<Long, BigDecimal> deltas) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+        Long[] ids = deltas.keySet().toArray(Long[]::new);
+        BigDecimal[] amounts = deltas.values().toArray(BigDecimal[]::new);
+
+        return jdbcTemplate.query(APPLY_DELTAS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", ids));
+            ps.setArray(2, connection.createArrayOf("numeric", amounts));
+        }, (rs, rowNum) -> new AccountBalanceUpdate(
+                rs.getLong("id"),
+                rs.getBigDecimal("balance"),
+                rs.getLong("version"),
+                rs.getTimestamp("updated_at").toLocalDateTime()));
+    }
+}
@@ -0,0 +1,18 @@
+package com.bss.domain.account;
+
+import java.util.Comparator;
+
+/**
+ * Identifies one balance slot of a striped account. Ordered by (accountId, slot), which is the
+ * order slot rows are locked in.
+ */
+public record BalanceSlotKey(Long accountId, int slot) implements Comparable<BalanceSlotKey> {
+
+    private static final Comparator<BalanceSlotKey> ORDER =
+            Comparator.comparing(BalanceSlotKey::accountId).thenComparingInt(BalanceSlotKey::slot);
+
+    @Override
+    public int compareTo(BalanceSlotKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+// The claim queries are served by partial indexes on UNPROCESSED rows, which JPA cannot describe (see the V5 and V7 migrations)
 @Entity
 @Table(name = "tb_outbox_event", indexes = {
     @Index(name = "idx_outbox_status_eventtype_created", columnList = "status, eventType, createdAt"),
@@ -24,9 +25,17 @@ public class OutboxEvent {
     @Column(nullable = false)
     private String eventType;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
+    // Optional for event types stored in typed columns (see TransferDetails)
+    @Column(columnDefinition = "TEXT")
     private String payload;
 
+    @Embedded
+    private TransferDetails transfer;
+
+    // See TransferShards; null for rows that carry no typed transfer
+    @Column
+    private Integer shardKey;
+
     @Enumerated(EnumType.ORDINAL)
     @Column(nullable = false)
     private OutboxEventStatus status = OutboxEventStatus.UNPROCESSED;
@@ -34,9 +43,20 @@ public class OutboxEvent {
     @Column
     private LocalDateTime lockedAt;
 
+    // Set by the claim and left in place afterwards; only enforced while PROCESSING (see OutboxLease)
+    @Column(length = 255)
+    private String leaseOwner;
+
+    @Column
+    private LocalDateTime leaseExpiresAt;
+
     @Column(nullable = false)
     private int retryCount = 0;
 
+    // Claims skip the row until then; equals createdAt for a new event and moves forward on every retry
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -48,6 +68,21 @@ public class OutboxEvent {
         this.eventType = eventType;
         this.payload = payload;
         this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    public OutboxEvent(String aggregateType, String aggregateId, String eventType, TransferDetails transfer) {
+        this(aggregateType, aggregateId, eventType, null, transfer);
+    }
+
+    /**
+     * Event with a JSON payload that also carries its transfer in the typed columns, so consumers of the
+     * row (e.g. the relay choosing a record key) can read them without parsing the payload.
+     */
+    public OutboxEvent(String aggregateType, String aggregateId, String eventType, String payload, TransferDetails transfer) {
+        this(aggregateType, aggregateId, eventType, payload);
+        this.transfer = transfer;
+        this.shardKey = TransferShards.shardOf(transfer.getSenderAccountId());
     }
 
     // Getters
@@ -56,16 +91,34 @@ public class OutboxEvent {
     public String getAggregateId() { return aggregateId; }
     public String getEventType() { return eventType; }
     public String getPayload() { return payload; }
+    public TransferDetails getTransfer() { return transfer; }
+    public Integer getShardKey() { return shardKey; }
     public OutboxEventStatus getStatus() { return status; }
     public LocalDateTime getLockedAt() { return lockedAt; }
+    public String getLeaseOwner() { return leaseOwner; }
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
     public int getRetryCount() { return retryCount; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
     public LocalDateTime getCreatedAt() { return createdAt; }
 
     // Setters
     public void setStatus(OutboxEventStatus status) { this.status = status; }
     public void setLockedAt(LocalDateTime lockedAt) { this.lockedAt = lockedAt; }
     public void incrementRetryCount() { this.retryCount++; }
+
+    /**
+     * Hands the event back for another attempt, not before the given time.
+     */
+    public void scheduleRetry(LocalDateTime nextAttemptAt) {
+        this.status = OutboxEventStatus.UNPROCESSED;
+        this.nextAttemptAt = nextAttemptAt;
+    }
     
+    /**
+     * Forgets the id assigned by a persist whose transaction rolled back, so the event can be inserted again.
+     */
+    public void resetGeneratedId() { this.id = null; }
+
     // Setter for testing purposes
     public void setRetryCount(int retryCount) { this.retryCount = retryCount; }
 
@@ -1,24 +1,95 @@
 package com.bss.domain.outbox;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
 
-    // Using native query for PostgreSQL's FOR UPDATE SKIP LOCKED
-    @Query(value = "SELECT * FROM tb_outbox_event e WHERE e.status = :#{#status.ordinal()} AND e.event_type = :eventType AND (e.locked_at IS NULL OR e.locked_at < :lockTimeout) ORDER BY e.created_at ASC FOR UPDATE SKIP LOCKED", nativeQuery = true)
-    List<OutboxEvent> findAndLockUnprocessedEvents(@Param("status") OutboxEventStatus status,
-                                                   @Param("eventType") String eventType,
-                                                   @Param("lockTimeout") LocalDateTime lockTimeout,
-                                                   Pageable pageable);
+    // Claims a batch of due rows in one statement: the inner SELECT skips rows locked by other workers or
+    // still backing off, the UPDATE marks them PROCESSING under the caller's lease (status ordinals:
+    // 0 = UNPROCESSED, 1 = PROCESSING) and RETURNING hands them back, oldest due first.
+    // @Transactional overrides the read-only default of query methods, since this one writes.
+    @Transactional
+    @Query(value = "WITH claimed AS (UPDATE tb_outbox_event SET status = 1, locked_at = :now, "
+            + "lease_owner = :leaseOwner, lease_expires_at = :leaseExpiresAt WHERE id IN ("
+            + "SELECT e.id FROM tb_outbox_event e WHERE e.status = 0 AND e.event_type = :eventType "
+            + "AND e.next_attempt_at <= :now ORDER BY e.next_attempt_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED) "
+            + "RETURNING *) SELECT * FROM claimed ORDER BY next_attempt_at ASC", nativeQuery = true)
+    List<OutboxEvent> claimUnprocessedEvents(@Param("eventType") String eventType,
+                                             @Param("now") LocalDateTime now,
+                                             @Param("leaseOwner") String leaseOwner,
+                                             @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                                             @Param("limit") int limit);
+
+    // Sharded variant: claims only rows whose shard_key is in [shardFrom, shardTo). Rows without a shard key
+    // (legacy payload-only events) go to whoever owns shard 0.
+    @Transactional
+    @Query(value = "WITH claimed AS (UPDATE tb_outbox_event SET status = 1, locked_at = :now, "
+            + "lease_owner = :leaseOwner, lease_expires_at = :leaseExpiresAt WHERE id IN ("
+            + "SELECT e.id FROM tb_outbox_event e WHERE e.status = 0 AND e.event_type = :eventType "
+            + "AND (e.shard_key >= :shardFrom AND e.shard_key < :shardTo OR (:shardFrom = 0 AND e.shard_key IS NULL)) "
+            + "AND e.next_attempt_at <= :now ORDER BY e.next_attempt_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED) "
+            + "RETURNING *) SELECT * FROM claimed ORDER BY next_attempt_at ASC", nativeQuery = true)
+    List<OutboxEvent> claimUnprocessedEventsInShardRange(@Param("eventType") String eventType,
+                                                         @Param("now") LocalDateTime now,
+                                                         @Param("leaseOwner") String leaseOwner,
+                                                         @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                                                         @Param("shardFrom") int shardFrom,
+                                                         @Param("shardTo") int shardTo,
+                                                         @Param("limit") int limit);
+
+    // Locks the claimed rows the caller still leases under :leaseToken and loads them afresh. A row whose lease
+    // expired and was reclaimed by another claim is left out, so two claims never finalize the same row.
+    @Query(value = "SELECT * FROM tb_outbox_event e WHERE e.id = ANY(CAST(:ids AS uuid[])) "
+            + "AND e.status = 1 AND e.lease_owner = :leaseToken FOR UPDATE", nativeQuery = true)
+    List<OutboxEvent> lockLeasedEvents(@Param("ids") UUID[] ids, @Param("leaseToken") String leaseToken);
+
+    // Hands rows that could not be finalized back for another attempt, not before :nextAttemptAt, without a retry
+    // charge: the failure was not traced to them. Written in bulk from the ids alone, since the entities may carry
+    // state from the rolled-back attempt.
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE tb_outbox_event SET status = 0, next_attempt_at = :nextAttemptAt, "
+            + "lease_owner = NULL, lease_expires_at = NULL "
+            + "WHERE id = ANY(CAST(:ids AS uuid[])) AND status = 1 AND lease_owner = :leaseToken", nativeQuery = true)
+    int releaseLeasedEvents(@Param("ids") UUID[] ids,
+                            @Param("leaseToken") String leaseToken,
+                            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    // Like releaseLeasedEvents, for rows that failed on their own: charges them a retry and marks them FAILED
+    // (status 3) once they reach :maxRetries.
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE tb_outbox_event SET retry_count = retry_count + 1, next_attempt_at = :nextAttemptAt, "
+            + "status = CASE WHEN retry_count + 1 >= :maxRetries THEN 3 ELSE 0 END, "
+            + "lease_owner = NULL, lease_expires_at = NULL "
+            + "WHERE id = ANY(CAST(:ids AS uuid[])) AND status = 1 AND lease_owner = :leaseToken", nativeQuery = true)
+    int releaseFailedLeasedEvents(@Param("ids") UUID[] ids,
+                                  @Param("leaseToken") String leaseToken,
+                                  @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                                  @Param("maxRetries") int maxRetries);
+
+    // Rows still locked by a live transaction are skipped: their owner is working on them right now. Each return
+    // counts as an attempt, so a row that takes its node down every time ends up FAILED instead of looping.
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE tb_outbox_event SET retry_count = retry_count + 1, "
+            + "status = CASE WHEN retry_count + 1 >= :maxRetries THEN 3 ELSE 0 END, "
+            + "lease_owner = NULL, lease_expires_at = NULL WHERE id IN ("
+            + "SELECT e.id FROM tb_outbox_event e WHERE e.status = 1 AND e.lease_expires_at < :now FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int releaseExpiredLeases(@Param("now") LocalDateTime now, @Param("maxRetries") int maxRetries);
+
+    long countByStatusAndEventTypeIn(OutboxEventStatus status, Collection<String> eventTypes);
 
     List<OutboxEvent> findByEventType(String eventType);
 }
@@ -0,0 +1,46 @@
+package com.bss.domain.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Typed shape of a transfer carried by an outbox row. Stored in native columns so the
+ * transfer processor never has to parse the JSON payload.
+ */
+@Embeddable
+public class TransferDetails {
+
+    @Column(name = "sender_account_id")
+    private Long senderAccountId;
+
+    @Column(name = "receiver_account_id")
+    private Long receiverAccountId;
+
+    @Column(name = "amount", precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "idempotency_key")
+    private UUID idempotencyKey;
+
+    protected TransferDetails() {}
+
+    public TransferDetails(Long senderAccountId, Long receiverAccountId, BigDecimal amount, UUID idempotencyKey) {
+        this.senderAccountId = senderAccountId;
+        this.receiverAccountId = receiverAccountId;
+        this.amount = amount;
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    // Getters
+    public Long getSenderAccountId() { return senderAccountId; }
+    public Long getReceiverAccountId() { return receiverAccountId; }
+    public BigDecimal getAmount() { return amount; }
+    public UUID getIdempotencyKey() { return idempotencyKey; }
+
+    public boolean isComplete() {
+        return senderAccountId != null && receiverAccountId != null && amount != null && idempotencyKey != null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.bss.domain.outbox;
+
+/**
+ * Fixed shard space for transfer outbox rows. A row's shard is derived from the sender account,
+ * so every debit of an account is claimed by the single worker that owns that shard.
+ */
+public final class TransferShards {
+
+    // Fixed on purpose: the value is persisted in tb_outbox_event.shard_key (see V3 migration)
+    public static final int SHARD_COUNT = 1024;
+
+    private TransferShards() {}
+
+    public static int shardOf(Long senderAccountId) {
+        return (int) Math.floorMod(senderAccountId, (long) SHARD_COUNT);
+    }
+}
@@ -16,7 +16,7 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
 
     @Override
-    @Cacheable(value = "users", key = "#id")
+    @Cacheable(value = "users", key = "#id", sync = true) // One load per id in flight, see TwoLevelCache
     Optional<User> findById(Long id);
 
     @Override
@@ -27,6 +27,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @CacheEvict(value = "users", key = "#id")
     void deleteById(Long id);
 
+    // Not cached: the users cache reloads entries ahead of expiry through it
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findByIdUncached(@Param("id") Long id);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @QueryHints({@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000")})
     @Query("SELECT u FROM User u WHERE u.id = :id")
@@ -17,6 +17,7 @@ import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 @Configuration
 public class KafkaConsumerConfig {
@@ -27,11 +28,23 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    // Hides records of aborted and still-open producer transactions (transactional outbox relay)
+    @Value("${ledger.kafka.consumer.isolation-level:read_committed}")
+    private String isolationLevel;
+
+    // Consumers of one group share the partitions, so more than the topic's partition count sit idle
+    @Value("${ledger.kafka.consumer.transactions.concurrency:3}")
+    private int transactionsConcurrency;
+
+    @Value("${ledger.kafka.consumer.transactions.max-poll-records:500}")
+    private int transactionsMaxPollRecords;
+
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, isolationLevel);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         
@@ -62,4 +75,26 @@ public class KafkaConsumerConfig {
         factory.setCommonErrorHandler(errorHandler);
         return factory;
     }
+
+    /**
+     * Container factory for listeners that take a whole poll at once. A listener that fails on one record
+     * throws a {@link org.springframework.kafka.listener.BatchListenerFailedException} with its index: the
+     * records before it are committed, the failed one is retried and dead-lettered like in the record mode,
+     * and the rest of the poll is redelivered.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory,
+            CommonErrorHandler errorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setCommonErrorHandler(errorHandler);
+        factory.setBatchListener(true);
+        factory.setConcurrency(transactionsConcurrency);
+
+        Properties consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(transactionsMaxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+        return factory;
+    }
 }
@@ -2,7 +2,9 @@ package com.bss.infrastructure.kafka.config.producer;
 
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -21,10 +23,68 @@ public class KafkaProducerConfig {
 
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
+        Map<String, Object> configProps = reliableProducerProps();
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+
+        // Add type information to the headers (Full class name by default)
+        // This aligns with the consumer configuration expecting full class names
+        configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, "true");
+
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+
+    /**
+     * Producer for values that are already serialized JSON (the outbox payloads): the bytes go out
+     * unchanged and the caller sets the type header the consumers' JsonDeserializer expects.
+     */
+    @Bean
+    public ProducerFactory<String, String> rawProducerFactory() {
+        Map<String, Object> configProps = reliableProducerProps();
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> rawKafkaTemplate() {
+        return new KafkaTemplate<>(rawProducerFactory());
+    }
+
+    /**
+     * Transactional variant of the raw producer, for the opt-in transactional outbox relay. The
+     * transactional id must be unique per instance (the default prefix includes the host name) and
+     * stable across restarts, so a restarted relay fences and aborts its predecessor's open transaction.
+     * Committing a transaction blocks for at most the relay's acknowledgement timeout.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "ledger.outbox.relay.transactional", havingValue = "true")
+    public ProducerFactory<String, String> transactionalRawProducerFactory(
+            @Value("${ledger.kafka.producer.transaction-id-prefix:ledger-relay-${HOSTNAME:local}-}") String transactionIdPrefix,
+            @Value("${ledger.outbox.relay.ack-timeout-ms:10000}") long ackTimeoutMillis) {
+        Map<String, Object> configProps = reliableProducerProps();
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, ackTimeoutMillis);
+
+        DefaultKafkaProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(configProps);
+        factory.setTransactionIdPrefix(transactionIdPrefix);
+        return factory;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "ledger.outbox.relay.transactional", havingValue = "true")
+    public KafkaTemplate<String, String> transactionalRawKafkaTemplate(
+            @Qualifier("transactionalRawProducerFactory") ProducerFactory<String, String> transactionalRawProducerFactory) {
+        return new KafkaTemplate<>(transactionalRawProducerFactory);
+    }
+
+    private Map<String, Object> reliableProducerProps() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
 
         // Robustness & Reliability Settings for Financial Transactions
         // Ensure strong durability guarantees
@@ -36,15 +96,6 @@ public class KafkaProducerConfig {
         // Allow parallel requests while maintaining order (guaranteed by idempotence)
         configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5); 
 
-        // Add type information to the headers (Full class name by default)
-        // This aligns with the consumer configuration expecting full class names
-        configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, "true");
-
-        return new DefaultKafkaProducerFactory<>(configProps);
-    }
-
-    @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        return configProps;
     }
 }
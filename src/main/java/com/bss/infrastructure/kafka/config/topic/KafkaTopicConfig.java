@@ -1,6 +1,7 @@
 package com.bss.infrastructure.kafka.config.topic;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -8,10 +9,18 @@ import org.springframework.kafka.config.TopicBuilder;
 @Configuration
 public class KafkaTopicConfig {
 
+    // Records are keyed (see TransactionEventKey), so the partition count is the consumers' unit of parallelism.
+    // Adding partitions later remaps keys: events of one account may then briefly be consumed out of order.
+    @Value("${ledger.kafka.topics.transactions.partitions:3}")
+    private int transactionsPartitions;
+
+    @Value("${ledger.kafka.topics.accounts.partitions:1}")
+    private int accountsPartitions;
+
     @Bean
     public NewTopic transactionsTopic() {
         return TopicBuilder.name("transactions")
-                .partitions(3)
+                .partitions(transactionsPartitions)
                 .replicas(1)
                 .build();
     }
@@ -19,7 +28,7 @@ public class KafkaTopicConfig {
     @Bean
     public NewTopic accountsTopic() {
         return TopicBuilder.name("accounts")
-                .partitions(1) // Only 1 partition is sufficient for this type of event
+                .partitions(accountsPartitions) // 1 partition is sufficient unless account creation becomes a hot path
                 .replicas(1)
                 .build();
     }
@@ -0,0 +1,101 @@
+package com.bss.infrastructure.postgres;
+
+import com.bss.application.scheduler.TransferWorkSignal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds a dedicated (non-pooled) connection that LISTENs on {@link TransferWorkNotifier#CHANNEL}
+ * and wakes the transfer workers on every notification. The connection is re-opened after
+ * failures; each (re)connect also wakes the workers, since notifications sent while it was down are lost.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.transfers.wakeup.mode", havingValue = "notify")
+public class TransferNotificationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferNotificationListener.class);
+    private static final int RECEIVE_TIMEOUT_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final TransferWorkSignal workSignal;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public TransferNotificationListener(DataSourceProperties dataSourceProperties, TransferWorkSignal workSignal) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.workSignal = workSignal;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = Thread.ofPlatform().name("transfer-notify-listener").daemon().start(this::listenLoop);
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                listen(connection);
+            } catch (SQLException e) {
+                if (!running) break;
+                log.warn("Transfer notification listener lost its connection. Reconnecting in {} ms.", RECONNECT_DELAY_MILLIS, e);
+                workSignal.signal();
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    private void listen(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + TransferWorkNotifier.CHANNEL);
+        }
+        log.info("Listening for transfer notifications on channel '{}'.", TransferWorkNotifier.CHANNEL);
+        workSignal.signal();
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(RECEIVE_TIMEOUT_MILLIS);
+            if (notifications != null && notifications.length > 0) {
+                workSignal.signal();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Restore interrupted status
+        }
+    }
+}
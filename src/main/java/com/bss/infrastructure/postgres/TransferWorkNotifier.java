@@ -0,0 +1,31 @@
+package com.bss.infrastructure.postgres;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells transfer workers that new outbox rows exist. Issued on the writer's connection: inside a
+ * transaction PostgreSQL holds the notification until commit (and drops it on rollback), so a
+ * worker is never woken before the rows are visible.
+ *
+ * <p>Callers must issue it inside the transaction that writes the rows: outside one it is a second
+ * connection checkout and commit. Every notifying commit also takes PostgreSQL's notify-queue lock,
+ * which is why group commit sends one NOTIFY per flush rather than one per transfer.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.transfers.wakeup.mode", havingValue = "notify")
+public class TransferWorkNotifier {
+
+    public static final String CHANNEL = "ledger_transfers";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransferWorkNotifier(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void notifyTransfersPending() {
+        jdbcTemplate.execute("NOTIFY " + CHANNEL);
+    }
+}
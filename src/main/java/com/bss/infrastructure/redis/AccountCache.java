@@ -0,0 +1,152 @@
+package com.bss.infrastructure.redis;
+
+import com.bss.application.dto.response.account.AccountResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Read cache of {@link AccountResponse}s in the {@code accounts} Redis cache, kept read-after-commit
+ * consistent through the account {@code version}: every write carries the version it was read or
+ * committed at, and a Lua script drops writes older than the version already recorded for the
+ * account. A slow reader can therefore not overwrite a balance a transfer committed after its read,
+ * and write-throughs from workers committing out of order cannot go back in time.
+ *
+ * <p>Deliberately not behind the two-level cache: an L1 copy on another node would serve an old
+ * balance until the pub/sub invalidation arrives.
+ *
+ * <p>Redis failures never fail the caller: reads fall back to the database, and a failed write-through
+ * leaves the previous entry in place until its TTL expires.
+ */
+public class AccountCache {
+
+    public static final String CACHE_NAME = "accounts";
+
+    private static final Logger log = LoggerFactory.getLogger(AccountCache.class);
+
+    // KEYS: value, version. ARGV: serialized value (empty to only evict), version, TTL in ms.
+    private static final byte[] VERSIONED_SET_SCRIPT = """
+            local current = redis.call('GET', KEYS[2])
+            if current and tonumber(current) > tonumber(ARGV[2]) then
+                return 0
+            end
+            if ARGV[1] == '' then
+                redis.call('DEL', KEYS[1])
+            else
+                redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+            end
+            redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] EVICTED = new byte[0];
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisSerializer<Object> valueSerializer;
+    private final byte[] ttlMillis;
+
+    public AccountCache(StringRedisTemplate redisTemplate, RedisSerializer<Object> valueSerializer, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.valueSerializer = valueSerializer;
+        this.ttlMillis = bytes(ttl.toMillis());
+    }
+
+    /**
+     * @return The cached account, or {@code null} on a miss or when Redis is unavailable.
+     */
+    public AccountResponse get(Long accountId) {
+        try {
+            byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(valueKey(accountId)));
+            return value != null ? (AccountResponse) valueSerializer.deserialize(value) : null;
+        } catch (RuntimeException e) {
+            log.warn("Failed to read account {} from cache. Cause: {}", accountId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Caches an account read from the database, unless a newer version was already cached.
+     */
+    public void put(AccountResponse account) {
+        execute("cache account " + account.getId(), connection -> versionedSet(connection, account));
+    }
+
+    /**
+     * Writes the accounts through in one pipeline once the current transaction commits (immediately
+     * without one), so the cache never holds a balance that could still roll back.
+     */
+    public void putAllAfterCommit(Collection<AccountResponse> accounts) {
+        if (accounts.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> putAll(accounts));
+    }
+
+    /**
+     * Drops the cached account once the current transaction commits and rejects later puts of any
+     * version before {@code version}, so a read that raced the change cannot bring it back.
+     */
+    public void evictAfterCommit(Long accountId, long version) {
+        AfterCommit.run(() -> execute("evict account " + accountId,
+                connection -> versionedSet(connection, accountId, EVICTED, version)));
+    }
+
+    void putAll(Collection<AccountResponse> accounts) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                accounts.forEach(account -> versionedSet(connection, account));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} accounts through to cache. Cause: {}", accounts.size(), e.getMessage());
+        }
+    }
+
+    private void versionedSet(RedisConnection connection, AccountResponse account) {
+        versionedSet(connection, account.getId(), valueSerializer.serialize(account), versionOf(account.getVersion()));
+    }
+
+    private void versionedSet(RedisConnection connection, Long accountId, byte[] value, long version) {
+        connection.scriptingCommands().eval(VERSIONED_SET_SCRIPT, ReturnType.INTEGER, 2,
+                valueKey(accountId), versionKey(accountId), value, bytes(version), ttlMillis);
+    }
+
+    private void execute(String operation, Consumer<RedisConnection> command) {
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                command.accept(connection);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to {}. Cause: {}", operation, e.getMessage());
+        }
+    }
+
+    // Rows written before the version column was populated count as version 0, like the balance UPDATE does
+    public static long versionOf(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    // Same key RedisCache derives for the accounts cache, so clearing that cache also clears these entries
+    static byte[] valueKey(Long accountId) {
+        return (CACHE_NAME + "::" + accountId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] versionKey(Long accountId) {
+        return (CACHE_NAME + "::" + accountId + ":version").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,42 +1,162 @@
 package com.bss.infrastructure.redis;
 
+import com.bss.application.controller.transaction.mapper.TransactionMapper;
+import com.bss.application.dto.response.account.AccountResponse;
+import com.bss.application.dto.response.transaction.TransactionResponse;
+import com.bss.domain.transaction.TransactionRepository;
+import com.bss.domain.user.User;
+import com.bss.domain.user.UserRepository;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
 import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import org.springframework.cache.CacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
 import org.springframework.hateoas.RepresentationModel;
 
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    /**
+     * Value type of each cache that can be stored as Smile. Caches not listed here (or all caches when
+     * {@code ledger.cache.serialization=json}) use the polymorphic JSON serializer.
+     */
+    static final Map<String, Class<?>> CACHE_VALUE_TYPES = Map.of(
+            "users", User.class,
+            "transactions", TransactionResponse.class,
+            "accounts", AccountResponse.class
+    );
+
+    private static final Duration ACCOUNTS_TTL = Duration.ofMinutes(10);
+
+    private final RedisSerializer<Object> jsonSerializer = new GenericJackson2JsonRedisSerializer(createObjectMapper());
+    private final ObjectMapper smileMapper = createSmileMapper();
+    // Shared by Redis and the L1 caches, which hold the same bytes
+    private final Map<String, RedisSerializer<Object>> valueSerializers = new ConcurrentHashMap<>();
+
+    @Value("${ledger.cache.serialization:smile}")
+    private String serializationFormat = "smile";
+
     @Bean
     public RedisCacheConfiguration cacheConfiguration() {
         return createCacheConfiguration(Duration.ofMinutes(5));
     }
 
+    /**
+     * Two-level cache: a bounded in-process L1 per cache in front of Redis (L2). A maximum size of 0
+     * effectively disables L1. Loads are single-flight per key unless
+     * {@code ledger.cache.<name>.single-flight=false}; {@code ledger.cache.<name>.refresh-ahead-ms} turns
+     * on refresh-ahead for a cache that has a loader in {@link #refreshLoaders}.
+     */
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                             StringRedisTemplate redisTemplate,
+                                             ObjectProvider<MeterRegistry> meterRegistry,
+                                             Environment environment,
+                                             ObjectProvider<UserRepository> userRepository,
+                                             ObjectProvider<TransactionRepository> transactionRepository,
+                                             ObjectProvider<TransactionMapper> transactionMapper,
+                                             @Value("${ledger.cache.l1.maximum-size:10000}") long l1MaximumSize,
+                                             @Value("${ledger.cache.l1.expire-after-write-ms:30000}") long l1ExpireAfterWriteMillis) {
+        Map<String, TwoLevelCache.RefreshLoader> refreshLoaders = refreshLoaders(userRepository, transactionRepository, transactionMapper);
+        return new TwoLevelCacheManager(redisCacheManager, this::valueSerializer,
+                cacheName -> loadPolicy(environment, cacheName), refreshLoaders::get, redisTemplate,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new),
+                l1MaximumSize, Duration.ofMillis(l1ExpireAfterWriteMillis));
+    }
+
+    static TwoLevelCache.LoadPolicy loadPolicy(PropertyResolver properties, String cacheName) {
+        String prefix = "ledger.cache." + cacheName + ".";
+        boolean singleFlight = properties.getProperty(prefix + "single-flight", Boolean.class, true);
+        long refreshAheadMillis = properties.getProperty(prefix + "refresh-ahead-ms", Long.class, 0L);
+        return new TwoLevelCache.LoadPolicy(singleFlight, refreshAheadMillis > 0 ? Duration.ofMillis(refreshAheadMillis) : null);
+    }
+
+    /**
+     * How refresh-ahead reloads an entry of each cache: the lookup behind its {@code @Cacheable} method, without
+     * the cache. The repositories are resolved on first refresh, long after the cache manager is created.
+     */
+    static Map<String, TwoLevelCache.RefreshLoader> refreshLoaders(ObjectProvider<UserRepository> userRepository,
+                                                                   ObjectProvider<TransactionRepository> transactionRepository,
+                                                                   ObjectProvider<TransactionMapper> transactionMapper) {
+        return Map.of(
+                "users", id -> userRepository.getObject().findByIdUncached((Long) id).orElse(null),
+                "transactions", id -> transactionRepository.getObject().findById((Long) id)
+                        .map(transaction -> transactionMapper.getObject().toTransactionResponse(transaction))
+                        .orElse(null)
+        );
+    }
+
+    /**
+     * Versioned read cache of account balances, written through by the transfer processor. It shares
+     * the {@code accounts} Redis keys and serializer but has no L1.
+     */
+    @Bean
+    public AccountCache accountCache(StringRedisTemplate redisTemplate) {
+        return new AccountCache(redisTemplate, valueSerializer(AccountCache.CACHE_NAME), ACCOUNTS_TTL);
+    }
+
+    /**
+     * Not-found lookups of users, accounts and transactions, kept on each node apart from the
+     * regular caches with their own bound and a short TTL.
+     */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public NegativeCache negativeCache(StringRedisTemplate redisTemplate,
+                                       ObjectProvider<MeterRegistry> meterRegistry,
+                                       @Value("${ledger.cache.negative.maximum-size:100000}") long maximumSize,
+                                       @Value("${ledger.cache.negative.ttl-ms:15000}") long ttlMillis) {
+        return new NegativeCache(redisTemplate, meterRegistry.getIfAvailable(SimpleMeterRegistry::new),
+                maximumSize, Duration.ofMillis(ttlMillis));
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                             TwoLevelCacheManager cacheManager,
+                                                                             NegativeCache negativeCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        container.addMessageListener(negativeCache, new ChannelTopic(NegativeCache.INVALIDATION_CHANNEL));
+        return container;
+    }
+
+    @Bean
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory) {
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
-        cacheConfigurations.put("accounts", createCacheConfiguration(Duration.ofMinutes(10)));
-        cacheConfigurations.put("users", createCacheConfiguration(Duration.ofMinutes(10)));
-        cacheConfigurations.put("transactions", createCacheConfiguration(Duration.ofMinutes(10)));
+        cacheConfigurations.put(AccountCache.CACHE_NAME, createCacheConfiguration(AccountCache.CACHE_NAME, ACCOUNTS_TTL));
+        // Missing users go to the NegativeCache, not to Redis
+        cacheConfigurations.put("users", createCacheConfiguration("users", Duration.ofMinutes(10)).disableCachingNullValues());
+        cacheConfigurations.put("transactions", createCacheConfiguration("transactions", Duration.ofMinutes(10)));
 
         return RedisCacheManager.builder(redisConnectionFactory)
                 .cacheDefaults(createCacheConfiguration(Duration.ofMinutes(5)))
@@ -45,14 +165,48 @@ public class CacheConfig {
     }
 
     private RedisCacheConfiguration createCacheConfiguration(Duration ttl) {
+        return createCacheConfiguration(null, ttl);
+    }
+
+    private RedisCacheConfiguration createCacheConfiguration(String cacheName, Duration ttl) {
         return RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(ttl)
-                .serializeValuesWith(SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer(createObjectMapper())));
+                .serializeValuesWith(SerializationPair.fromSerializer(valueSerializer(cacheName)));
+    }
+
+    /**
+     * The serializer a cache stores its values with, in Redis and in L1 alike.
+     */
+    RedisSerializer<Object> valueSerializer(String cacheName) {
+        Class<?> type = cacheName != null ? CACHE_VALUE_TYPES.get(cacheName) : null;
+        if (type == null || !"smile".equalsIgnoreCase(serializationFormat)) {
+            return jsonSerializer;
+        }
+        return valueSerializers.computeIfAbsent(cacheName, name -> new SmileRedisSerializer(smileMapper, type, jsonSerializer));
     }
 
     private ObjectMapper createObjectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        
+        ObjectMapper objectMapper = configureObjectMapper(new ObjectMapper());
+
+        // Enable polymorphic typing so Redis knows which class to instantiate on return
+        objectMapper.activateDefaultTyping(
+            objectMapper.getPolymorphicTypeValidator(),
+            ObjectMapper.DefaultTyping.NON_FINAL,
+            JsonTypeInfo.As.PROPERTY
+        );
+        return objectMapper;
+    }
+
+    // No default typing: every Smile cache is read back as its declared type
+    private ObjectMapper createSmileMapper() {
+        SmileFactory smileFactory = SmileFactory.builder()
+                .disable(SmileGenerator.Feature.WRITE_HEADER) // The format byte already identifies the payload
+                .disable(SmileParser.Feature.REQUIRE_HEADER)
+                .build();
+        return configureObjectMapper(new ObjectMapper(smileFactory));
+    }
+
+    private ObjectMapper configureObjectMapper(ObjectMapper objectMapper) {
         // 1. Support for Hibernate types (Lazy Loading, Proxies)
         objectMapper.registerModule(new Hibernate6Module());
         
@@ -64,15 +218,8 @@ public class CacheConfig {
         
         // 4. Ignore unknown properties in JSON when deserializing (avoids errors if the object changes)
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        
-        // 5. Enable polymorphic typing so Redis knows which class to instantiate on return
-        objectMapper.activateDefaultTyping(
-            objectMapper.getPolymorphicTypeValidator(),
-            ObjectMapper.DefaultTyping.NON_FINAL,
-            JsonTypeInfo.As.PROPERTY
-        );
 
-        // 6. Ignore HATEOAS links in Redis Cache to avoid serialization issues
+        // 5. Ignore HATEOAS links in Redis Cache to avoid serialization issues
         objectMapper.addMixIn(RepresentationModel.class, RepresentationModelMixin.class);
         
         return objectMapper;
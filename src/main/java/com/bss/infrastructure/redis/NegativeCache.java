@@ -0,0 +1,117 @@
+package com.bss.infrastructure.redis;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Remembers ids that were looked up and not found, so repeated lookups of missing users, accounts
+ * and transactions (scrapers, id enumeration) are answered without reaching the database.
+ *
+ * <p>Entries live in a node-local Caffeine cache with its own size bound and a short TTL, so probing
+ * random ids can neither grow Redis nor push real entries out of the L1 caches. Creating an entity
+ * drops its id here after commit, on every node through {@link #INVALIDATION_CHANNEL}. A lookup that
+ * raced the creation can still record the id as missing; the TTL bounds that.
+ */
+public class NegativeCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "ledger:cache:negative:invalidation";
+
+    private static final Logger log = LoggerFactory.getLogger(NegativeCache.class);
+
+    private final Cache<String, Boolean> missing;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public NegativeCache(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, long maximumSize, Duration ttl) {
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("ledger.cache.negative.size", missing, Cache::estimatedSize)
+                .description("Ids remembered as not found")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code true} if the id was recently looked up and not found.
+     */
+    public boolean isMissing(String cacheName, Object id) {
+        if (missing.getIfPresent(key(cacheName, id)) == null) {
+            return false;
+        }
+        hits(cacheName).increment();
+        return true;
+    }
+
+    public void putMissing(String cacheName, Object id) {
+        missing.put(key(cacheName, id), Boolean.TRUE);
+    }
+
+    /**
+     * Forgets the ids on every node once the current transaction commits, with a single message.
+     */
+    public void evictAfterCommit(String cacheName, Collection<?> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            evictLocal(cacheName, ids);
+            publish(cacheName, ids);
+        });
+    }
+
+    private void evictLocal(String cacheName, Collection<?> ids) {
+        missing.invalidateAll(ids.stream().map(id -> key(cacheName, id)).toList());
+    }
+
+    private void publish(String cacheName, Collection<?> ids) {
+        String joinedIds = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + '\n' + cacheName + '\n' + joinedIds);
+        } catch (RuntimeException e) {
+            // The entities exist; other nodes answer 404 for them until their entries expire
+            log.warn("Failed to publish negative cache invalidation for {} {} ids. Cause: {}", ids.size(), cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return; // Malformed, or our own change (already applied locally)
+        }
+        List<String> ids = Arrays.asList(parts[2].split(","));
+        evictLocal(parts[1], ids);
+    }
+
+    private Counter hits(String cacheName) {
+        return Counter.builder("ledger.cache.negative.hits")
+                .description("Lookups answered as not found without reaching the database")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+    }
+
+    // Ids are compared in their string form, which is also how they travel in invalidation messages
+    private static String key(String cacheName, Object id) {
+        return cacheName + "::" + id;
+    }
+}
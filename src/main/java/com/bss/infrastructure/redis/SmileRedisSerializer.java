@@ -0,0 +1,65 @@
+package com.bss.infrastructure.redis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Binary value serializer for a cache that holds a single known type: one format byte followed by the
+ * Jackson Smile encoding of the value. The type is fixed per cache, so no class names are written, and
+ * Smile back-references repeated property names instead of spelling them out again.
+ *
+ * <p>Values without the format byte are handed to the legacy serializer, so the JSON entries written
+ * before the switch stay readable until they expire. A JSON document never starts with {@code 0x01}.
+ */
+public class SmileRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte FORMAT_SMILE_V1 = 0x01;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final RedisSerializer<Object> legacySerializer;
+
+    public SmileRedisSerializer(ObjectMapper smileMapper, Class<?> type, RedisSerializer<Object> legacySerializer) {
+        this.reader = smileMapper.readerFor(type);
+        this.writer = smileMapper.writerFor(type);
+        this.legacySerializer = legacySerializer;
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value == null) {
+            return EMPTY;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(FORMAT_SMILE_V1);
+        try {
+            writer.writeValue(out, value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_SMILE_V1) {
+            return legacySerializer.deserialize(bytes);
+        }
+        try {
+            return reader.readValue(bytes, 1, bytes.length - 1);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read Smile: " + e.getMessage(), e);
+        }
+    }
+}
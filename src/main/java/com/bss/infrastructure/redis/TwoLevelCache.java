@@ -0,0 +1,382 @@
+package com.bss.infrastructure.redis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link Cache} with a bounded in-process Caffeine L1 in front of the shared Redis L2.
+ *
+ * <p>L1 keeps the serialized value (the bytes L2 stores), so every hit hands out a fresh copy exactly
+ * like a Redis hit: callers may keep adding HATEOAS links to a cached response or attach a cached
+ * entity without corrupting what other threads read. An L1 hit still skips the network round trip
+ * and the pool checkout.
+ *
+ * <p>Puts and evictions are broadcast through the {@link InvalidationPublisher} so other nodes drop
+ * their L1 copy. Messages are fire-and-forget; a lost one is bounded by the L1 expiry.
+ *
+ * <p>Loads through {@link #get(Object, Callable)} ({@code @Cacheable(sync = true)}) follow the cache's
+ * {@link LoadPolicy}: with single-flight, concurrent misses of a key wait for the one load in flight on
+ * this node and deserialize its result instead of all querying the database. With refresh-ahead, an L2
+ * hit on an entry about to expire reloads it in the background through the cache's {@link RefreshLoader},
+ * so hot keys never expire under load. A refresh that finds the value unchanged renews L2 and L1 without
+ * telling the other nodes; their L1 copies are still current.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache l2;
+    private final com.github.benmanes.caffeine.cache.Cache<String, byte[]> l1;
+    private final RedisSerializer<Object> valueSerializer;
+    private final InvalidationPublisher invalidationPublisher;
+    private final LoadPolicy loadPolicy;
+    private final RemainingTtl remainingTtl;
+    private final RefreshLoader refreshLoader;
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> loadsInFlight = new ConcurrentHashMap<>();
+    private final Set<String> refreshesInFlight = ConcurrentHashMap.newKeySet();
+    private final Counter coalescedLoads;
+    private final Counter refreshes;
+    private final Counter failedRefreshes;
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public TwoLevelCache(Cache l2,
+                         com.github.benmanes.caffeine.cache.Cache<String, byte[]> l1,
+                         RedisSerializer<Object> valueSerializer,
+                         InvalidationPublisher invalidationPublisher,
+                         MeterRegistry meterRegistry) {
+        this(l2, l1, valueSerializer, invalidationPublisher, meterRegistry, LoadPolicy.SINGLE_FLIGHT, key -> null, null);
+    }
+
+    /**
+     * @param refreshLoader Reloads entries for refresh-ahead, or {@code null} to never refresh this cache ahead of expiry.
+     */
+
+    public TwoLevelCache(Cache l2,
+                         com.github.benmanes.caffeine.cache.Cache<String, byte[]> l1,
+                         RedisSerializer<Object> valueSerializer,
+                         InvalidationPublisher invalidationPublisher,
+                         MeterRegistry meterRegistry,
+                         LoadPolicy loadPolicy,
+                         RemainingTtl remainingTtl,
+                         RefreshLoader refreshLoader) {
+        this.l2 = l2;
+        this.l1 = l1;
+        this.valueSerializer = valueSerializer;
+        this.invalidationPublisher = invalidationPublisher;
+        this.loadPolicy = loadPolicy;
+        this.remainingTtl = remainingTtl;
+        this.refreshLoader = refreshLoader;
+        this.coalescedLoads = Counter.builder("ledger.cache.loads.coalesced")
+                .description("Cache misses that waited for a load already in flight instead of loading themselves")
+                .tag("cache", l2.getName())
+                .register(meterRegistry);
+        this.refreshes = refreshCounter(meterRegistry, "success");
+        this.failedRefreshes = refreshCounter(meterRegistry, "failure");
+        this.l1Hits = lookups(meterRegistry, "l1", "hit");
+        this.l1Misses = lookups(meterRegistry, "l1", "miss");
+        this.l2Hits = lookups(meterRegistry, "l2", "hit");
+        this.l2Misses = lookups(meterRegistry, "l2", "miss");
+        Gauge.builder("ledger.cache.l1.size", l1, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+                .description("Entries held in the in-process L1 cache")
+                .tag("cache", l2.getName())
+                .register(meterRegistry);
+    }
+
+    private Counter lookups(MeterRegistry meterRegistry, String level, String result) {
+        // L2 is only consulted on an L1 miss, so the L2 hit ratio is relative to L1 misses
+        return Counter.builder("ledger.cache.gets")
+                .description("Cache lookups per level and result")
+                .tag("cache", l2.getName())
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter refreshCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ledger.cache.refreshes")
+                .description("Background refresh-ahead reloads of entries close to expiry")
+                .tag("cache", l2.getName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return l2.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String l1Key = l1Key(key);
+        byte[] cached = l1.getIfPresent(l1Key);
+        if (cached != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(valueSerializer.deserialize(cached));
+        }
+        l1Misses.increment();
+
+        ValueWrapper wrapper = l2.get(key);
+        if (wrapper == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        l1.put(l1Key, valueSerializer.serialize(wrapper.get()));
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String l1Key = l1Key(key);
+        byte[] cached = l1.getIfPresent(l1Key);
+        if (cached != null) {
+            l1Hits.increment();
+            return (T) valueSerializer.deserialize(cached);
+        }
+        l1Misses.increment();
+
+        if (!loadPolicy.singleFlight()) {
+            return load(key, l1Key, valueLoader).value();
+        }
+
+        CompletableFuture<byte[]> flight = new CompletableFuture<>();
+        CompletableFuture<byte[]> inFlight = loadsInFlight.putIfAbsent(l1Key, flight);
+        if (inFlight != null) {
+            coalescedLoads.increment();
+            return (T) valueSerializer.deserialize(await(inFlight));
+        }
+
+        try {
+            Loaded<T> loaded = load(key, l1Key, valueLoader);
+            flight.complete(loaded.bytes());
+            return loaded.value();
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadsInFlight.remove(l1Key, flight);
+        }
+    }
+
+    // The same steps RedisCache takes for a synchronized get, plus L1 and refresh-ahead
+    @SuppressWarnings("unchecked")
+    private <T> Loaded<T> load(Object key, String l1Key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = l2.get(key);
+        if (wrapper != null) {
+            l2Hits.increment();
+            T value = (T) wrapper.get();
+            byte[] bytes = valueSerializer.serialize(value);
+            l1.put(l1Key, bytes);
+            refreshIfExpiringSoon(key, l1Key, bytes);
+            return new Loaded<>(value, bytes);
+        }
+        l2Misses.increment();
+        T value = callLoader(key, valueLoader);
+        if (value == null && !allowsNullValues()) {
+            return new Loaded<>(null, valueSerializer.serialize(null)); // Handed to waiters, not cached
+        }
+        l2.put(key, value);
+        byte[] bytes = valueSerializer.serialize(value);
+        l1.put(l1Key, bytes);
+        return new Loaded<>(value, bytes);
+    }
+
+    private boolean allowsNullValues() {
+        return !(l2 instanceof AbstractValueAdaptingCache cache) || cache.isAllowNullValues();
+    }
+
+    private static <T> T callLoader(Object key, Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause; // The loader's failure, already wrapped by the leading caller
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reloads the entry on a virtual thread when its remaining L2 TTL is within the refresh-ahead
+     * window. Only checked on L2 hits, so a hot key costs at most one TTL lookup per L1 expiry. The
+     * caller's {@link Callable} is not reused: it belongs to a {@code @Cacheable} invocation that has
+     * already returned.
+     */
+    private void refreshIfExpiringSoon(Object key, String l1Key, byte[] currentBytes) {
+        if (loadPolicy.refreshAhead() == null || refreshLoader == null) {
+            return;
+        }
+        Duration ttl = remainingTtl.of(l1Key);
+        if (ttl == null || ttl.compareTo(loadPolicy.refreshAhead()) > 0 || !refreshesInFlight.add(l1Key)) {
+            return;
+        }
+        Thread.ofVirtual().name("cache-refresh-" + getName()).start(() -> {
+            try {
+                refresh(key, l1Key, currentBytes);
+                refreshes.increment();
+            } catch (RuntimeException e) {
+                failedRefreshes.increment(); // The entry simply expires and the next miss loads it
+            } finally {
+                refreshesInFlight.remove(l1Key);
+            }
+        });
+    }
+
+    private void refresh(Object key, String l1Key, byte[] currentBytes) {
+        Object value = refreshLoader.load(key);
+        if (value == null) {
+            return; // Gone from the database: let the entry expire so the next miss takes the caller's not-found path
+        }
+        byte[] bytes = valueSerializer.serialize(value);
+        l2.put(key, value);
+        l1.put(l1Key, bytes);
+        if (!Arrays.equals(bytes, currentBytes)) {
+            invalidationPublisher.publish(getName(), l1Key);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        String l1Key = l1Key(key);
+        l1.put(l1Key, valueSerializer.serialize(value));
+        invalidationPublisher.publish(getName(), l1Key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        invalidateEverywhere(l1Key(key));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        invalidateEverywhere(l1Key(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = l2.evictIfPresent(key);
+        invalidateEverywhere(l1Key(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        clearLocal();
+        invalidationPublisher.publish(getName(), null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = l2.invalidate();
+        clearLocal();
+        invalidationPublisher.publish(getName(), null);
+        return invalidated;
+    }
+
+    /**
+     * Drops the L1 copy of a key another node changed.
+     */
+    void evictLocal(String l1Key) {
+        l1.invalidate(l1Key);
+    }
+
+    void clearLocal() {
+        l1.invalidateAll();
+    }
+
+    private void invalidateEverywhere(String l1Key) {
+        evictLocal(l1Key);
+        invalidationPublisher.publish(getName(), l1Key);
+    }
+
+    // Same string form RedisCache derives its keys from, so it can travel in an invalidation message
+    static String l1Key(Object key) {
+        return String.valueOf(key);
+    }
+
+    private record Loaded<T>(T value, byte[] bytes) {
+    }
+
+    /**
+     * @param singleFlight At most one load per key in flight on this node; other misses wait for it.
+     * @param refreshAhead Reload entries whose remaining TTL drops below this, or {@code null} for never.
+     */
+    public record LoadPolicy(boolean singleFlight, Duration refreshAhead) {
+
+        public static final LoadPolicy SINGLE_FLIGHT = new LoadPolicy(true, null);
+    }
+
+    @FunctionalInterface
+    public interface RefreshLoader {
+
+        /**
+         * Reads the current value of a cached key straight from its source, bypassing the cache.
+         *
+         * @return The value, or {@code null} if it no longer exists.
+         */
+        Object load(Object key);
+    }
+
+    @FunctionalInterface
+    public interface RemainingTtl {
+
+        /**
+         * @return The time the L2 entry has left, or {@code null} if unknown or it does not expire.
+         */
+        Duration of(String key);
+    }
+
+    @FunctionalInterface
+    public interface InvalidationPublisher {
+
+        /**
+         * @param key The changed key, or {@code null} when the whole cache was cleared.
+         */
+        void publish(String cacheName, String key);
+    }
+}
@@ -0,0 +1,165 @@
+package com.bss.infrastructure.redis;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Wraps every cache of the Redis {@link CacheManager} in a {@link TwoLevelCache} and keeps the L1
+ * copies of all nodes coherent: local changes are published on {@link #INVALIDATION_CHANNEL}, and
+ * messages from other nodes evict the matching L1 entries.
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "ledger:cache:invalidation";
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private final CacheManager l2CacheManager;
+    private final Function<String, RedisSerializer<Object>> valueSerializers;
+    private final Function<String, TwoLevelCache.LoadPolicy> loadPolicies;
+    private final Function<String, TwoLevelCache.RefreshLoader> refreshLoaders;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long l1MaximumSize;
+    private final Duration l1ExpireAfterWrite;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager l2CacheManager,
+                                Function<String, RedisSerializer<Object>> valueSerializers,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                long l1MaximumSize,
+                                Duration l1ExpireAfterWrite) {
+        this(l2CacheManager, valueSerializers, cacheName -> TwoLevelCache.LoadPolicy.SINGLE_FLIGHT, cacheName -> null,
+                redisTemplate, meterRegistry, l1MaximumSize, l1ExpireAfterWrite);
+    }
+
+    /**
+     * @param valueSerializers Resolves the serializer each cache stores its values with in L2, so L1 holds the same bytes.
+     * @param loadPolicies Resolves the single-flight and refresh-ahead settings of each cache.
+     * @param refreshLoaders Resolves the loader refresh-ahead reloads a cache's entries with, {@code null} for none.
+     */
+    public TwoLevelCacheManager(CacheManager l2CacheManager,
+                                Function<String, RedisSerializer<Object>> valueSerializers,
+                                Function<String, TwoLevelCache.LoadPolicy> loadPolicies,
+                                Function<String, TwoLevelCache.RefreshLoader> refreshLoaders,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                long l1MaximumSize,
+                                Duration l1ExpireAfterWrite) {
+        this.l2CacheManager = l2CacheManager;
+        this.valueSerializers = valueSerializers;
+        this.loadPolicies = loadPolicies;
+        this.refreshLoaders = refreshLoaders;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.l1MaximumSize = l1MaximumSize;
+        this.l1ExpireAfterWrite = l1ExpireAfterWrite;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache l2 = l2CacheManager.getCache(name);
+        if (l2 == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(l2, newL1(), valueSerializers.apply(cacheName),
+                this::publish, meterRegistry, loadPolicies.apply(cacheName), key -> remainingTtl(cacheName, key),
+                refreshLoaders.apply(cacheName)));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l2CacheManager.getCacheNames();
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<String, byte[]> newL1() {
+        // The expiry bounds how long a node can serve a value whose invalidation message it missed
+        return Caffeine.newBuilder()
+                .maximumSize(l1MaximumSize)
+                .expireAfterWrite(l1ExpireAfterWrite)
+                .build();
+    }
+
+    // RedisCache stores every entry under "<cache>::<key>"
+    private Duration remainingTtl(String cacheName, String key) {
+        try {
+            Long millis = redisTemplate.getExpire(cacheName + "::" + key, TimeUnit.MILLISECONDS);
+            return millis != null && millis >= 0 ? Duration.ofMillis(millis) : null;
+        } catch (RuntimeException e) {
+            // The value was read; without its TTL the entry is just not refreshed ahead of time
+            log.debug("Failed to read the TTL of {}::{}. Cause: {}", cacheName, key, e.getMessage());
+            return null;
+        }
+    }
+
+    void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, new Invalidation(nodeId, cacheName, key).encode());
+        } catch (RuntimeException e) {
+            // The write itself succeeded; other nodes' L1 copies expire on their own
+            log.warn("Failed to publish cache invalidation for {}::{}. Cause: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Invalidation invalidation = Invalidation.decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (invalidation == null || nodeId.equals(invalidation.origin())) {
+            return; // Malformed, or our own change (already applied locally)
+        }
+        TwoLevelCache cache = caches.get(invalidation.cacheName());
+        if (cache == null) {
+            return; // Never used on this node, so nothing is held in L1
+        }
+        if (invalidation.key() == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(invalidation.key());
+        }
+    }
+
+    /**
+     * Wire format: {@code origin \n cacheName \n E<key>} for one key, {@code origin \n cacheName \n C} for the whole cache.
+     */
+    record Invalidation(String origin, String cacheName, String key) {
+
+        String encode() {
+            return origin + '\n' + cacheName + '\n' + (key == null ? "C" : "E" + key);
+        }
+
+        static Invalidation decode(String message) {
+            String[] parts = message.split("\n", 3);
+            if (parts.length != 3 || parts[2].isEmpty()) {
+                return null;
+            }
+            return switch (parts[2].charAt(0)) {
+                case 'C' -> new Invalidation(parts[0], parts[1], null);
+                case 'E' -> new Invalidation(parts[0], parts[1], parts[2].substring(1));
+                default -> null;
+            };
+        }
+    }
+}
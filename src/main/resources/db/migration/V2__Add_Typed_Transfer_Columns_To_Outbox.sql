@@ -0,0 +1,13 @@
+-- =================================================================
+-- TYPED TRANSFER COLUMNS ON THE OUTBOX
+-- =================================================================
+-- TransferRequested rows carry their data in native columns so the transfer
+-- processor reads them directly instead of parsing the JSON payload.
+-- The payload becomes optional; legacy rows keep it and are still supported.
+
+ALTER TABLE tb_outbox_event ALTER COLUMN payload DROP NOT NULL;
+
+ALTER TABLE tb_outbox_event ADD COLUMN sender_account_id BIGINT;
+ALTER TABLE tb_outbox_event ADD COLUMN receiver_account_id BIGINT;
+ALTER TABLE tb_outbox_event ADD COLUMN amount NUMERIC(19, 2);
+ALTER TABLE tb_outbox_event ADD COLUMN idempotency_key UUID;
@@ -0,0 +1,7 @@
+-- Shard of the sender account (0..1023), used by sharded transfer workers to claim only their own rows.
+-- Must match TransferShards.shardOf (account ids are always positive, so MOD == floorMod).
+ALTER TABLE tb_outbox_event ADD COLUMN shard_key INT;
+
+UPDATE tb_outbox_event SET shard_key = MOD(sender_account_id, 1024) WHERE sender_account_id IS NOT NULL;
+
+CREATE INDEX idx_outbox_type_shard_created ON tb_outbox_event(event_type, shard_key, created_at);
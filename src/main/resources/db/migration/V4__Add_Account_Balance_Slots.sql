@@ -0,0 +1,13 @@
+-- Hot-account striping: a striped account's balance is tb_account.balance plus the sum of its slots.
+-- balance_slots = 0 means the account is not striped.
+ALTER TABLE tb_account ADD COLUMN balance_slots INT NOT NULL DEFAULT 0;
+
+CREATE TABLE tb_account_balance_slot (
+                                         id BIGSERIAL PRIMARY KEY,
+                                         account_id BIGINT NOT NULL,
+                                         slot INT NOT NULL,
+                                         balance NUMERIC(19, 2) NOT NULL,
+                                         CONSTRAINT fk_balance_slot_account FOREIGN KEY (account_id) REFERENCES tb_account(id),
+                                         CONSTRAINT uk_balance_slot_account_slot UNIQUE (account_id, slot)
+);
+ALTER TABLE tb_account_balance_slot ADD CONSTRAINT balance_slot_check CHECK (balance >= 0);
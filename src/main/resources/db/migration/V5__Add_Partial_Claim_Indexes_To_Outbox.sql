@@ -0,0 +1,8 @@
+-- The claim statements only ever look at UNPROCESSED rows (status = 0). Partial indexes keep that working set
+-- small: processed rows are deleted and FAILED/PROCESSING rows drop out of the index instead of being skipped.
+CREATE INDEX idx_outbox_unprocessed_type_created ON tb_outbox_event(event_type, created_at) WHERE status = 0;
+
+CREATE INDEX idx_outbox_unprocessed_type_shard_created ON tb_outbox_event(event_type, shard_key, created_at) WHERE status = 0;
+
+-- Superseded by the partial shard index above
+DROP INDEX IF EXISTS idx_outbox_type_shard_created;
@@ -0,0 +1,9 @@
+-- Lease of the node that claimed the row. lease_expires_at is only meaningful while status = 1 (PROCESSING);
+-- both columns are kept afterwards so operators can see which node last held a row.
+ALTER TABLE tb_outbox_event ADD COLUMN lease_owner VARCHAR(255);
+ALTER TABLE tb_outbox_event ADD COLUMN lease_expires_at TIMESTAMP;
+
+-- Rows claimed before leases existed expire one minute after their claim, like the old lock timeout
+UPDATE tb_outbox_event SET lease_expires_at = COALESCE(locked_at, created_at) + INTERVAL '1 minute' WHERE status = 1;
+
+CREATE INDEX idx_outbox_processing_lease_expires ON tb_outbox_event(lease_expires_at) WHERE status = 1;
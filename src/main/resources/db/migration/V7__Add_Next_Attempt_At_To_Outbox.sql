@@ -0,0 +1,18 @@
+-- Earliest time the row may be claimed again. New rows are due at creation; failed ones back off exponentially.
+ALTER TABLE tb_outbox_event ADD COLUMN next_attempt_at TIMESTAMP;
+
+-- Rows that already failed once were held back by the old one-minute lock timeout on locked_at
+UPDATE tb_outbox_event SET next_attempt_at = CASE
+    WHEN locked_at IS NOT NULL THEN locked_at + INTERVAL '1 minute'
+    ELSE created_at
+END;
+
+ALTER TABLE tb_outbox_event ALTER COLUMN next_attempt_at SET NOT NULL;
+
+-- Claims now order UNPROCESSED rows by due time instead of creation time
+DROP INDEX IF EXISTS idx_outbox_unprocessed_type_created;
+DROP INDEX IF EXISTS idx_outbox_unprocessed_type_shard_created;
+
+CREATE INDEX idx_outbox_unprocessed_type_due ON tb_outbox_event(event_type, next_attempt_at) WHERE status = 0;
+
+CREATE INDEX idx_outbox_unprocessed_type_shard_due ON tb_outbox_event(event_type, shard_key, next_attempt_at) WHERE status = 0;
@@ -1,5 +1,6 @@
 package com.bss.application.controller.account;
 
+import com.bss.application.dto.request.account.StripeAccountRequest;
 import com.bss.application.dto.request.account.UpdateAccountRequest;
 import com.bss.application.dto.response.account.AccountResponse;
 import com.bss.application.exception.ResourceNotFoundException;
@@ -28,6 +29,7 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -135,6 +137,31 @@ class AccountControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @DisplayName("POST /accounts/{id}/stripe - Should stripe account")
+    void stripeAccount_shouldReturnStripedAccount() throws Exception {
+        // Arrange
+        AccountResponse response = new AccountResponse(1L, 10L, new BigDecimal("500.00"), AccountStatus.ACTIVE, LocalDateTime.now(), LocalDateTime.now());
+        when(accountService.stripeAccount(1L, 8)).thenReturn(response);
+
+        // Act & Assert
+        mockMvc.perform(post("/accounts/1/stripe")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StripeAccountRequest(8))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(500.00))
+                .andExpect(jsonPath("$._links.self.href").exists());
+    }
+
+    @Test
+    @DisplayName("POST /accounts/{id}/stripe - Should return 400 for a single slot")
+    void stripeAccount_shouldReturn400ForSingleSlot() throws Exception {
+        mockMvc.perform(post("/accounts/1/stripe")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StripeAccountRequest(1))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("DELETE /accounts/{id} - Should inactivate account")
     void inactivateAccount_shouldReturnNoContent() throws Exception {
@@ -1,7 +1,10 @@
 package com.bss.application.controller.transfer;
 
 import com.bss.application.controller.transfer.mapper.TransferMapper;
+import com.bss.application.dto.request.transfer.TransferBatchRequest;
 import com.bss.application.dto.request.transfer.TransferRequest;
+import com.bss.application.dto.response.transfer.TransferBatchItemResponse;
+import com.bss.application.dto.response.transfer.TransferBatchResponse;
 import com.bss.application.exception.handler.RestExceptionHandler;
 import com.bss.application.service.transfer.TransferService;
 import com.bss.domain.account.InsufficientBalanceException;
@@ -21,9 +24,11 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -146,4 +151,38 @@ class TransferControllerTest {
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    @DisplayName("POST /transfers/batch - Should return 207 Multi-Status with per-item results")
+    void transferBatch_whenSubmitted_shouldReturnMultiStatus() throws Exception {
+        TransferBatchRequest batchRequest = new TransferBatchRequest();
+        batchRequest.setTransfers(List.of(transferRequest, createTransferRequest(3L, 3L, BigDecimal.ONE)));
+        TransferBatchResponse response = new TransferBatchResponse(1, 1, List.of(
+                new TransferBatchItemResponse(0, transferRequest.getIdempotencyKey(), 202, null),
+                new TransferBatchItemResponse(1, UUID.randomUUID(), 400, "Sender and receiver accounts cannot be the same.")
+        ));
+        when(transferMapper.toDomain(any(TransferRequest.class))).thenReturn(transfer);
+        when(transferService.transferBatch(anyList())).thenReturn(response);
+
+        mockMvc.perform(post("/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].status").value(202))
+                .andExpect(jsonPath("$.results[1].status").value(400));
+    }
+
+    @Test
+    @DisplayName("POST /transfers/batch - Should return 400 Bad Request for an empty batch")
+    void transferBatch_whenEmpty_shouldReturnBadRequest() throws Exception {
+        TransferBatchRequest batchRequest = new TransferBatchRequest();
+        batchRequest.setTransfers(List.of());
+
+        mockMvc.perform(post("/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -3,8 +3,9 @@ package com.bss.application.event.transactions;
 import com.bss.application.exception.ResourceNotFoundException;
 import com.bss.application.exception.TransactionEventListenerException;
 import com.bss.application.service.notification.EmailService;
+import com.bss.domain.account.Account;
+import com.bss.domain.account.AccountRepository;
 import com.bss.domain.user.User;
-import com.bss.domain.user.UserRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,20 +15,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,7 +46,7 @@ class TransactionEventListenerTest {
     private EmailService emailService;
 
     @Mock
-    private UserRepository userRepository;
+    private AccountRepository accountRepository;
 
     @Mock
     private ObjectMapper objectMapper;
@@ -61,38 +70,71 @@ class TransactionEventListenerTest {
     @DisplayName("Should process transaction event successfully")
     void shouldProcessTransactionEventSuccessfully() {
         // Arrange
-        User sender = mock(User.class);
-        when(sender.getName()).thenReturn("Sender");
-        when(sender.getEmail()).thenReturn("sender@test.com");
+        Account sender = account(10L, "Sender", "sender@test.com");
+        Account receiver = account(20L, "Receiver", "receiver@test.com");
+        when(accountRepository.findWithUserByIds(Set.of(10L, 20L))).thenReturn(List.of(sender, receiver));
 
-        User receiver = mock(User.class);
-        when(receiver.getName()).thenReturn("Receiver");
-        when(receiver.getEmail()).thenReturn("receiver@test.com");
+        // Act
+        transactionEventListener.handleTransactionEvents(List.of(jsonPayload));
 
-        when(userRepository.findById(10L)).thenReturn(Optional.of(sender));
-        when(userRepository.findById(20L)).thenReturn(Optional.of(receiver));
+        // Assert
+        verify(emailService).sendTransactionNotification(eq("sender@test.com"), anyString(), anyString());
+        verify(emailService).sendTransactionNotification(eq("receiver@test.com"), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should notify from the participant details embedded in the event, without any lookup")
+    void shouldNotifyFromEmbeddedParticipantDetails() throws JsonProcessingException {
+        // Arrange
+        TransactionEvent enriched = new TransactionEvent(1L, 10L, 20L, BigDecimal.TEN, LocalDateTime.now(), UUID.randomUUID(),
+                "Sender", "sender@test.com", "Receiver", "receiver@test.com");
+        when(objectMapper.readValue(jsonPayload, TransactionEvent.class)).thenReturn(enriched);
 
         // Act
-        transactionEventListener.handleTransactionEvent(jsonPayload);
+        transactionEventListener.handleTransactionEvents(List.of(jsonPayload));
 
         // Assert
-        verify(emailService).sendTransactionNotification(eq("sender@test.com"), anyString(), anyString());
+        verify(emailService).sendTransactionNotification(eq("sender@test.com"), anyString(), contains("para Receiver"));
         verify(emailService).sendTransactionNotification(eq("receiver@test.com"), anyString(), anyString());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    @DisplayName("Should resolve the users of older events without details with a single query")
+    void shouldResolveUsersOfBatchWithSingleQuery() throws JsonProcessingException {
+        // Arrange
+        TransactionEvent second = new TransactionEvent(2L, 20L, 30L, BigDecimal.ONE, LocalDateTime.now(), UUID.randomUUID());
+        when(objectMapper.readValue("{\"id\":2}", TransactionEvent.class)).thenReturn(second);
+        List<Account> accounts = List.of(
+                account(10L, "Sender", "sender@test.com"),
+                account(20L, "Middle", "middle@test.com"),
+                account(30L, "Receiver", "receiver@test.com"));
+        when(accountRepository.findWithUserByIds(Set.of(10L, 20L, 30L))).thenReturn(accounts);
+
+        // Act
+        transactionEventListener.handleTransactionEvents(List.of(jsonPayload, "{\"id\":2}"));
+
+        // Assert
+        verify(accountRepository).findWithUserByIds(anyCollection());
+        verify(emailService, times(2)).sendTransactionNotification(eq("middle@test.com"), anyString(), anyString());
+        verify(emailService, times(4)).sendTransactionNotification(anyString(), anyString(), anyString());
     }
 
     @Test
     @DisplayName("Should throw exception when sender not found")
     void shouldThrowExceptionWhenSenderNotFound() {
         // Arrange
-        when(userRepository.findById(10L)).thenReturn(Optional.empty());
+        when(accountRepository.findWithUserByIds(any())).thenReturn(List.of());
 
         // Act & Assert
-        TransactionEventListenerException exception = assertThrows(TransactionEventListenerException.class, () -> 
-            transactionEventListener.handleTransactionEvent(jsonPayload)
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class, () ->
+            transactionEventListener.handleTransactionEvents(List.of(jsonPayload))
         );
-        
-        assertTrue(exception.getCause() instanceof ResourceNotFoundException);
-        assertTrue(exception.getCause().getMessage().contains("Usuário remetente não encontrado"));
+
+        assertEquals(0, exception.getIndex());
+        assertTrue(exception.getCause() instanceof TransactionEventListenerException);
+        assertTrue(exception.getCause().getCause() instanceof ResourceNotFoundException);
+        assertTrue(exception.getCause().getCause().getMessage().contains("Usuário remetente não encontrado"));
         verify(emailService, never()).sendTransactionNotification(anyString(), anyString(), anyString());
     }
 
@@ -100,20 +142,40 @@ class TransactionEventListenerTest {
     @DisplayName("Should throw exception when receiver not found")
     void shouldThrowExceptionWhenReceiverNotFound() {
         // Arrange
-        User sender = mock(User.class);
-        when(userRepository.findById(10L)).thenReturn(Optional.of(sender));
-        when(userRepository.findById(20L)).thenReturn(Optional.empty());
+        Account sender = account(10L, "Sender", "sender@test.com");
+        when(accountRepository.findWithUserByIds(any())).thenReturn(List.of(sender));
 
         // Act & Assert
-        TransactionEventListenerException exception = assertThrows(TransactionEventListenerException.class, () -> 
-            transactionEventListener.handleTransactionEvent(jsonPayload)
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class, () ->
+            transactionEventListener.handleTransactionEvents(List.of(jsonPayload))
         );
-        
-        assertTrue(exception.getCause() instanceof ResourceNotFoundException);
-        assertTrue(exception.getCause().getMessage().contains("Usuário destinatário não encontrado"));
+
+        assertTrue(exception.getCause().getCause() instanceof ResourceNotFoundException);
+        assertTrue(exception.getCause().getCause().getMessage().contains("Usuário destinatário não encontrado"));
         verify(emailService, never()).sendTransactionNotification(anyString(), anyString(), anyString());
     }
 
+    @Test
+    @DisplayName("Should notify the records before a failed one and report the failed index")
+    void shouldNotifyRecordsBeforeFailureAndReportIndex() throws JsonProcessingException {
+        // Arrange
+        when(objectMapper.readValue("invalid-json", TransactionEvent.class)).thenThrow(new JsonProcessingException("Error") {});
+        List<Account> accounts = List.of(
+                account(10L, "Sender", "sender@test.com"),
+                account(20L, "Receiver", "receiver@test.com"));
+        when(accountRepository.findWithUserByIds(Set.of(10L, 20L))).thenReturn(accounts);
+
+        // Act & Assert
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class, () ->
+            transactionEventListener.handleTransactionEvents(List.of(jsonPayload, "invalid-json", jsonPayload))
+        );
+
+        assertEquals(1, exception.getIndex());
+        assertTrue(exception.getCause().getMessage().contains("Falha ao desserializar"));
+        assertTrue(exception.getCause().getMessage().contains("invalid-json"));
+        verify(emailService, times(2)).sendTransactionNotification(anyString(), anyString(), anyString());
+    }
+
     @Test
     @DisplayName("Should throw exception on deserialization error")
     void shouldThrowExceptionOnDeserializationError() throws JsonProcessingException {
@@ -121,10 +183,22 @@ class TransactionEventListenerTest {
         when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenThrow(new JsonProcessingException("Error") {});
 
         // Act & Assert
-        TransactionEventListenerException exception = assertThrows(TransactionEventListenerException.class, () -> 
-            transactionEventListener.handleTransactionEvent("invalid-json")
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class, () ->
+            transactionEventListener.handleTransactionEvents(List.of("invalid-json"))
         );
-        
-        assertTrue(exception.getMessage().contains("Falha ao desserializar"));
+
+        assertEquals(0, exception.getIndex());
+        assertTrue(exception.getCause().getMessage().contains("Falha ao desserializar"));
+        verifyNoInteractions(accountRepository);
+    }
+
+    private Account account(Long id, String name, String email) {
+        User user = mock(User.class);
+        lenient().when(user.getName()).thenReturn(name);
+        lenient().when(user.getEmail()).thenReturn(email);
+        Account account = mock(Account.class);
+        lenient().when(account.getId()).thenReturn(id);
+        lenient().when(account.getUser()).thenReturn(user);
+        return account;
     }
 }
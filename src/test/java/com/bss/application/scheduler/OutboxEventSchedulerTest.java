@@ -8,29 +8,52 @@ import com.bss.domain.outbox.OutboxEventRepository;
 import com.bss.domain.outbox.OutboxEventStatus;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Pageable;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,11 +68,32 @@ class OutboxEventSchedulerTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
     private OutboxEventScheduler scheduler;
 
     @BeforeEach
     void setUp() {
-        scheduler = new OutboxEventScheduler(outboxEventRepository, kafkaProducerService, objectMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new OutboxEventScheduler(outboxEventRepository, kafkaProducerService, objectMapper,
+                new OutboxLease("node-a", 60_000), new OutboxRetryBackoff(5_000, 300_000),
+                transactionManager, meterRegistry, 1, 100, 1000, 10, 100, 500, "object", false);
+
+        // Broker acknowledges every send unless a test says otherwise
+        lenient().when(kafkaProducerService.sendTransactionEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(kafkaProducerService.sendAccountCreatedEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+        // Every claimed row is still leased by its claim unless a test says otherwise
+        lenient().when(outboxEventRepository.lockLeasedEvents(any(), any()))
+                .thenAnswer(inv -> Arrays.stream(inv.<UUID[]>getArgument(0)).map(this::leasedEvent).toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler.isRunning()) {
+            scheduler.stop();
+        }
     }
 
     @Test
@@ -57,29 +101,27 @@ class OutboxEventSchedulerTest {
     void shouldProcessTransactionCompletedEvents() throws Exception {
         // Arrange
         OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{}");
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionCompleted"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(List.of(event));
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionFailed"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionFailed"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("AccountCreated"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("AccountCreated"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
 
         when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenReturn(new TransactionEvent());
 
         // Act
-        scheduler.processNotificationEvents();
+        scheduler.relayBatch(100);
 
         // Assert
         verify(kafkaProducerService).sendTransactionEvent(any(TransactionEvent.class));
         verify(outboxEventRepository).deleteAllInBatch(anyList());
         
-        // Verify status update to PROCESSING
-        ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
-        verify(outboxEventRepository).saveAll(captor.capture());
-        assertEquals(OutboxEventStatus.PROCESSING, captor.getValue().get(0).getStatus());
+        // The claim statement already marked the row PROCESSING, no separate lock write
+        verify(outboxEventRepository, never()).saveAll(any());
     }
 
     @Test
@@ -87,20 +129,20 @@ class OutboxEventSchedulerTest {
     void shouldProcessAccountCreatedEvents() throws Exception {
         // Arrange
         OutboxEvent event = new OutboxEvent("Account", "1", "AccountCreated", "{}");
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionCompleted"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionFailed"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionFailed"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("AccountCreated"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("AccountCreated"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(List.of(event));
 
         when(objectMapper.readValue(anyString(), eq(AccountCreatedEvent.class))).thenReturn(new AccountCreatedEvent());
 
         // Act
-        scheduler.processNotificationEvents();
+        scheduler.relayBatch(100);
 
         // Assert
         verify(kafkaProducerService).sendAccountCreatedEvent(any(AccountCreatedEvent.class));
@@ -112,21 +154,21 @@ class OutboxEventSchedulerTest {
     void shouldHandleDeserializationError() throws Exception {
         // Arrange
         OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "invalid-json");
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionCompleted"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(List.of(event));
         // Stub other calls to return empty
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionFailed"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionFailed"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("AccountCreated"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("AccountCreated"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
         
         when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenThrow(new JsonProcessingException("Error") {});
 
         // Act
-        scheduler.processNotificationEvents();
+        scheduler.relayBatch(100);
 
         // Assert
         verify(kafkaProducerService, never()).sendTransactionEvent(any());
@@ -134,12 +176,13 @@ class OutboxEventSchedulerTest {
         
         // Verify retry logic
         ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
-        verify(outboxEventRepository, times(2)).saveAll(captor.capture()); // 1: PROCESSING, 2: UNPROCESSED (Retry)
+        verify(outboxEventRepository).saveAll(captor.capture()); // UNPROCESSED (Retry)
         
-        List<OutboxEvent> retriedEvents = captor.getAllValues().get(1);
+        List<OutboxEvent> retriedEvents = captor.getValue();
         assertEquals(1, retriedEvents.size());
         assertEquals(OutboxEventStatus.UNPROCESSED, retriedEvents.get(0).getStatus());
         assertEquals(1, retriedEvents.get(0).getRetryCount());
+        assertTrue(retriedEvents.get(0).getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(2))); // Backing off, not due yet
     }
 
     @Test
@@ -149,28 +192,28 @@ class OutboxEventSchedulerTest {
         OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{}");
         event.setRetryCount(4); // Max retries is 5, so next failure should fail it
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionCompleted"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(List.of(event));
         // Stub other calls
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionFailed"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionFailed"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("AccountCreated"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("AccountCreated"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
         
         doThrow(new RuntimeException("Kafka error")).when(kafkaProducerService).sendTransactionEvent(any());
         when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenReturn(new TransactionEvent());
 
         // Act
-        scheduler.processNotificationEvents();
+        scheduler.relayBatch(100);
 
         // Assert
         ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
-        verify(outboxEventRepository, times(2)).saveAll(captor.capture());
+        verify(outboxEventRepository).saveAll(captor.capture());
         
-        List<OutboxEvent> failedEvents = captor.getAllValues().get(1);
+        List<OutboxEvent> failedEvents = captor.getValue();
         assertEquals(OutboxEventStatus.FAILED, failedEvents.get(0).getStatus());
     }
 
@@ -178,16 +221,30 @@ class OutboxEventSchedulerTest {
     @DisplayName("Should do nothing if no events found")
     void shouldDoNothingIfNoEvents() {
         // Arrange
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any())).thenReturn(Collections.emptyList());
+        when(outboxEventRepository.claimUnprocessedEvents(any(), any(), any(), any(), anyInt())).thenReturn(Collections.emptyList());
 
         // Act
-        scheduler.processNotificationEvents();
+        scheduler.relayBatch(100);
 
         // Assert
         verify(outboxEventRepository, never()).saveAll(any());
         verify(kafkaProducerService, never()).sendTransactionEvent(any());
     }
 
+    @Test
+    @DisplayName("Should claim events under a lease token of this node")
+    void shouldClaimEventsUnderNodeLease() {
+        when(outboxEventRepository.claimUnprocessedEvents(any(), any(), any(), any(), anyInt())).thenReturn(Collections.emptyList());
+
+        scheduler.relayBatch(100);
+
+        ArgumentCaptor<LocalDateTime> lockedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> leaseExpiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxEventRepository).claimUnprocessedEvents(
+                eq("TransactionCompleted"), lockedAt.capture(), startsWith("node-a/"), leaseExpiresAt.capture(), eq(100));
+        assertEquals(lockedAt.getValue().plusMinutes(1), leaseExpiresAt.getValue());
+    }
+
     @Test
     @DisplayName("Should process mixed batch with partial success")
     void shouldProcessMixedBatchWithPartialSuccess() throws Exception {
@@ -195,15 +252,15 @@ class OutboxEventSchedulerTest {
         OutboxEvent successEvent = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{\"id\":1}");
         OutboxEvent failEvent = new OutboxEvent("Transaction", "2", "TransactionCompleted", "{\"id\":2}");
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionCompleted"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(List.of(successEvent, failEvent));
         // Stub other calls to return empty, as the batch is not full (2 < 100)
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionFailed"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionFailed"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("AccountCreated"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("AccountCreated"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(Collections.emptyList());
         
         TransactionEvent dto1 = new TransactionEvent();
@@ -212,17 +269,17 @@ class OutboxEventSchedulerTest {
         when(objectMapper.readValue("{\"id\":1}", TransactionEvent.class)).thenReturn(dto1);
         when(objectMapper.readValue("{\"id\":2}", TransactionEvent.class)).thenReturn(dto2);
         
-        // Use doAnswer to conditionally throw exception based on the argument instance
+        // Use doAnswer to conditionally fail the send based on the argument instance
         doAnswer(invocation -> {
             TransactionEvent arg = invocation.getArgument(0);
             if (arg == dto2) {
-                throw new RuntimeException("Kafka error");
+                return CompletableFuture.failedFuture(new RuntimeException("Kafka error")); // Not acknowledged
             }
-            return null; // Success for dto1
+            return CompletableFuture.completedFuture(null); // Acknowledged for dto1
         }).when(kafkaProducerService).sendTransactionEvent(any(TransactionEvent.class));
 
         // Act
-        scheduler.processNotificationEvents();
+        scheduler.relayBatch(100);
 
         // Assert
         // 1. Verify successEvent is deleted
@@ -230,10 +287,10 @@ class OutboxEventSchedulerTest {
         
         // 2. Verify failEvent is retried
         ArgumentCaptor<List<OutboxEvent>> saveCaptor = ArgumentCaptor.forClass(List.class);
-        verify(outboxEventRepository, times(2)).saveAll(saveCaptor.capture());
+        verify(outboxEventRepository).saveAll(saveCaptor.capture());
         
-        // Verify the retry call (second saveAll call, first was lock)
-        List<OutboxEvent> retries = saveCaptor.getAllValues().get(1);
+        // The only saveAll is the retry call, the claim needs none
+        List<OutboxEvent> retries = saveCaptor.getValue();
         assertEquals(1, retries.size());
         assertEquals(failEvent, retries.get(0));
         assertEquals(1, retries.get(0).getRetryCount());
@@ -245,22 +302,22 @@ class OutboxEventSchedulerTest {
         // Arrange
         // Use public constructor
         List<OutboxEvent> fullBatch = Collections.nCopies(100, new OutboxEvent("Test", "1", "TestEvent", "{}"));
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionCompleted"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(fullBatch);
 
         // Act
-        scheduler.processNotificationEvents();
+        scheduler.relayBatch(100);
 
         // Assert
         // Should NOT fetch the next event types
-        verify(outboxEventRepository, never()).findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionFailed"), any(LocalDateTime.class), any(Pageable.class));
-        verify(outboxEventRepository, never()).findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("AccountCreated"), any(LocalDateTime.class), any(Pageable.class));
+        verify(outboxEventRepository, never()).claimUnprocessedEvents(
+                eq("TransactionFailed"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt());
+        verify(outboxEventRepository, never()).claimUnprocessedEvents(
+                eq("AccountCreated"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt());
         
-        // Should lock the 100 events
-        verify(outboxEventRepository).saveAll(fullBatch);
+        // Should send and delete the 100 claimed events
+        verify(outboxEventRepository).deleteAllInBatch(fullBatch);
     }
 
     @Test
@@ -270,31 +327,354 @@ class OutboxEventSchedulerTest {
         List<OutboxEvent> batch1 = Collections.nCopies(50, new OutboxEvent("Test", "1", "TransactionCompleted", "{}"));
         List<OutboxEvent> batch2 = Collections.nCopies(50, new OutboxEvent("Test", "2", "TransactionFailed", "{}"));
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionCompleted"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(batch1);
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionFailed"), any(LocalDateTime.class), any(Pageable.class)))
+        when(outboxEventRepository.claimUnprocessedEvents(
+                eq("TransactionFailed"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt()))
                 .thenReturn(batch2);
 
         // Act
-        scheduler.processNotificationEvents();
+        scheduler.relayBatch(100);
 
         // Assert
         // Should fetch both types
-        verify(outboxEventRepository).findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionCompleted"), any(LocalDateTime.class), any(Pageable.class));
-        verify(outboxEventRepository).findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("TransactionFailed"), any(LocalDateTime.class), any(Pageable.class));
+        verify(outboxEventRepository).claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt());
+        verify(outboxEventRepository).claimUnprocessedEvents(
+                eq("TransactionFailed"), any(LocalDateTime.class), any(), any(LocalDateTime.class), eq(50)); // Only what is left of the batch
         
         // Should NOT fetch the third type (AccountCreated) because 50 + 50 = 100 (Full)
-        verify(outboxEventRepository, never()).findAndLockUnprocessedEvents(
-                eq(OutboxEventStatus.UNPROCESSED), eq("AccountCreated"), any(LocalDateTime.class), any(Pageable.class));
+        verify(outboxEventRepository, never()).claimUnprocessedEvents(
+                eq("AccountCreated"), any(LocalDateTime.class), any(), any(LocalDateTime.class), anyInt());
         
-        // Should lock all 100 events
+        // Should process all 100 events
         ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
-        verify(outboxEventRepository).saveAll(captor.capture());
+        verify(outboxEventRepository).deleteAllInBatch(captor.capture());
         assertEquals(100, captor.getValue().size());
     }
+
+    @Test
+    @DisplayName("Should grow the batch while batches come back full and shrink it when they don't")
+    void shouldAdaptBatchSize() {
+        assertEquals(200, scheduler.nextBatchSize(100, 100));
+        assertEquals(1000, scheduler.nextBatchSize(800, 800)); // Capped at the maximum
+        assertEquals(400, scheduler.nextBatchSize(400, 300));  // More than half full: keep
+        assertEquals(200, scheduler.nextBatchSize(400, 10));
+        assertEquals(100, scheduler.nextBatchSize(100, 0));    // Never below the minimum
+    }
+
+    @Test
+    @DisplayName("Worker should keep relaying while a backlog exists, growing its batch, then idle and stop cleanly")
+    void workerShouldDrainBacklogContinuously() {
+        List<OutboxEvent> firstBatch = Collections.nCopies(100, new OutboxEvent("Test", "1", "TransactionCompleted", "{}"));
+        List<OutboxEvent> secondBatch = Collections.nCopies(200, new OutboxEvent("Test", "2", "TransactionCompleted", "{}"));
+        when(outboxEventRepository.claimUnprocessedEvents(eq("TransactionCompleted"), any(), any(), any(), anyInt()))
+                .thenReturn(firstBatch)
+                .thenReturn(secondBatch)
+                .thenReturn(Collections.emptyList());
+        when(outboxEventRepository.claimUnprocessedEvents(eq("TransactionFailed"), any(), any(), any(), anyInt()))
+                .thenReturn(Collections.emptyList());
+        when(outboxEventRepository.claimUnprocessedEvents(eq("AccountCreated"), any(), any(), any(), anyInt()))
+                .thenReturn(Collections.emptyList());
+
+        scheduler.start();
+
+        // Back-to-back batches without waiting for a poll interval; the second one asks for twice as many rows
+        verify(outboxEventRepository, timeout(2000)).claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(), any(), any(), eq(200));
+        verify(outboxEventRepository, timeout(2000).atLeast(3)).claimUnprocessedEvents(
+                eq("TransactionCompleted"), any(), any(), any(), anyInt());
+
+        scheduler.stop();
+
+        assertFalse(scheduler.isRunning());
+        assertEquals(300.0, meterRegistry.get("ledger.outbox.notifications.claimed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should expose the notification backlog as a gauge")
+    void shouldExposeBacklogGauge() {
+        when(outboxEventRepository.countByStatusAndEventTypeIn(eq(OutboxEventStatus.UNPROCESSED), anyList())).thenReturn(42L);
+
+        scheduler.refreshBacklog();
+
+        assertEquals(42.0, meterRegistry.get("ledger.outbox.notifications.backlog").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should send the whole batch before awaiting any acknowledgement")
+    void shouldPipelineSendsBeforeAwaitingAcks() throws Exception {
+        OutboxEvent first = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{\"id\":1}");
+        OutboxEvent second = new OutboxEvent("Transaction", "2", "TransactionCompleted", "{\"id\":2}");
+        stubClaim(List.of(first, second));
+        TransactionEvent dto1 = new TransactionEvent();
+        TransactionEvent dto2 = new TransactionEvent();
+        when(objectMapper.readValue("{\"id\":1}", TransactionEvent.class)).thenReturn(dto1);
+        when(objectMapper.readValue("{\"id\":2}", TransactionEvent.class)).thenReturn(dto2);
+
+        // The first ack only arrives once the second record has been handed to the producer
+        CompletableFuture<SendResult<String, Object>> firstAck = new CompletableFuture<>();
+        when(kafkaProducerService.sendTransactionEvent(dto1)).thenReturn(firstAck);
+        when(kafkaProducerService.sendTransactionEvent(dto2)).thenAnswer(inv -> {
+            firstAck.complete(null);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        scheduler.relayBatch(100);
+
+        verify(outboxEventRepository).deleteAllInBatch(List.of(first, second));
+        verify(outboxEventRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Should retry rows whose acknowledgement misses the deadline without charging them a retry")
+    void shouldRetryUnacknowledgedRowsAfterDeadline() throws Exception {
+        OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{}");
+        stubClaim(List.of(event));
+        when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenReturn(new TransactionEvent());
+        when(kafkaProducerService.sendTransactionEvent(any())).thenReturn(new CompletableFuture<>()); // Never acknowledged
+
+        scheduler.relayBatch(100);
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+        ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).saveAll(captor.capture());
+        assertEquals(OutboxEventStatus.UNPROCESSED, captor.getValue().get(0).getStatus());
+        assertEquals(0, captor.getValue().get(0).getRetryCount());
+        assertTrue(captor.getValue().get(0).getNextAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Should keep deferring rows without failing them while Kafka is unavailable")
+    void shouldNotChargeRetriesDuringKafkaOutage() throws Exception {
+        OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{}");
+        event.setRetryCount(4); // A charged failure would mark it FAILED
+        stubClaim(List.of(event));
+        when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenReturn(new TransactionEvent());
+        when(kafkaProducerService.sendTransactionEvent(any()))
+                .thenReturn(CompletableFuture.failedFuture(new org.apache.kafka.common.errors.TimeoutException("Broker unreachable")));
+
+        scheduler.relayBatch(100);
+
+        verify(outboxEventRepository).saveAll(List.of(event));
+        assertEquals(OutboxEventStatus.UNPROCESSED, event.getStatus());
+        assertEquals(4, event.getRetryCount());
+    }
+
+    @Test
+    @DisplayName("Pass-through mode should send the stored payload unchanged, without deserializing it")
+    void passThroughModeShouldSendStoredPayload() {
+        scheduler = new OutboxEventScheduler(outboxEventRepository, kafkaProducerService, objectMapper,
+                new OutboxLease("node-a", 60_000), new OutboxRetryBackoff(5_000, 300_000),
+                transactionManager, meterRegistry, 1, 100, 1000, 10, 100, 500, "passthrough", false);
+        OutboxEvent transactionEvent = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{\"id\":1}");
+        OutboxEvent accountEvent = new OutboxEvent("Account", "7", "AccountCreated", "{\"accountId\":7}");
+        when(outboxEventRepository.claimUnprocessedEvents(eq("TransactionCompleted"), any(), any(), any(), anyInt()))
+                .thenReturn(List.of(transactionEvent));
+        when(outboxEventRepository.claimUnprocessedEvents(eq("TransactionFailed"), any(), any(), any(), anyInt()))
+                .thenReturn(Collections.emptyList());
+        when(outboxEventRepository.claimUnprocessedEvents(eq("AccountCreated"), any(), any(), any(), anyInt()))
+                .thenReturn(List.of(accountEvent));
+        when(kafkaProducerService.sendRawTransactionEvent(eq("{\"id\":1}"), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaProducerService.sendRawAccountCreatedEvent("{\"accountId\":7}", 7L)).thenReturn(CompletableFuture.completedFuture(null));
+
+        scheduler.relayBatch(100);
+
+        verify(outboxEventRepository).deleteAllInBatch(List.of(transactionEvent, accountEvent));
+        verifyNoInteractions(objectMapper);
+        verify(kafkaProducerService, never()).sendTransactionEvent(any());
+    }
+
+    @Test
+    @DisplayName("Transactional mode should send the batch in one Kafka transaction, then delete the rows")
+    void transactionalModeShouldSendBatchInOneKafkaTransaction() {
+        scheduler = transactionalScheduler();
+        OutboxEvent first = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{\"id\":1}");
+        OutboxEvent second = new OutboxEvent("Transaction", "2", "TransactionCompleted", "{\"id\":2}");
+        stubClaim(List.of(first, second));
+        ProducerRecord<String, String> firstRecord = new ProducerRecord<>("transactions", "{\"id\":1}");
+        ProducerRecord<String, String> secondRecord = new ProducerRecord<>("transactions", "{\"id\":2}");
+        when(kafkaProducerService.rawTransactionRecord(eq("{\"id\":1}"), any())).thenReturn(firstRecord);
+        when(kafkaProducerService.rawTransactionRecord(eq("{\"id\":2}"), any())).thenReturn(secondRecord);
+
+        scheduler.relayBatch(100);
+
+        verify(kafkaProducerService).sendRawInTransaction(List.of(firstRecord, secondRecord));
+        verify(kafkaProducerService, never()).sendRawTransactionEvent(any(), any());
+        verify(outboxEventRepository).deleteAllInBatch(List.of(first, second));
+    }
+
+    @Test
+    @DisplayName("Transactional mode should charge each row that still fails once the aborted transaction is split")
+    void transactionalModeShouldChargeRowsThatFailAlone() {
+        scheduler = transactionalScheduler();
+        OutboxEvent first = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{\"id\":1}");
+        OutboxEvent second = new OutboxEvent("Transaction", "2", "TransactionCompleted", "{\"id\":2}");
+        stubClaim(List.of(first, second));
+        when(kafkaProducerService.rawTransactionRecord(any(), any())).thenReturn(new ProducerRecord<>("transactions", "{}"));
+        doThrow(new KafkaException("Transaction aborted")).when(kafkaProducerService).sendRawInTransaction(anyList());
+
+        scheduler.relayBatch(100);
+
+        // The batch, then each row on its own
+        verify(kafkaProducerService, times(3)).sendRawInTransaction(anyList());
+        verify(outboxEventRepository, never()).deleteAllInBatch(anyList());
+        verify(outboxEventRepository).saveAll(List.of(first, second));
+        assertEquals(OutboxEventStatus.UNPROCESSED, first.getStatus());
+        assertEquals(1, second.getRetryCount());
+    }
+
+    @Test
+    @DisplayName("Transactional mode should isolate the row that aborts its transaction and relay the others")
+    void transactionalModeShouldIsolateFailingRow() {
+        scheduler = transactionalScheduler();
+        List<OutboxEvent> events = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            OutboxEvent event = new OutboxEvent("Transaction", String.valueOf(i), "TransactionCompleted", "{\"id\":" + i + "}");
+            ReflectionTestUtils.setField(event, "id", UUID.randomUUID());
+            events.add(event);
+        }
+        OutboxEvent bad = events.get(2);
+        stubClaim(events);
+        when(kafkaProducerService.rawTransactionRecord(any(), any()))
+                .thenAnswer(inv -> new ProducerRecord<String, String>("transactions", inv.getArgument(0)));
+        // Rejects any transaction carrying the bad record, e.g. one over the broker's size limit
+        doAnswer(inv -> {
+            List<ProducerRecord<String, String>> records = inv.getArgument(0);
+            if (records.stream().anyMatch(record -> record.value().equals(bad.getPayload()))) {
+                throw new KafkaException("Record too large");
+            }
+            return null;
+        }).when(kafkaProducerService).sendRawInTransaction(anyList());
+
+        scheduler.relayBatch(100);
+
+        verify(outboxEventRepository).deleteAllInBatch(List.of(events.get(0), events.get(1), events.get(3)));
+        verify(outboxEventRepository).saveAll(List.of(bad));
+        assertEquals(1, bad.getRetryCount());
+        assertEquals(0, events.get(3).getRetryCount());
+    }
+
+    @Test
+    @DisplayName("Transactional mode should defer the whole batch without a retry charge when Kafka is unavailable")
+    void transactionalModeShouldDeferBatchDuringOutage() {
+        scheduler = transactionalScheduler();
+        OutboxEvent first = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{\"id\":1}");
+        OutboxEvent second = new OutboxEvent("Transaction", "2", "TransactionCompleted", "{\"id\":2}");
+        stubClaim(List.of(first, second));
+        when(kafkaProducerService.rawTransactionRecord(any(), any())).thenReturn(new ProducerRecord<>("transactions", "{}"));
+        doThrow(new KafkaException("Transaction aborted", new org.apache.kafka.common.errors.TimeoutException("Broker unreachable")))
+                .when(kafkaProducerService).sendRawInTransaction(anyList());
+
+        scheduler.relayBatch(100);
+
+        // An outage says nothing about the rows: no split, no charge
+        verify(kafkaProducerService, times(1)).sendRawInTransaction(anyList());
+        verify(outboxEventRepository).saveAll(List.of(first, second));
+        assertEquals(OutboxEventStatus.UNPROCESSED, first.getStatus());
+        assertEquals(0, second.getRetryCount());
+    }
+
+    @Test
+    @DisplayName("Should claim outside a transaction and finalize in a short one after the sends")
+    void shouldFinalizeInItsOwnTransactionAfterSending() throws Exception {
+        OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{}");
+        stubClaim(List.of(event));
+        when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenReturn(new TransactionEvent());
+
+        scheduler.relayBatch(100);
+
+        InOrder inOrder = inOrder(outboxEventRepository, kafkaProducerService, transactionManager);
+        inOrder.verify(outboxEventRepository).claimUnprocessedEvents(eq("TransactionCompleted"), any(), any(), any(), anyInt());
+        inOrder.verify(kafkaProducerService).sendTransactionEvent(any());
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(outboxEventRepository).lockLeasedEvents(any(), startsWith("node-a/"));
+        inOrder.verify(outboxEventRepository).deleteAllInBatch(List.of(event));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should release the batch with a backoff but no retry charge when finalizing fails")
+    void shouldReleaseBatchWhenFinalizingFails() throws Exception {
+        OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{}");
+        stubClaim(List.of(event));
+        when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenReturn(new TransactionEvent());
+        doThrow(new QueryTimeoutException("DB Timeout")).when(outboxEventRepository).deleteAllInBatch(anyList());
+        LocalDateTime before = LocalDateTime.now();
+
+        assertEquals(1, scheduler.relayBatch(100));
+
+        verify(transactionManager).rollback(any());
+        // First retry backs off 2.5-5s (half of the 5s base delay is jitter)
+        verify(outboxEventRepository).releaseLeasedEvents(any(), startsWith("node-a/"),
+                argThat(nextAttemptAt -> nextAttemptAt.isAfter(before.plusSeconds(2))));
+    }
+
+    @Test
+    @DisplayName("Should leave events whose lease another claim has taken over to that claim")
+    void shouldNotFinalizeEventsNoLongerLeased() throws Exception {
+        OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{}");
+        ReflectionTestUtils.setField(event, "id", UUID.randomUUID());
+        stubClaim(List.of(event));
+        when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenReturn(new TransactionEvent());
+        doReturn(Collections.emptyList()).when(outboxEventRepository).lockLeasedEvents(any(), any());
+
+        scheduler.relayBatch(100);
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+        verify(outboxEventRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Should relay the types already claimed when a later claim fails")
+    void shouldRelayClaimedTypesWhenLaterClaimFails() throws Exception {
+        OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{}");
+        when(outboxEventRepository.claimUnprocessedEvents(eq("TransactionCompleted"), any(), any(), any(), anyInt()))
+                .thenReturn(List.of(event));
+        when(outboxEventRepository.claimUnprocessedEvents(eq("TransactionFailed"), any(), any(), any(), anyInt()))
+                .thenThrow(new QueryTimeoutException("DB Timeout"));
+        when(objectMapper.readValue(anyString(), eq(TransactionEvent.class))).thenReturn(new TransactionEvent());
+
+        assertEquals(1, scheduler.relayBatch(100));
+
+        verify(outboxEventRepository, never()).claimUnprocessedEvents(eq("AccountCreated"), any(), any(), any(), anyInt());
+        verify(outboxEventRepository).deleteAllInBatch(List.of(event));
+    }
+
+    @Test
+    @DisplayName("Transactional mode should be rejected without pass-through or a transactional producer")
+    void transactionalModeShouldRequirePassThroughAndTransactionalProducer() {
+        assertThrows(IllegalArgumentException.class, () -> new OutboxEventScheduler(outboxEventRepository, kafkaProducerService, objectMapper,
+                new OutboxLease("node-a", 60_000), new OutboxRetryBackoff(5_000, 300_000),
+                transactionManager, meterRegistry, 1, 100, 1000, 10, 100, 500, "passthrough", true));
+
+        lenient().when(kafkaProducerService.supportsTransactions()).thenReturn(true);
+        assertThrows(IllegalArgumentException.class, () -> new OutboxEventScheduler(outboxEventRepository, kafkaProducerService, objectMapper,
+                new OutboxLease("node-a", 60_000), new OutboxRetryBackoff(5_000, 300_000),
+                transactionManager, meterRegistry, 1, 100, 1000, 10, 100, 500, "object", true));
+    }
+
+    private OutboxEventScheduler transactionalScheduler() {
+        when(kafkaProducerService.supportsTransactions()).thenReturn(true);
+        return new OutboxEventScheduler(outboxEventRepository, kafkaProducerService, objectMapper,
+                new OutboxLease("node-a", 60_000), new OutboxRetryBackoff(5_000, 300_000),
+                transactionManager, new SimpleMeterRegistry(), 1, 100, 1000, 10, 100, 500, "passthrough", true);
+    }
+
+    private OutboxEvent leasedEvent(UUID id) {
+        OutboxEvent event = new OutboxEvent("Transaction", "1", "TransactionCompleted", "{}");
+        ReflectionTestUtils.setField(event, "id", id);
+        return event;
+    }
+
+    private void stubClaim(List<OutboxEvent> transactionCompleted) {
+        when(outboxEventRepository.claimUnprocessedEvents(eq("TransactionCompleted"), any(), any(), any(), anyInt()))
+                .thenReturn(transactionCompleted);
+        when(outboxEventRepository.claimUnprocessedEvents(eq("TransactionFailed"), any(), any(), any(), anyInt()))
+                .thenReturn(Collections.emptyList());
+        when(outboxEventRepository.claimUnprocessedEvents(eq("AccountCreated"), any(), any(), any(), anyInt()))
+                .thenReturn(Collections.emptyList());
+    }
 }
@@ -0,0 +1,67 @@
+package com.bss.application.scheduler;
+
+import com.bss.domain.outbox.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxLeaseReaperTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxLeaseReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reaper = new OutboxLeaseReaper(outboxEventRepository, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should count the events whose expired lease was released, charging each a retry")
+    void shouldCountReclaimedEvents() {
+        when(outboxEventRepository.releaseExpiredLeases(any(LocalDateTime.class), eq(5))).thenReturn(3).thenReturn(0);
+
+        reaper.releaseExpiredLeases();
+        reaper.releaseExpiredLeases();
+
+        assertEquals(3.0, meterRegistry.get("ledger.outbox.leases.reclaimed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Lease should prefix its tokens with the JVM name and expire after the configured duration")
+    void leaseShouldDefaultOwnerAndComputeExpiry() {
+        OutboxLease lease = new OutboxLease("", 30_000);
+        LocalDateTime claimedAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+        assertTrue(lease.newToken().contains("@"));
+        assertEquals(claimedAt.plusSeconds(30), lease.expiresAt(claimedAt));
+        assertTrue(new OutboxLease("node-a", 30_000).newToken().startsWith("node-a/"));
+        assertThrows(IllegalArgumentException.class, () -> new OutboxLease("node-a", 0));
+    }
+
+    @Test
+    @DisplayName("Lease should hand every claim its own token, even on the same node")
+    void leaseShouldIssueUniqueTokens() {
+        OutboxLease lease = new OutboxLease("node-a", 30_000);
+
+        assertNotEquals(lease.newToken(), lease.newToken());
+    }
+}
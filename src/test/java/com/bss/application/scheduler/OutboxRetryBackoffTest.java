@@ -0,0 +1,54 @@
+package com.bss.application.scheduler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxRetryBackoffTest {
+
+    private final OutboxRetryBackoff backoff = new OutboxRetryBackoff(1_000, 10_000);
+
+    @Test
+    @DisplayName("Should double the delay per retry, keeping at least half of it")
+    void shouldDoubleDelayPerRetryWithJitter() {
+        for (int i = 0; i < 100; i++) {
+            assertBetween(backoff.delayFor(1), 500, 1_000);
+            assertBetween(backoff.delayFor(2), 1_000, 2_000);
+            assertBetween(backoff.delayFor(3), 2_000, 4_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Should cap the delay at the configured maximum")
+    void shouldCapDelay() {
+        assertBetween(backoff.delayFor(5), 5_000, 10_000);
+        assertBetween(backoff.delayFor(1_000), 5_000, 10_000);
+    }
+
+    @Test
+    @DisplayName("Should schedule the next attempt relative to now")
+    void shouldScheduleRelativeToNow() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+        LocalDateTime next = backoff.nextAttemptAt(1, now);
+
+        assertTrue(!next.isBefore(now.plusNanos(500_000_000)) && !next.isAfter(now.plusSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid configuration")
+    void shouldRejectInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new OutboxRetryBackoff(0, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> new OutboxRetryBackoff(2_000, 1_000));
+    }
+
+    private static void assertBetween(Duration delay, long minMillis, long maxMillis) {
+        assertTrue(delay.toMillis() >= minMillis && delay.toMillis() <= maxMillis,
+                () -> delay.toMillis() + "ms not in [" + minMillis + ", " + maxMillis + "]");
+    }
+}
@@ -1,61 +1,84 @@
 package com.bss.application.scheduler;
 
+import com.bss.application.controller.account.mapper.AccountMapper;
+import com.bss.application.dto.response.account.AccountResponse;
+import com.bss.application.event.transactions.TransferRequestedEvent;
 import com.bss.application.service.transaction.TransactionAuditService;
 import com.bss.domain.account.Account;
+import com.bss.domain.account.AccountBalanceSlotRepository;
+import com.bss.domain.account.AccountBalanceUpdate;
 import com.bss.domain.account.AccountRepository;
+import com.bss.domain.account.BalanceSlotKey;
 import com.bss.domain.outbox.OutboxEvent;
 import com.bss.domain.outbox.OutboxEventRepository;
 import com.bss.domain.outbox.OutboxEventStatus;
+import com.bss.domain.outbox.TransferDetails;
 import com.bss.domain.transaction.Transaction;
 import com.bss.domain.transaction.TransactionRepository;
 import com.bss.domain.transaction.TransactionStatus;
 import com.bss.domain.user.Role;
 import com.bss.domain.user.User;
+import com.bss.infrastructure.redis.AccountCache;
+import com.bss.infrastructure.redis.NegativeCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.QueryTimeoutException;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -66,20 +89,23 @@ class TransferEventSchedulerTest {
     @Mock private OutboxEventRepository outboxEventRepository;
     @Mock private TransactionRepository transactionRepository;
     @Mock private AccountRepository accountRepository;
+    @Mock private AccountBalanceSlotRepository balanceSlotRepository;
     @Mock private TransactionAuditService transactionAuditService;
+    @Mock private AccountCache accountCache;
+    @Mock private NegativeCache negativeCache;
     @Spy private ObjectMapper objectMapper = new ObjectMapper();
     @Mock private PlatformTransactionManager transactionManager;
     @Mock private TransactionTemplate transactionTemplate;
-    @Mock private ExecutorService executorService;
     @Mock private org.springframework.transaction.TransactionStatus transactionStatus;
 
-    @Captor private ArgumentCaptor<Runnable> runnableCaptor;
-    @Captor private ArgumentCaptor<TransactionCallback<Object>> transactionCallbackCaptor;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransferWorkSignal workSignal = new TransferWorkSignal("poll", 1000);
     private TransferEventScheduler scheduler;
     private Account senderAccount;
     private Account receiverAccount;
     private OutboxEvent outboxEvent;
+    private List<OutboxEvent> claimedEvents = List.of();
     private UUID idempotencyKey;
 
     @BeforeEach
@@ -88,13 +114,31 @@ class TransferEventSchedulerTest {
                 outboxEventRepository,
                 transactionRepository,
                 accountRepository,
+                balanceSlotRepository,
                 transactionAuditService,
+                accountCache,
+                negativeCache,
+                new AccountMapper(),
                 objectMapper,
-                transactionManager
+                transactionManager,
+                new TransferShardAssignment(false, 0, 1),
+                new OutboxLease("node-a", 60_000),
+                new OutboxRetryBackoff(5_000, 300_000),
+                false,
+                workSignal,
+                meterRegistry,
+                8,
+                10,
+                500
         );
         
         ReflectionTestUtils.setField(scheduler, "transactionTemplate", transactionTemplate);
-        ReflectionTestUtils.setField(scheduler, "executorService", executorService);
+        runTransactionCallbacks();
+        // Every claimed row is still leased by its claim unless a test says otherwise
+        lenient().when(outboxEventRepository.lockLeasedEvents(any(), any())).thenAnswer(inv -> {
+            Set<UUID> ids = new HashSet<>(Arrays.asList(inv.<UUID[]>getArgument(0)));
+            return claimedEvents.stream().filter(event -> ids.contains(event.getId())).toList();
+        });
 
         User senderUser = new User("Sender", "111", "sender@test.com", Role.ROLE_EMPLOYEE);
         ReflectionTestUtils.setField(senderUser, "id", 1L);
@@ -112,32 +156,91 @@ class TransferEventSchedulerTest {
 
     @AfterEach
     void tearDown() {
-        Mockito.reset(outboxEventRepository, transactionRepository, accountRepository, transactionAuditService, transactionTemplate, executorService);
+        if (scheduler.isRunning()) {
+            scheduler.stop();
+        }
+        Mockito.reset(outboxEventRepository, transactionRepository, accountRepository, transactionAuditService, transactionTemplate);
     }
 
     @Test
-    @DisplayName("Full Flow: Should schedule, execute in transaction, and process batch")
+    @DisplayName("Full Flow: Should execute the batch in a transaction and report the claimed events")
     void shouldExecuteFullProcessingFlow() {
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(outboxEvent));
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiverAccount));
+        stubClaim(Collections.singletonList(outboxEvent));
+        stubLockedAccounts(senderAccount, receiverAccount);
+        stubBalanceUpdates();
         when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
 
-        scheduler.scheduleTransferProcessing();
-
-        verify(executorService, times(8)).submit(runnableCaptor.capture());
-        Runnable task = runnableCaptor.getAllValues().get(0);
-        task.run();
+        assertEquals(1, scheduler.processBatchInTransaction(0));
 
-        verify(transactionTemplate).execute(transactionCallbackCaptor.capture());
-        TransactionCallback<Object> callback = transactionCallbackCaptor.getValue();
-        callback.doInTransaction(transactionStatus);
-
-        assertEquals(new BigDecimal("100.00"), senderAccount.getBalance());
-        assertEquals(new BigDecimal("150.00"), receiverAccount.getBalance());
+        verify(accountRepository).applyBalanceDeltas(Map.of(1L, new BigDecimal("-100.00"), 2L, new BigDecimal("100.00")));
+        // Managed entities are not mutated: balances are written by the set-based update only
+        assertEquals(new BigDecimal("200.00"), senderAccount.getBalance());
         verify(transactionRepository, times(2)).saveAll(any());
         verify(outboxEventRepository).deleteAllInBatch(anyList());
+        verify(outboxEventRepository, never()).saveAll(any()); // Claimed rows come back already PROCESSING
+        verify(accountRepository).findAllByIdForUpdate(new Long[]{1L, 2L});
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+    }
+
+    @Test
+    @DisplayName("Worker loop: Should keep claiming while batches return events, then back off and stop cleanly")
+    void shouldKeepClaimingWhileWorkExistsAndStopCleanly() {
+        ReflectionTestUtils.setField(scheduler, "workerCount", 1);
+        claimedEvents = List.of(outboxEvent);
+        when(outboxEventRepository.claimUnprocessedEvents(any(), any(), any(), any(), anyInt()))
+                .thenReturn(Collections.singletonList(outboxEvent))
+                .thenReturn(Collections.singletonList(outboxEvent))
+                .thenReturn(Collections.emptyList());
+        stubLockedAccounts(senderAccount, receiverAccount);
+        stubBalanceUpdates();
+        when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        scheduler.start();
+
+        // Two full batches back to back, then idle polls spaced by the growing backoff
+        verify(outboxEventRepository, timeout(2000).atLeast(4)).claimUnprocessedEvents(any(), any(), any(), any(), anyInt());
+        assertEquals(2.0, meterRegistry.get("ledger.transfers.events.claimed").counter().count());
+
+        scheduler.stop();
+
+        assertFalse(scheduler.isRunning());
+        assertEquals(0.0, meterRegistry.get("ledger.transfers.batches.inflight").gauge().value());
+        Mockito.clearInvocations(outboxEventRepository);
+        verify(outboxEventRepository, after(100).never()).claimUnprocessedEvents(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Worker loop: Should wake an idle worker on signal in notify mode")
+    void shouldWakeIdleWorkerOnSignalInNotifyMode() {
+        // Fallback poll far in the future: only the signal can trigger the second claim
+        workSignal = new TransferWorkSignal("notify", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(scheduler, "workSignal", workSignal);
+        ReflectionTestUtils.setField(scheduler, "workerCount", 1);
+        when(outboxEventRepository.claimUnprocessedEvents(any(), any(), any(), any(), anyInt()))
+                .thenReturn(Collections.emptyList());
+
+        scheduler.start();
+        verify(outboxEventRepository, timeout(1000).times(1)).claimUnprocessedEvents(any(), any(), any(), any(), anyInt());
+        verify(outboxEventRepository, after(200).times(1)).claimUnprocessedEvents(any(), any(), any(), any(), anyInt());
+
+        workSignal.signal();
+
+        verify(outboxEventRepository, timeout(1000).times(2)).claimUnprocessedEvents(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should claim only the worker's shard range when sharding is enabled")
+    void shouldClaimOnlyOwnShardRangeWhenShardingEnabled() {
+        ReflectionTestUtils.setField(scheduler, "shardAssignment", new TransferShardAssignment(true, 1, 2));
+        when(outboxEventRepository.claimUnprocessedEventsInShardRange(any(), any(), any(), any(), anyInt(), anyInt(), anyInt()))
+                .thenReturn(Collections.emptyList());
+
+        scheduler.processBatchInTransaction(3);
+
+        // Node 1 of 2 owns shards [512, 1024); its 4th of 8 workers gets [704, 768)
+        verify(outboxEventRepository).claimUnprocessedEventsInShardRange(
+                eq("TransferRequested"), any(), startsWith("node-a/"), any(), eq(704), eq(768), eq(2000));
+        verify(outboxEventRepository, never()).claimUnprocessedEvents(any(), any(), any(), any(), anyInt());
     }
 
     @Test
@@ -148,10 +251,9 @@ class TransferEventSchedulerTest {
         OutboxEvent event1 = createOutboxEvent(key1, 1L, 2L, "10.00");
         OutboxEvent event2 = createOutboxEvent(key2, 1L, 2L, "20.00");
 
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Arrays.asList(event1, event2));
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiverAccount));
+        stubClaim(Arrays.asList(event1, event2));
+        stubLockedAccounts(senderAccount, receiverAccount);
+        stubBalanceUpdates();
 
         doThrow(new DataIntegrityViolationException("Batch failed"))
             .doAnswer(inv -> inv.getArgument(0))
@@ -163,37 +265,152 @@ class TransferEventSchedulerTest {
             throw new DataIntegrityViolationException("Individual duplicate");
         });
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         verify(transactionRepository, times(2)).saveAll(anyList());
         verify(transactionRepository, times(2)).save(any(Transaction.class));
 
         ArgumentCaptor<List<OutboxEvent>> failedCaptor = ArgumentCaptor.forClass(List.class);
-        verify(outboxEventRepository, times(2)).saveAll(failedCaptor.capture());
+        verify(outboxEventRepository).saveAll(failedCaptor.capture());
         
-        List<OutboxEvent> failedEvents = failedCaptor.getAllValues().get(1);
+        List<OutboxEvent> failedEvents = failedCaptor.getValue();
         assertTrue(failedEvents.stream().anyMatch(e -> e.getPayload().contains(key2.toString()) && e.getStatus() == OutboxEventStatus.FAILED));
     }
 
+    @Test
+    @DisplayName("Should net transfers on the same accounts into one delta per account")
+    void shouldNetBalancesIntoOneDeltaPerAccount() throws JsonProcessingException {
+        OutboxEvent first = createOutboxEvent(UUID.randomUUID(), 1L, 2L, "150.00");
+        OutboxEvent second = createOutboxEvent(UUID.randomUUID(), 1L, 2L, "100.00"); // Only 50.00 left after the first
+        OutboxEvent third = createOutboxEvent(UUID.randomUUID(), 2L, 1L, "30.00");
+
+        stubClaim(Arrays.asList(first, second, third));
+        stubLockedAccounts(senderAccount, receiverAccount);
+        stubBalanceUpdates();
+        when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        scheduler.processBatchInTransaction(0);
+
+        verify(accountRepository).applyBalanceDeltas(Map.of(1L, new BigDecimal("-120.00"), 2L, new BigDecimal("120.00")));
+        // One audit batch per outcome
+        verify(transactionAuditService).createAuditEvents(argThat(batch -> batch.size() == 2), eq("TransactionCompleted"));
+        verify(transactionAuditService).createAuditEvents(argThat(batch -> batch.size() == 1), eq("TransactionFailed"));
+        verify(transactionAuditService, never()).createAuditEvent(any(), any());
+        verify(accountRepository, never()).saveAll(any());
+        verify(outboxEventRepository).deleteAllInBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Should fail the batch when not every netted account row is updated")
+    void shouldFailBatchWhenBalanceUpdateCountDiffers() {
+        stubClaim(Collections.singletonList(outboxEvent));
+        stubLockedAccounts(senderAccount, receiverAccount);
+        when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(accountRepository.applyBalanceDeltas(anyMap()))
+                .thenReturn(List.of(new AccountBalanceUpdate(1L, new BigDecimal("100.00"), 1L, LocalDateTime.now())));
+
+        assertEquals(1, scheduler.processBatchInTransaction(0));
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(anyList());
+        verify(accountCache, never()).putAllAfterCommit(any());
+        verify(outboxEventRepository).releaseFailedLeasedEvents(any(), startsWith("node-a/"), any(), eq(5));
+    }
+
+    @Test
+    @DisplayName("Should write the committed balances and versions through to the account cache")
+    void shouldWriteBalancesThroughToAccountCache() {
+        stubClaim(Collections.singletonList(outboxEvent));
+        stubLockedAccounts(senderAccount, receiverAccount);
+        when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        LocalDateTime committedAt = LocalDateTime.of(2024, 5, 1, 10, 30);
+        when(accountRepository.applyBalanceDeltas(anyMap())).thenReturn(List.of(
+                new AccountBalanceUpdate(1L, new BigDecimal("100.00"), 3L, committedAt),
+                new AccountBalanceUpdate(2L, new BigDecimal("150.00"), 8L, committedAt)));
+
+        scheduler.processBatchInTransaction(0);
+
+        ArgumentCaptor<Collection<AccountResponse>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(accountCache).putAllAfterCommit(captor.capture());
+        Map<Long, AccountResponse> cached = captor.getValue().stream()
+                .collect(Collectors.toMap(AccountResponse::getId, Function.identity()));
+        assertEquals(new BigDecimal("100.00"), cached.get(1L).getBalance());
+        assertEquals(3L, cached.get(1L).getVersion());
+        assertEquals(new BigDecimal("150.00"), cached.get(2L).getBalance());
+        assertEquals(8L, cached.get(2L).getVersion());
+        assertEquals(committedAt, cached.get(2L).getUpdatedAt());
+        assertEquals(2L, cached.get(2L).getUserId());
+    }
+
+    @Test
+    @DisplayName("Should credit a striped receiver through one slot without locking its account row")
+    void shouldCreditStripedReceiverThroughSlot() {
+        ReflectionTestUtils.setField(scheduler, "stripingEnabled", true);
+        receiverAccount.stripe(4);
+        stubClaim(Collections.singletonList(outboxEvent));
+        when(accountRepository.findStripedByIds(Set.of(2L))).thenReturn(List.of(receiverAccount));
+        when(accountRepository.findAllByIdForUpdate(new Long[]{1L})).thenReturn(List.of(senderAccount));
+        when(balanceSlotRepository.lockSlots(anyList())).thenAnswer(inv -> {
+            List<BalanceSlotKey> keys = inv.getArgument(0);
+            return Map.of(keys.get(0), BigDecimal.ZERO);
+        });
+        stubBalanceUpdates();
+        when(balanceSlotRepository.applySlotDeltas(anyMap())).thenReturn(1);
+        when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        scheduler.processBatchInTransaction(0);
+
+        ArgumentCaptor<List<BalanceSlotKey>> slotCaptor = ArgumentCaptor.forClass(List.class);
+        verify(balanceSlotRepository).lockSlots(slotCaptor.capture());
+        BalanceSlotKey creditedSlot = slotCaptor.getValue().get(0);
+        assertEquals(1, slotCaptor.getValue().size());
+        assertEquals(2L, creditedSlot.accountId());
+        assertTrue(creditedSlot.slot() >= 0 && creditedSlot.slot() < 4);
+
+        verify(accountRepository).applyBalanceDeltas(Map.of(1L, new BigDecimal("-100.00")));
+        verify(balanceSlotRepository).applySlotDeltas(Map.of(creditedSlot, new BigDecimal("100.00")));
+    }
+
+    @Test
+    @DisplayName("Should lock every slot of a striped sender and debit the row before the slots")
+    void shouldDebitStripedSenderAcrossSlots() throws JsonProcessingException {
+        senderAccount.stripe(2);
+        BalanceSlotKey slot0 = new BalanceSlotKey(1L, 0);
+        BalanceSlotKey slot1 = new BalanceSlotKey(1L, 1);
+        OutboxEvent largeDebit = createOutboxEvent(UUID.randomUUID(), 1L, 2L, "260.00");
+
+        stubClaim(Collections.singletonList(largeDebit));
+        stubLockedAccounts(senderAccount, receiverAccount);
+        when(balanceSlotRepository.lockSlots(List.of(slot0, slot1)))
+                .thenReturn(Map.of(slot0, new BigDecimal("30.00"), slot1, new BigDecimal("40.00")));
+        stubBalanceUpdates();
+        when(balanceSlotRepository.applySlotDeltas(anyMap())).thenAnswer(inv -> ((Map<?, ?>) inv.getArgument(0)).size());
+        when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        scheduler.processBatchInTransaction(0);
+
+        // 200.00 on the row + 30.00 + 40.00 in slots covers 260.00
+        verify(accountRepository).applyBalanceDeltas(Map.of(1L, new BigDecimal("-200.00"), 2L, new BigDecimal("260.00")));
+        verify(balanceSlotRepository).applySlotDeltas(Map.of(slot0, new BigDecimal("-30.00"), slot1, new BigDecimal("-30.00")));
+        verify(transactionAuditService).createAuditEvents(argThat(batch -> batch.size() == 1), eq("TransactionCompleted"));
+    }
+
     @Test
     @DisplayName("Should handle missing transaction in execution phase")
     void shouldHandleMissingTransactionInExecutionPhase() {
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(outboxEvent));
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiverAccount));
+        stubClaim(Collections.singletonList(outboxEvent));
+        stubLockedAccounts(senderAccount, receiverAccount);
         
         when(transactionRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         verify(outboxEvent).setStatus(OutboxEventStatus.FAILED);
         verify(outboxEvent).setRetryCount(5);
         
         ArgumentCaptor<List<OutboxEvent>> failedCaptor = ArgumentCaptor.forClass(List.class);
-        verify(outboxEventRepository, times(2)).saveAll(failedCaptor.capture());
+        verify(outboxEventRepository).saveAll(failedCaptor.capture());
         
-        List<OutboxEvent> failedEvents = failedCaptor.getAllValues().get(1);
+        List<OutboxEvent> failedEvents = failedCaptor.getValue();
         assertEquals(1, failedEvents.size());
         assertEquals(outboxEvent, failedEvents.get(0));
     }
@@ -205,10 +422,9 @@ class TransferEventSchedulerTest {
         OutboxEvent event1 = createOutboxEvent(idempotencyKey, 1L, 2L, "10.00");
         OutboxEvent event2 = createOutboxEvent(idempotencyKey, 1L, 2L, "10.00"); // Duplicate
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Arrays.asList(event1, event2));
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiverAccount));
+        stubClaim(Arrays.asList(event1, event2));
+        stubLockedAccounts(senderAccount, receiverAccount);
+        stubBalanceUpdates();
         
         // Simulate Batch Failure due to duplicate key
         doThrow(new DataIntegrityViolationException("Duplicate key in batch"))
@@ -221,15 +437,15 @@ class TransferEventSchedulerTest {
             .thenThrow(new DataIntegrityViolationException("Duplicate key individual")); // Second call fail
 
         // Act
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         // Assert
         verify(transactionRepository, times(2)).save(any(Transaction.class));
         
         ArgumentCaptor<List<OutboxEvent>> failedCaptor = ArgumentCaptor.forClass(List.class);
-        verify(outboxEventRepository, times(2)).saveAll(failedCaptor.capture());
+        verify(outboxEventRepository).saveAll(failedCaptor.capture());
         
-        List<OutboxEvent> failedEvents = failedCaptor.getAllValues().get(1);
+        List<OutboxEvent> failedEvents = failedCaptor.getValue();
         assertEquals(1, failedEvents.size());
         assertEquals(OutboxEventStatus.FAILED, failedEvents.get(0).getStatus());
         
@@ -237,41 +453,43 @@ class TransferEventSchedulerTest {
     }
 
     @Test
-    @DisplayName("Should shutdown executor service gracefully")
-    void shouldShutdownGracefully() throws InterruptedException {
-        when(executorService.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(true);
-        scheduler.shutdown();
-        verify(executorService).shutdown();
-        verify(executorService).awaitTermination(5, TimeUnit.SECONDS);
-        verify(executorService, never()).shutdownNow();
-    }
+    @DisplayName("Should charge a single event whose transaction fails a backed-off retry")
+    void shouldChargeSingleEventWhenTransactionFails() {
+        stubClaim(Collections.singletonList(outboxEvent));
+        doThrow(new RuntimeException("Thread error")).when(transactionTemplate).execute(any());
+        LocalDateTime before = LocalDateTime.now();
 
-    @Test
-    @DisplayName("Should force shutdown if termination times out")
-    void shouldForceShutdownOnTimeout() throws InterruptedException {
-        when(executorService.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(false);
-        scheduler.shutdown();
-        verify(executorService).shutdown();
-        verify(executorService).awaitTermination(5, TimeUnit.SECONDS);
-        verify(executorService).shutdownNow();
+        assertEquals(1, assertDoesNotThrow(() -> scheduler.processBatchInTransaction(0)));
+
+        // First retry backs off 2.5-5s (half of the 5s base delay is jitter)
+        verify(outboxEventRepository).releaseFailedLeasedEvents(eq(new UUID[]{outboxEvent.getId()}), startsWith("node-a/"),
+                argThat(nextAttemptAt -> nextAttemptAt.isAfter(before.plusSeconds(2))), eq(5));
+        assertEquals(0.0, meterRegistry.get("ledger.transfers.batches.inflight").gauge().value());
     }
 
     @Test
-    @DisplayName("Should handle interruption during shutdown")
-    void shouldHandleInterruptionDuringShutdown() throws InterruptedException {
-        when(executorService.awaitTermination(anyLong(), any(TimeUnit.class))).thenThrow(new InterruptedException());
-        scheduler.shutdown();
-        verify(executorService).shutdownNow();
+    @DisplayName("Should contain claim failures and leave the rows to their lease")
+    void shouldContainClaimFailure() {
+        when(outboxEventRepository.claimUnprocessedEvents(any(), any(), any(), any(), anyInt()))
+                .thenThrow(new QueryTimeoutException("DB Timeout"));
+
+        assertEquals(0, assertDoesNotThrow(() -> scheduler.processBatchInTransaction(0)));
+        verify(transactionTemplate, never()).execute(any());
+        assertEquals(0.0, meterRegistry.get("ledger.transfers.batches.inflight").gauge().value());
     }
 
     @Test
-    @DisplayName("Should handle exception inside parallel thread execution")
-    void shouldHandleExceptionInParallelThread() {
-        doThrow(new RuntimeException("Thread error")).when(transactionTemplate).execute(any());
-        scheduler.scheduleTransferProcessing();
-        verify(executorService, times(8)).submit(runnableCaptor.capture());
-        Runnable task = runnableCaptor.getAllValues().get(0);
-        assertDoesNotThrow(task::run);
+    @DisplayName("Should skip claimed events whose lease another claim has taken over")
+    void shouldSkipEventsNoLongerLeased() {
+        stubClaim(Collections.singletonList(outboxEvent));
+        doReturn(Collections.emptyList()).when(outboxEventRepository).lockLeasedEvents(any(), any());
+
+        assertEquals(1, scheduler.processBatchInTransaction(0));
+
+        verify(accountRepository, never()).findAllByIdForUpdate(any(Long[].class));
+        verify(outboxEventRepository, never()).deleteAllInBatch(anyList());
+        verify(outboxEventRepository, never()).releaseLeasedEvents(any(), any(), any());
+        verify(outboxEventRepository, never()).releaseFailedLeasedEvents(any(), any(), any(), anyInt());
     }
 
     @Test
@@ -280,10 +498,9 @@ class TransferEventSchedulerTest {
         String payload = "{\"senderAccountId\": 1, \"receiverAccountId\": 2, \"amount\": \"100.00\"}";
         OutboxEvent invalidEvent = spy(new OutboxEvent("Transfer", "123", "TransferRequested", payload));
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(invalidEvent));
+        stubClaim(Collections.singletonList(invalidEvent));
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         verify(invalidEvent).setStatus(OutboxEventStatus.FAILED);
         verify(transactionRepository, never()).saveAll(any());
@@ -293,14 +510,12 @@ class TransferEventSchedulerTest {
     @DisplayName("Should handle insufficient balance correctly")
     void shouldHandleInsufficientBalance() {
         senderAccount.adjustBalance(new BigDecimal("50.00"));
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(outboxEvent));
+        stubClaim(Collections.singletonList(outboxEvent));
         
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiverAccount));
+        stubLockedAccounts(senderAccount, receiverAccount);
         when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         ArgumentCaptor<List<Transaction>> transactionCaptor = ArgumentCaptor.forClass(List.class);
         verify(transactionRepository, times(2)).saveAll(transactionCaptor.capture());
@@ -316,10 +531,9 @@ class TransferEventSchedulerTest {
         OutboxEvent invalidEvent = new OutboxEvent("Transfer", "123", "TransferRequested", "{invalid-json");
         OutboxEvent spyEvent = spy(invalidEvent);
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(spyEvent));
+        stubClaim(Collections.singletonList(spyEvent));
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         verify(spyEvent).setStatus(OutboxEventStatus.FAILED);
         verify(transactionRepository, never()).saveAll(any());
@@ -330,14 +544,12 @@ class TransferEventSchedulerTest {
     void shouldMarkEventAsFailedWhenAccountIsBlocked() {
         senderAccount.block();
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(outboxEvent));
+        stubClaim(Collections.singletonList(outboxEvent));
         
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiverAccount));
+        stubLockedAccounts(senderAccount, receiverAccount);
         when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
         verify(transactionRepository, times(2)).saveAll(captor.capture());
@@ -351,47 +563,45 @@ class TransferEventSchedulerTest {
     @Test
     @DisplayName("Should handle generic processing error (Runtime Exception)")
     void shouldHandleGenericProcessingError() {
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(outboxEvent));
+        stubClaim(Collections.singletonList(outboxEvent));
         
         Account sender = mock(Account.class);
         when(sender.getId()).thenReturn(1L);
         Account receiver = mock(Account.class);
         when(receiver.getId()).thenReturn(2L);
         
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(sender));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiver));
+        stubLockedAccounts(sender, receiver);
         
         when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
         
-        doThrow(new RuntimeException("Generic Error")).when(sender).withdraw(any());
+        doThrow(new RuntimeException("Generic Error")).when(sender).balanceAfterWithdraw(any(), any());
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         assertEquals(1, outboxEvent.getRetryCount());
         assertEquals(OutboxEventStatus.UNPROCESSED, outboxEvent.getStatus());
+        // First retry backs off 2.5-5s (half of the 5s base delay is jitter)
+        assertTrue(outboxEvent.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(2)));
     }
 
     @Test
     @DisplayName("Should handle DataIntegrityViolationException as cause (Nested Exception)")
     void shouldHandleDataIntegrityViolationAsCause() {
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(outboxEvent));
+        stubClaim(Collections.singletonList(outboxEvent));
         
         Account sender = mock(Account.class);
         when(sender.getId()).thenReturn(1L);
         Account receiver = mock(Account.class);
         when(receiver.getId()).thenReturn(2L);
         
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(sender));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiver));
+        stubLockedAccounts(sender, receiver);
         
         when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
         
         RuntimeException nestedException = new RuntimeException("Wrapper", new DataIntegrityViolationException("Duplicate"));
-        doThrow(nestedException).when(sender).withdraw(any());
+        doThrow(nestedException).when(sender).balanceAfterWithdraw(any(), any());
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         assertEquals(OutboxEventStatus.FAILED, outboxEvent.getStatus());
     }
@@ -400,31 +610,22 @@ class TransferEventSchedulerTest {
     @DisplayName("Should skip event if status is FAILED")
     void shouldSkipEventIfStatusIsFailed() {
         outboxEvent.setStatus(OutboxEventStatus.FAILED);
-        
-        Account sender = mock(Account.class);
-        when(sender.getId()).thenReturn(1L);
-        Account receiver = mock(Account.class);
-        when(receiver.getId()).thenReturn(2L);
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(sender));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiver));
 
-        // Invoke processBatchLogic directly to bypass status reset in processNextBatch
+        // Invoke processBatchLogic directly: a claim would return the row PROCESSING
         ReflectionTestUtils.invokeMethod(scheduler, "processBatchLogic", Collections.singletonList(outboxEvent));
 
         verify(transactionRepository, never()).saveAll(any());
-        verify(sender, never()).withdraw(any());
+        verify(accountRepository, never()).findAllByIdForUpdate(any(Long[].class));
     }
 
     @Test
     @DisplayName("Should handle missing account in createTransactionFromEvent")
     void shouldHandleMissingAccountInCreateTransaction() throws JsonProcessingException {
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(outboxEvent));
+        stubClaim(Collections.singletonList(outboxEvent));
         
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.empty());
+        stubLockedAccounts();
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         assertEquals(OutboxEventStatus.FAILED, outboxEvent.getStatus());
         verify(transactionRepository, never()).saveAll(any());
@@ -436,10 +637,9 @@ class TransferEventSchedulerTest {
         OutboxEvent malformedEvent = new OutboxEvent("Transfer", "1", "TransferRequested", "{invalid-json");
         ReflectionTestUtils.setField(malformedEvent, "id", UUID.randomUUID());
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(malformedEvent));
+        stubClaim(Collections.singletonList(malformedEvent));
 
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         assertEquals(OutboxEventStatus.FAILED, malformedEvent.getStatus());
     }
@@ -451,68 +651,135 @@ class TransferEventSchedulerTest {
         OutboxEvent invalidUuidEvent = new OutboxEvent("Transfer", "1", "TransferRequested", payload);
         ReflectionTestUtils.setField(invalidUuidEvent, "id", UUID.randomUUID());
         
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(invalidUuidEvent));
+        stubClaim(Collections.singletonList(invalidUuidEvent));
         
-        Account sender = mock(Account.class);
-        when(sender.getId()).thenReturn(1L);
-        Account receiver = mock(Account.class);
-        when(receiver.getId()).thenReturn(2L);
-        
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(sender));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(receiver));
-
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
         assertEquals(OutboxEventStatus.FAILED, invalidUuidEvent.getStatus());
     }
     
     @Test
-    @DisplayName("Should cover idempotency key null check in processEvent")
-    void shouldCoverIdempotencyKeyNullCheckInProcessEvent() throws JsonProcessingException {
-        // Create mocks for this specific test to avoid NotAMockException
-        Account mockSender = mock(Account.class);
-        when(mockSender.getId()).thenReturn(1L);
-        Account mockReceiver = mock(Account.class);
-        when(mockReceiver.getId()).thenReturn(2L);
-        
-        JsonNode validNode = new ObjectMapper().readTree(outboxEvent.getPayload());
-        JsonNode invalidNode = new ObjectMapper().readTree("{\"senderAccountId\": 1, \"receiverAccountId\": 2, \"amount\": 100}"); // No key
-        
-        // Stub readTree to return validNode first (for preparation), then invalidNode (for execution)
-        doReturn(validNode).doReturn(invalidNode).when(objectMapper).readTree(anyString());
-        
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(outboxEvent));
-        
-        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(mockSender));
-        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(mockReceiver));
-        
+    @DisplayName("Should read typed transfer columns without parsing the JSON payload")
+    void shouldReadTypedColumnsWithoutParsingPayload() throws JsonProcessingException {
+        OutboxEvent typedEvent = new OutboxEvent("Transfer", idempotencyKey.toString(), "TransferRequested",
+                new TransferDetails(1L, 2L, new BigDecimal("100.00"), idempotencyKey));
+        ReflectionTestUtils.setField(typedEvent, "id", UUID.randomUUID());
+
+        stubClaim(Collections.singletonList(typedEvent));
+        stubLockedAccounts(senderAccount, receiverAccount);
+        stubBalanceUpdates();
         when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
 
-        // Act
-        ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch");
+        scheduler.processBatchInTransaction(0);
 
-        // Assert
-        verify(outboxEvent).setStatus(OutboxEventStatus.FAILED);
-        // Verify on the MOCK, not the real object
-        verify(mockSender, never()).withdraw(any());
+        verify(accountRepository).applyBalanceDeltas(Map.of(1L, new BigDecimal("-100.00"), 2L, new BigDecimal("100.00")));
+        // Managed entities are not mutated: balances are written by the set-based update only
+        assertEquals(new BigDecimal("200.00"), senderAccount.getBalance());
+        verify(objectMapper, never()).readValue(anyString(), eq(TransferRequestedEvent.class));
+        verify(objectMapper, never()).readTree(anyString());
+    }
+
+    @Test
+    @DisplayName("Should mark typed event as FAILED when a transfer column is missing")
+    void shouldMarkTypedEventAsFailedWhenColumnMissing() {
+        OutboxEvent incompleteEvent = new OutboxEvent("Transfer", idempotencyKey.toString(), "TransferRequested",
+                new TransferDetails(1L, 2L, null, idempotencyKey));
+
+        stubClaim(Collections.singletonList(incompleteEvent));
+
+        scheduler.processBatchInTransaction(0);
+
+        assertEquals(OutboxEventStatus.FAILED, incompleteEvent.getStatus());
+        verify(transactionRepository, never()).saveAll(any());
     }
     
     @Test
-    @DisplayName("Should log and rethrow critical error in batch logic")
-    void shouldLogAndRethrowCriticalErrorInBatch() {
+    @DisplayName("Should roll back and release the batch without a retry charge on a transient database error")
+    void shouldReleaseBatchUnchargedOnTransientError() throws JsonProcessingException {
         // Arrange
-        when(outboxEventRepository.findAndLockUnprocessedEvents(any(), any(), any(), any(PageRequest.class)))
-                .thenReturn(Collections.singletonList(outboxEvent));
+        OutboxEvent other = createOutboxEvent(UUID.randomUUID(), 2L, 1L, "10.00");
+        stubClaim(Arrays.asList(outboxEvent, other));
         
         // Force a critical error (e.g. DB timeout) during account fetch
-        when(accountRepository.findByIdForUpdate(any())).thenThrow(new QueryTimeoutException("DB Timeout"));
+        when(accountRepository.findAllByIdForUpdate(any(Long[].class))).thenThrow(new QueryTimeoutException("DB Timeout"));
 
-        // Act & Assert
-        assertThrows(QueryTimeoutException.class, () -> 
-            ReflectionTestUtils.invokeMethod(scheduler, "processNextBatch")
-        );
+        // Act
+        assertEquals(2, scheduler.processBatchInTransaction(0));
+
+        // Assert
+        verify(outboxEventRepository, never()).deleteAllInBatch(anyList());
+        // The timeout says nothing about the rows: the batch is not split, and no row is charged
+        verify(accountRepository, times(1)).findAllByIdForUpdate(any(Long[].class));
+        verify(outboxEventRepository).releaseLeasedEvents(eq(new UUID[]{outboxEvent.getId(), other.getId()}), startsWith("node-a/"),
+                argThat(nextAttemptAt -> nextAttemptAt.isAfter(LocalDateTime.now())));
+        verify(outboxEventRepository, never()).releaseFailedLeasedEvents(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should isolate the event that rolls its batch back and commit the others")
+    void shouldIsolateFailingEventAndCommitTheOthers() throws JsonProcessingException {
+        UUID badKey = UUID.randomUUID();
+        OutboxEvent first = createOutboxEvent(UUID.randomUUID(), 1L, 2L, "10.00");
+        OutboxEvent second = createOutboxEvent(UUID.randomUUID(), 1L, 2L, "10.00");
+        OutboxEvent bad = createOutboxEvent(badKey, 1L, 2L, "10.00");
+        OutboxEvent fourth = createOutboxEvent(UUID.randomUUID(), 1L, 2L, "10.00");
+        stubClaim(Arrays.asList(first, second, bad, fourth));
+        stubLockedAccounts(senderAccount, receiverAccount);
+        stubBalanceUpdates();
+        when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        // Fails whichever transaction carries the bad event, e.g. a constraint violated only at commit
+        doAnswer(inv -> {
+            List<Transaction> completed = inv.getArgument(0);
+            if (completed.stream().anyMatch(tx -> tx.getIdempotencyKey().equals(badKey))) {
+                throw new IllegalStateException("Constraint violated");
+            }
+            return null;
+        }).when(transactionAuditService).createAuditEvents(anyList(), eq("TransactionCompleted"));
+
+        assertEquals(4, scheduler.processBatchInTransaction(0));
+
+        ArgumentCaptor<List<OutboxEvent>> deletedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository, times(2)).deleteAllInBatch(deletedCaptor.capture());
+        List<OutboxEvent> deleted = deletedCaptor.getAllValues().stream().flatMap(List::stream).toList();
+        assertEquals(List.of(first, second, fourth), deleted);
+        // Only the bad event pays a retry; no row is released uncharged, since every other one committed
+        verify(outboxEventRepository).releaseFailedLeasedEvents(eq(new UUID[]{bad.getId()}), startsWith("node-a/"), any(), eq(5));
+        verify(outboxEventRepository, never()).releaseLeasedEvents(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should lease every claim under its own token")
+    void shouldLeaseEveryClaimUnderItsOwnToken() {
+        when(outboxEventRepository.claimUnprocessedEvents(any(), any(), any(), any(), anyInt()))
+                .thenReturn(Collections.emptyList());
+
+        scheduler.processBatchInTransaction(0);
+        scheduler.processBatchInTransaction(0);
+
+        ArgumentCaptor<String> tokenCaptor = ArgumentCaptor.forClass(String.class);
+        verify(outboxEventRepository, times(2)).claimUnprocessedEvents(any(), any(), tokenCaptor.capture(), any(), anyInt());
+        assertTrue(tokenCaptor.getAllValues().stream().allMatch(token -> token.startsWith("node-a/")));
+        assertNotEquals(tokenCaptor.getAllValues().get(0), tokenCaptor.getAllValues().get(1));
+    }
+
+    private void stubClaim(List<OutboxEvent> events) {
+        claimedEvents = events;
+        when(outboxEventRepository.claimUnprocessedEvents(any(), any(), any(), any(), anyInt())).thenReturn(events);
+    }
+
+    private void stubLockedAccounts(Account... accounts) {
+        when(accountRepository.findAllByIdForUpdate(any(Long[].class))).thenReturn(List.of(accounts));
+    }
+
+    private void runTransactionCallbacks() {
+        lenient().doAnswer(inv -> inv.<TransactionCallback<Object>>getArgument(0).doInTransaction(transactionStatus))
+                .when(transactionTemplate).execute(any());
+    }
+
+    private void stubBalanceUpdates() {
+        when(accountRepository.applyBalanceDeltas(anyMap())).thenAnswer(inv -> inv.<Map<Long, BigDecimal>>getArgument(0).entrySet().stream()
+                .map(delta -> new AccountBalanceUpdate(delta.getKey(), delta.getValue(), 1L, LocalDateTime.now()))
+                .toList());
     }
 
     private OutboxEvent createOutboxEvent(UUID idempotencyKey, Long senderId, Long receiverId, String amount) throws JsonProcessingException {
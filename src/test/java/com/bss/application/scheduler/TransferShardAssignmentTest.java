@@ -0,0 +1,46 @@
+package com.bss.application.scheduler;
+
+import com.bss.domain.outbox.TransferShards;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransferShardAssignmentTest {
+
+    @Test
+    @DisplayName("Should split the shard space into contiguous, disjoint ranges covering every shard")
+    void shouldCoverShardSpaceWithoutOverlap() {
+        int nodeCount = 3;
+        int workerCount = 8;
+        int expectedFrom = 0;
+
+        for (int node = 0; node < nodeCount; node++) {
+            TransferShardAssignment assignment = new TransferShardAssignment(true, node, nodeCount);
+            for (int worker = 0; worker < workerCount; worker++) {
+                TransferShardAssignment.ShardRange range = assignment.rangeFor(worker, workerCount);
+                assertEquals(expectedFrom, range.from());
+                assertFalse(range.to() <= range.from());
+                expectedFrom = range.to();
+            }
+        }
+
+        assertEquals(TransferShards.SHARD_COUNT, expectedFrom);
+    }
+
+    @Test
+    @DisplayName("Should reject a node index outside the configured node count")
+    void shouldRejectInvalidNodeIndex() {
+        assertThrows(IllegalArgumentException.class, () -> new TransferShardAssignment(true, 2, 2));
+    }
+
+    @Test
+    @DisplayName("Should reject more workers than shards")
+    void shouldRejectMoreWorkersThanShards() {
+        TransferShardAssignment assignment = new TransferShardAssignment(true, 0, 256);
+
+        assertThrows(IllegalStateException.class, () -> assignment.rangeFor(0, 8));
+    }
+}
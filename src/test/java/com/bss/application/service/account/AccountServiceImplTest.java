@@ -8,6 +8,8 @@ import com.bss.application.event.account.AccountCreatedEvent;
 import com.bss.application.exception.JsonSerializationException;
 import com.bss.application.exception.ResourceNotFoundException;
 import com.bss.domain.account.Account;
+import com.bss.domain.account.AccountBalanceSlot;
+import com.bss.domain.account.AccountBalanceSlotRepository;
 import com.bss.domain.account.AccountRepository;
 import com.bss.domain.account.AccountStatus;
 import com.bss.domain.outbox.OutboxEvent;
@@ -15,6 +17,8 @@ import com.bss.domain.outbox.OutboxEventRepository;
 import com.bss.domain.user.Role;
 import com.bss.domain.user.User;
 import com.bss.domain.user.UserRepository;
+import com.bss.infrastructure.redis.AccountCache;
+import com.bss.infrastructure.redis.NegativeCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,6 +26,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -35,6 +40,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,11 +53,17 @@ class AccountServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
     @Mock
+    private AccountBalanceSlotRepository balanceSlotRepository;
+    @Mock
     private UserRepository userRepository;
     @Mock
     private AccountMapper accountMapper;
     @Mock
     private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private AccountCache accountCache;
+    @Mock
+    private NegativeCache negativeCache;
     @Spy
     private ObjectMapper objectMapper = new ObjectMapper();
 
@@ -86,6 +98,7 @@ class AccountServiceImplTest {
         
         // Verify Outbox Event is saved instead of direct Kafka call
         verify(outboxEventRepository).save(any(OutboxEvent.class));
+        verify(negativeCache).evictAfterCommit("accounts", List.of(100L));
     }
 
     @Test
@@ -216,6 +229,23 @@ class AccountServiceImplTest {
         // Assert
         assertNotNull(result);
         verify(accountMapper).toAccountResponse(account);
+        verify(accountCache).put(response);
+    }
+
+    @Test
+    @DisplayName("findAccountById should serve a cached account without touching the database")
+    void findAccountById_shouldReturnCachedAccount() {
+        // Arrange
+        AccountResponse cached = new AccountResponse(1L, user.getId(), BigDecimal.TEN, AccountStatus.ACTIVE, LocalDateTime.now(), LocalDateTime.now());
+        when(accountCache.get(1L)).thenReturn(cached);
+
+        // Act
+        AccountResponse result = accountService.findAccountById(1L);
+
+        // Assert
+        assertSame(cached, result);
+        verifyNoInteractions(accountRepository);
+        verify(accountCache, never()).put(any());
     }
 
     @Test
@@ -228,6 +258,16 @@ class AccountServiceImplTest {
         assertThrows(ResourceNotFoundException.class, () -> 
             accountService.findAccountById(1L)
         );
+        verify(negativeCache).putMissing("accounts", 1L);
+    }
+
+    @Test
+    @DisplayName("findAccountById should not query the repository for an id recently found missing")
+    void findAccountById_shouldSkipRepositoryForRecentlyMissingAccount() {
+        when(negativeCache.isMissing("accounts", 1L)).thenReturn(true);
+
+        assertThrows(ResourceNotFoundException.class, () -> accountService.findAccountById(1L));
+        verify(accountRepository, never()).findById(any());
     }
 
     // Test for findAllAccounts
@@ -279,6 +319,7 @@ class AccountServiceImplTest {
         verify(spyAccount).adjustBalance(newBalance); // Verify the business method was called
         verify(accountRepository).save(spyAccount);
         assertEquals(newBalance, result.getBalance());
+        verify(accountCache).evictAfterCommit(spyAccount.getId(), 1L); // Unversioned row commits as version 1
     }
 
     @Test
@@ -342,6 +383,27 @@ class AccountServiceImplTest {
 
         // Assert
         verify(accountRepository).delete(account);
+        verify(accountCache).evictAfterCommit(account.getId(), 1L);
+        verify(balanceSlotRepository, never()).deleteByAccountId(any());
+    }
+
+    @Test
+    @DisplayName("deleteAccount should delete the balance slots of a striped account before the account")
+    void deleteAccount_shouldDeleteSlotsOfStripedAccount() {
+        // Arrange
+        Long accountId = 1L;
+        Account account = new Account(user, BigDecimal.TEN);
+        ReflectionTestUtils.setField(account, "id", accountId);
+        account.stripe(4);
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+
+        // Act
+        accountService.deleteAccount(accountId);
+
+        // Assert
+        InOrder inOrder = inOrder(balanceSlotRepository, accountRepository);
+        inOrder.verify(balanceSlotRepository).deleteByAccountId(accountId);
+        inOrder.verify(accountRepository).delete(account);
     }
 
     @Test
@@ -357,4 +419,64 @@ class AccountServiceImplTest {
         );
         verify(accountRepository, never()).delete(any());
     }
+
+    // Tests for stripeAccount
+    @Test
+    @DisplayName("stripeAccount should mark the account as striped and create empty slots")
+    void stripeAccount_shouldCreateSlots() {
+        // Arrange
+        Account account = new Account(user, BigDecimal.TEN);
+        ReflectionTestUtils.setField(account, "id", 1L);
+        AccountResponse response = new AccountResponse(1L, user.getId(), BigDecimal.TEN, AccountStatus.ACTIVE, LocalDateTime.now(), LocalDateTime.now());
+
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.save(account)).thenReturn(account);
+        when(accountMapper.toAccountResponse(account)).thenReturn(response);
+        when(balanceSlotRepository.sumBalanceByAccountId(1L)).thenReturn(BigDecimal.ZERO);
+
+        // Act
+        AccountResponse result = accountService.stripeAccount(1L, 4);
+
+        // Assert
+        assertTrue(account.isStriped());
+        ArgumentCaptor<List<AccountBalanceSlot>> slotsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(balanceSlotRepository).saveAll(slotsCaptor.capture());
+        assertEquals(4, slotsCaptor.getValue().size());
+        assertEquals(0, BigDecimal.TEN.compareTo(result.getBalance()));
+    }
+
+    @Test
+    @DisplayName("findAccountById should add the slot balances of a striped account")
+    void findAccountById_shouldSumSlotsOfStripedAccount() {
+        // Arrange
+        Account account = new Account(user, BigDecimal.TEN);
+        ReflectionTestUtils.setField(account, "id", 1L);
+        account.stripe(2);
+        AccountResponse response = new AccountResponse(1L, user.getId(), BigDecimal.TEN, AccountStatus.ACTIVE, LocalDateTime.now(), LocalDateTime.now());
+
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountMapper.toAccountResponse(account)).thenReturn(response);
+        when(balanceSlotRepository.sumBalanceByAccountId(1L)).thenReturn(new BigDecimal("32.50"));
+
+        // Act
+        AccountResponse result = accountService.findAccountById(1L);
+
+        // Assert
+        assertEquals(new BigDecimal("42.50"), result.getBalance());
+        verify(accountCache, never()).put(any());
+    }
+
+    @Test
+    @DisplayName("inactivateAccount should reject a striped account whose slots still hold money")
+    void inactivateAccount_shouldRejectStripedAccountWithSlotBalance() {
+        // Arrange
+        Account account = new Account(user, BigDecimal.ZERO);
+        account.stripe(2);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(balanceSlotRepository.sumBalanceByAccountId(1L)).thenReturn(BigDecimal.ONE);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> accountService.inactivateAccount(1L));
+        verify(accountRepository, never()).save(any());
+    }
 }
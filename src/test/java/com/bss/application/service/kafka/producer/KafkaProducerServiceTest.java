@@ -3,27 +3,40 @@ package com.bss.application.service.kafka.producer;
 import com.bss.application.event.account.AccountCreatedEvent;
 import com.bss.application.event.transactions.TransactionEvent;
 import com.bss.application.event.transactions.TransferRequestedEvent;
+import com.bss.domain.outbox.TransferDetails;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaOperations;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,13 +45,16 @@ class KafkaProducerServiceTest {
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
-    @InjectMocks
+    @Mock
+    private KafkaTemplate<String, String> rawKafkaTemplate;
+
     private KafkaProducerService kafkaProducerService;
 
     private CompletableFuture<SendResult<String, Object>> future;
 
     @BeforeEach
     void setUp() {
+        kafkaProducerService = new KafkaProducerService(kafkaTemplate, rawKafkaTemplate, Optional.empty(), TransactionEventKey.SENDER_ACCOUNT);
         // This setup is flexible for both success and failure scenarios
         future = new CompletableFuture<>();
     }
@@ -50,13 +66,13 @@ class KafkaProducerServiceTest {
     void sendTransactionEvent_shouldCallKafkaTemplateCorrectly() {
         // Arrange
         TransactionEvent event = new TransactionEvent(1L, 10L, 20L, BigDecimal.TEN, LocalDateTime.now(), UUID.randomUUID());
-        when(kafkaTemplate.send(eq("transactions"), any(TransactionEvent.class))).thenReturn(future);
+        when(kafkaTemplate.send(eq("transactions"), any(), any(TransactionEvent.class))).thenReturn(future);
 
         // Act
         kafkaProducerService.sendTransactionEvent(event);
 
         // Assert
-        verify(kafkaTemplate).send("transactions", event);
+        verify(kafkaTemplate).send("transactions", "10", event); // Keyed by sender account
     }
 
     @Test
@@ -64,7 +80,7 @@ class KafkaProducerServiceTest {
     void sendTransactionEvent_shouldHandleSuccessCallback() {
         // Arrange
         TransactionEvent event = new TransactionEvent(1L, 10L, 20L, BigDecimal.TEN, LocalDateTime.now(), UUID.randomUUID());
-        when(kafkaTemplate.send(eq("transactions"), any(TransactionEvent.class))).thenReturn(future);
+        when(kafkaTemplate.send(eq("transactions"), any(), any(TransactionEvent.class))).thenReturn(future);
         
         SendResult<String, Object> sendResult = mock(SendResult.class);
         RecordMetadata metadata = mock(RecordMetadata.class);
@@ -87,7 +103,7 @@ class KafkaProducerServiceTest {
     void sendTransactionEvent_shouldHandleFailureCallback() {
         // Arrange
         TransactionEvent event = new TransactionEvent(1L, 10L, 20L, BigDecimal.TEN, LocalDateTime.now(), UUID.randomUUID());
-        when(kafkaTemplate.send(eq("transactions"), any(TransactionEvent.class))).thenReturn(future);
+        when(kafkaTemplate.send(eq("transactions"), any(), any(TransactionEvent.class))).thenReturn(future);
 
         // Act
         kafkaProducerService.sendTransactionEvent(event);
@@ -113,13 +129,13 @@ class KafkaProducerServiceTest {
     void sendAccountCreatedEvent_shouldCallKafkaTemplateCorrectly() {
         // Arrange
         AccountCreatedEvent event = new AccountCreatedEvent(1L, 10L, "John Doe", "john.doe@example.com", LocalDateTime.now());
-        when(kafkaTemplate.send(eq("accounts"), any(AccountCreatedEvent.class))).thenReturn(future);
+        when(kafkaTemplate.send(eq("accounts"), any(), any(AccountCreatedEvent.class))).thenReturn(future);
 
         // Act
         kafkaProducerService.sendAccountCreatedEvent(event);
 
         // Assert
-        verify(kafkaTemplate).send("accounts", event);
+        verify(kafkaTemplate).send("accounts", "1", event); // Keyed by account id
     }
 
     @Test
@@ -127,7 +143,7 @@ class KafkaProducerServiceTest {
     void sendAccountCreatedEvent_shouldHandleSuccessCallback() {
         // Arrange
         AccountCreatedEvent event = new AccountCreatedEvent(1L, 10L, "John Doe", "john.doe@example.com", LocalDateTime.now());
-        when(kafkaTemplate.send(eq("accounts"), any(AccountCreatedEvent.class))).thenReturn(future);
+        when(kafkaTemplate.send(eq("accounts"), any(), any(AccountCreatedEvent.class))).thenReturn(future);
         
         SendResult<String, Object> sendResult = mock(SendResult.class);
         RecordMetadata metadata = mock(RecordMetadata.class);
@@ -149,7 +165,7 @@ class KafkaProducerServiceTest {
     void sendAccountCreatedEvent_shouldHandleFailureCallback() {
         // Arrange
         AccountCreatedEvent event = new AccountCreatedEvent(1L, 10L, "John Doe", "john.doe@example.com", LocalDateTime.now());
-        when(kafkaTemplate.send(eq("accounts"), any(AccountCreatedEvent.class))).thenReturn(future);
+        when(kafkaTemplate.send(eq("accounts"), any(), any(AccountCreatedEvent.class))).thenReturn(future);
 
         // Act
         kafkaProducerService.sendAccountCreatedEvent(event);
@@ -174,13 +190,13 @@ class KafkaProducerServiceTest {
     void sendTransferRequestedEvent_shouldCallKafkaTemplateCorrectly() {
         // Arrange
         TransferRequestedEvent event = new TransferRequestedEvent(1L, 2L, BigDecimal.TEN, UUID.randomUUID());
-        when(kafkaTemplate.send(eq("transfer-requests"), any(TransferRequestedEvent.class))).thenReturn(future);
+        when(kafkaTemplate.send(eq("transfer-requests"), any(), any(TransferRequestedEvent.class))).thenReturn(future);
 
         // Act
         kafkaProducerService.sendTransferRequestedEvent(event);
 
         // Assert
-        verify(kafkaTemplate).send("transfer-requests", event);
+        verify(kafkaTemplate).send("transfer-requests", "1", event); // Keyed by sender account
     }
 
     @Test
@@ -188,7 +204,7 @@ class KafkaProducerServiceTest {
     void sendTransferRequestedEvent_shouldHandleSuccessCallback() {
         // Arrange
         TransferRequestedEvent event = new TransferRequestedEvent(1L, 2L, BigDecimal.TEN, UUID.randomUUID());
-        when(kafkaTemplate.send(eq("transfer-requests"), any(TransferRequestedEvent.class))).thenReturn(future);
+        when(kafkaTemplate.send(eq("transfer-requests"), any(), any(TransferRequestedEvent.class))).thenReturn(future);
         
         SendResult<String, Object> sendResult = mock(SendResult.class);
         RecordMetadata metadata = mock(RecordMetadata.class);
@@ -210,7 +226,7 @@ class KafkaProducerServiceTest {
     void sendTransferRequestedEvent_shouldHandleFailureCallback() {
         // Arrange
         TransferRequestedEvent event = new TransferRequestedEvent(1L, 2L, BigDecimal.TEN, UUID.randomUUID());
-        when(kafkaTemplate.send(eq("transfer-requests"), any(TransferRequestedEvent.class))).thenReturn(future);
+        when(kafkaTemplate.send(eq("transfer-requests"), any(), any(TransferRequestedEvent.class))).thenReturn(future);
 
         // Act
         kafkaProducerService.sendTransferRequestedEvent(event);
@@ -227,4 +243,95 @@ class KafkaProducerServiceTest {
             }
         });
     }
+
+    // --- Tests for the raw (pass-through) sends ---
+
+    @Test
+    @DisplayName("sendRawTransactionEvent should send the JSON unchanged with the TransactionEvent type header")
+    void sendRawTransactionEvent_shouldSendPayloadWithTypeHeader() {
+        String json = "{\"transactionId\":1}";
+        when(rawKafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+
+        kafkaProducerService.sendRawTransactionEvent(json, new TransferDetails(10L, 20L, BigDecimal.TEN, UUID.randomUUID()));
+
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(rawKafkaTemplate).send(captor.capture());
+        ProducerRecord<String, String> sent = captor.getValue();
+        assertEquals("transactions", sent.topic());
+        assertEquals("10", sent.key());
+        assertSame(json, sent.value());
+        assertEquals(TransactionEvent.class.getName(),
+                new String(sent.headers().lastHeader("__TypeId__").value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("sendRawAccountCreatedEvent should target the accounts topic with the AccountCreatedEvent type header")
+    void sendRawAccountCreatedEvent_shouldSendPayloadWithTypeHeader() {
+        CompletableFuture<SendResult<String, String>> failed = new CompletableFuture<>();
+        when(rawKafkaTemplate.send(any(ProducerRecord.class))).thenReturn(failed);
+
+        kafkaProducerService.sendRawAccountCreatedEvent("{\"accountId\":7}", 7L);
+        assertDoesNotThrow(() -> failed.completeExceptionally(new RuntimeException("Kafka is down"))); // Only logged
+
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(rawKafkaTemplate).send(captor.capture());
+        assertEquals("accounts", captor.getValue().topic());
+        assertEquals("7", captor.getValue().key());
+        assertEquals(AccountCreatedEvent.class.getName(),
+                new String(captor.getValue().headers().lastHeader("__TypeId__").value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("sendRawTransactionEvent should send legacy rows without transfer columns unkeyed")
+    void sendRawTransactionEvent_shouldSendUnkeyedWithoutTransferColumns() {
+        when(rawKafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+
+        kafkaProducerService.sendRawTransactionEvent("{\"transactionId\":1}", null);
+
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(rawKafkaTemplate).send(captor.capture());
+        assertNull(captor.getValue().key());
+    }
+
+    @Test
+    @DisplayName("sendTransactionEvent should key by the configured field")
+    void sendTransactionEvent_shouldUseConfiguredKey() {
+        UUID idempotencyKey = UUID.randomUUID();
+        TransactionEvent event = new TransactionEvent(1L, 10L, 20L, BigDecimal.TEN, LocalDateTime.now(), idempotencyKey);
+        when(kafkaTemplate.send(eq("transactions"), any(), any(TransactionEvent.class))).thenReturn(future);
+
+        new KafkaProducerService(kafkaTemplate, rawKafkaTemplate, Optional.empty(), TransactionEventKey.RECEIVER_ACCOUNT).sendTransactionEvent(event);
+        new KafkaProducerService(kafkaTemplate, rawKafkaTemplate, Optional.empty(), TransactionEventKey.IDEMPOTENCY_KEY).sendTransactionEvent(event);
+
+        verify(kafkaTemplate).send("transactions", "20", event);
+        verify(kafkaTemplate).send("transactions", idempotencyKey.toString(), event);
+    }
+
+    @Test
+    @DisplayName("sendRawInTransaction should send every record inside one Kafka transaction")
+    void sendRawInTransaction_shouldSendAllRecordsInOneTransaction() {
+        KafkaTemplate<String, String> transactionalTemplate = mock(KafkaTemplate.class);
+        KafkaOperations<String, String> operations = mock(KafkaOperations.class);
+        when(transactionalTemplate.executeInTransaction(any())).thenAnswer(invocation ->
+                invocation.<KafkaOperations.OperationsCallback<String, String, Object>>getArgument(0).doInOperations(operations));
+        KafkaProducerService service = new KafkaProducerService(kafkaTemplate, rawKafkaTemplate,
+                Optional.of(transactionalTemplate), TransactionEventKey.SENDER_ACCOUNT);
+        ProducerRecord<String, String> first = service.rawTransactionRecord("{\"transactionId\":1}", null);
+        ProducerRecord<String, String> second = service.rawAccountCreatedRecord("{\"accountId\":7}", 7L);
+
+        service.sendRawInTransaction(List.of(first, second));
+
+        assertTrue(service.supportsTransactions());
+        verify(transactionalTemplate).executeInTransaction(any());
+        verify(operations).send(first);
+        verify(operations).send(second);
+        verifyNoInteractions(rawKafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("sendRawInTransaction should fail without a transactional producer")
+    void sendRawInTransaction_shouldFailWithoutTransactionalProducer() {
+        assertFalse(kafkaProducerService.supportsTransactions());
+        assertThrows(IllegalStateException.class, () -> kafkaProducerService.sendRawInTransaction(List.of()));
+    }
 }
@@ -23,6 +23,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -67,6 +68,7 @@ class TransactionAuditServiceImplTest {
         // Arrange
         String eventType = "TransactionCompleted";
         String json = "{\"id\":100}";
+        stubUsers();
         when(objectMapper.writeValueAsString(any(TransactionEvent.class))).thenReturn(json);
 
         // Act
@@ -81,12 +83,62 @@ class TransactionAuditServiceImplTest {
         assertEquals("100", savedEvent.getAggregateId());
         assertEquals(eventType, savedEvent.getEventType());
         assertEquals(json, savedEvent.getPayload());
+        assertEquals(transaction.getSender().getId(), savedEvent.getTransfer().getSenderAccountId()); // Relay record key
+    }
+
+    @Test
+    @DisplayName("Should embed the participants' names and emails in the audit event")
+    void shouldEmbedParticipantDetails() throws JsonProcessingException {
+        // Arrange
+        stubUsers();
+        when(objectMapper.writeValueAsString(any(TransactionEvent.class))).thenReturn("{}");
+
+        // Act
+        auditService.createAuditEvent(transaction, "TransactionCompleted");
+
+        // Assert
+        ArgumentCaptor<TransactionEvent> captor = ArgumentCaptor.forClass(TransactionEvent.class);
+        verify(objectMapper).writeValueAsString(captor.capture());
+        TransactionEvent event = captor.getValue();
+        assertEquals("Sender", event.getSenderName());
+        assertEquals("sender@test.com", event.getSenderEmail());
+        assertEquals("Receiver", event.getReceiverName());
+        assertEquals("receiver@test.com", event.getReceiverEmail());
+    }
+
+    @Test
+    @DisplayName("Should persist the audit events of a batch with a single saveAll, skipping unserializable ones")
+    void shouldCreateAuditEventsInOneBatch() throws JsonProcessingException {
+        // Arrange
+        stubUsers();
+        Transaction second = new Transaction(sender, receiver, BigDecimal.ONE, UUID.randomUUID());
+        ReflectionTestUtils.setField(second, "id", 101L);
+        Transaction unserializable = new Transaction(sender, receiver, BigDecimal.TWO, UUID.randomUUID());
+        ReflectionTestUtils.setField(unserializable, "id", 102L);
+        when(objectMapper.writeValueAsString(any(TransactionEvent.class))).thenAnswer(invocation -> {
+            TransactionEvent event = invocation.getArgument(0);
+            if (event.getTransactionId() == 102L) {
+                throw new JsonProcessingException("Serialization failed") {};
+            }
+            return "{\"id\":" + event.getTransactionId() + "}";
+        });
+
+        // Act
+        auditService.createAuditEvents(List.of(transaction, second, unserializable), "TransactionCompleted");
+
+        // Assert
+        ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).saveAll(captor.capture());
+        verify(outboxEventRepository, never()).save(any());
+        assertEquals(List.of("100", "101"), captor.getValue().stream().map(OutboxEvent::getAggregateId).toList());
+        assertEquals("{\"id\":101}", captor.getValue().get(1).getPayload());
     }
 
     @Test
     @DisplayName("Should handle serialization error gracefully (log and return)")
     void shouldHandleSerializationError() throws JsonProcessingException {
         // Arrange
+        stubUsers();
         when(objectMapper.writeValueAsString(any(TransactionEvent.class)))
                 .thenThrow(new JsonProcessingException("Serialization failed") {});
 
@@ -128,4 +180,16 @@ class TransactionAuditServiceImplTest {
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> auditService.findUserByTransactionId(999L));
     }
+
+    private void stubUsers() {
+        User senderUser = mock(User.class);
+        when(senderUser.getName()).thenReturn("Sender");
+        when(senderUser.getEmail()).thenReturn("sender@test.com");
+        when(sender.getUser()).thenReturn(senderUser);
+
+        User receiverUser = mock(User.class);
+        when(receiverUser.getName()).thenReturn("Receiver");
+        when(receiverUser.getEmail()).thenReturn("receiver@test.com");
+        when(receiver.getUser()).thenReturn(receiverUser);
+    }
 }
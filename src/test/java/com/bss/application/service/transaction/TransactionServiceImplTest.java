@@ -5,6 +5,7 @@ import com.bss.application.dto.response.transaction.TransactionResponse;
 import com.bss.application.exception.ResourceNotFoundException;
 import com.bss.domain.transaction.Transaction;
 import com.bss.domain.transaction.TransactionRepository;
+import com.bss.infrastructure.redis.NegativeCache;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,6 +26,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +39,9 @@ class TransactionServiceImplTest {
     @Mock
     private TransactionMapper transactionMapper;
 
+    @Mock
+    private NegativeCache negativeCache;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -67,6 +73,19 @@ class TransactionServiceImplTest {
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> transactionService.findTransactionById(transactionId));
+        verify(negativeCache).putMissing("transactions", transactionId);
+    }
+
+    @Test
+    @DisplayName("Should not query the repository for a transaction ID recently found missing")
+    void shouldSkipRepositoryForRecentlyMissingTransaction() {
+        // Arrange
+        Long transactionId = 99L;
+        when(negativeCache.isMissing("transactions", transactionId)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> transactionService.findTransactionById(transactionId));
+        verify(transactionRepository, never()).findById(any());
     }
 
     @Test
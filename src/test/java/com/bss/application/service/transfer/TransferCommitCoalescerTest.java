@@ -0,0 +1,141 @@
+package com.bss.application.service.transfer;
+
+import com.bss.domain.outbox.OutboxEvent;
+import com.bss.domain.outbox.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransferCommitCoalescerTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransferCommitCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new TransferCommitCoalescer(outboxEventRepository, transactionManager, meterRegistry, 50_000, 10, Optional.empty());
+        coalescer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should persist concurrent submissions together and complete every future")
+    void shouldCoalesceConcurrentSubmissions() throws Exception {
+        List<CompletableFuture<Void>> futures = IntStream.range(0, 10)
+                .mapToObj(i -> coalescer.submit(new OutboxEvent("Transfer", String.valueOf(i), "TransferRequested", "{}")))
+                .toList();
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository, atMost(10)).saveAll(captor.capture());
+        assertEquals(10, captor.getAllValues().stream().mapToInt(List::size).sum());
+        assertTrue(captor.getAllValues().stream().allMatch(batch -> batch.size() <= 10));
+        assertEquals(10L, (long) meterRegistry.get("ledger.transfers.group_commit.batch.size").summary().totalAmount());
+        assertEquals(10L, meterRegistry.get("ledger.transfers.group_commit.wait").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should fail the waiting future when its row cannot be written on its own either")
+    void shouldFailFuturesWhenCommitFails() {
+        doThrow(new QueryTimeoutException("DB Timeout")).when(outboxEventRepository).saveAll(anyList());
+
+        CompletableFuture<Void> future = coalescer.submit(new OutboxEvent("Transfer", "1", "TransferRequested", "{}"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(QueryTimeoutException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("Should retry a failed group commit row by row and fail only the bad row's caller")
+    void shouldFailOnlyTheBadRowOfAFailedGroupCommit() {
+        OutboxEvent good1 = new OutboxEvent("Transfer", "1", "TransferRequested", "{}");
+        OutboxEvent bad = new OutboxEvent("Transfer", "2", "TransferRequested", "{}");
+        OutboxEvent good2 = new OutboxEvent("Transfer", "3", "TransferRequested", "{}");
+        ReflectionTestUtils.setField(good1, "id", UUID.randomUUID()); // As left behind by the rolled-back insert
+        doAnswer(invocation -> {
+            List<OutboxEvent> events = invocation.getArgument(0);
+            if (events.contains(bad)) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            return events;
+        }).when(outboxEventRepository).saveAll(anyList());
+        List<TransferCommitCoalescer.PendingWrite> batch = Stream.of(good1, bad, good2)
+                .map(event -> new TransferCommitCoalescer.PendingWrite(event, new CompletableFuture<>(), System.nanoTime()))
+                .toList();
+
+        coalescer.flush(batch);
+
+        assertTrue(batch.get(0).future().isDone() && !batch.get(0).future().isCompletedExceptionally());
+        assertTrue(batch.get(1).future().isCompletedExceptionally());
+        assertTrue(batch.get(2).future().isDone() && !batch.get(2).future().isCompletedExceptionally());
+        verify(outboxEventRepository).saveAll(List.of(good1));
+        verify(outboxEventRepository).saveAll(List.of(good2));
+        assertNull(good1.getId());
+        assertEquals(2L, (long) meterRegistry.get("ledger.transfers.group_commit.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should fail the batch and keep flushing when a commit throws an Error")
+    void shouldSurviveErrorsInCommit() throws Exception {
+        doThrow(new AssertionError("boom")).doReturn(List.of()).when(outboxEventRepository).saveAll(anyList());
+
+        CompletableFuture<Void> failed = coalescer.submit(new OutboxEvent("Transfer", "1", "TransferRequested", "{}"));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, exception.getCause());
+
+        coalescer.submit(new OutboxEvent("Transfer", "2", "TransferRequested", "{}")).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should reject submissions after shutdown")
+    void shouldRejectSubmissionsAfterShutdown() {
+        coalescer.shutdown();
+
+        CompletableFuture<Void> future = coalescer.submit(new OutboxEvent("Transfer", "1", "TransferRequested", "{}"));
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+}
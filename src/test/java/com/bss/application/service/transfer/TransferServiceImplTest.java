@@ -1,23 +1,30 @@
 package com.bss.application.service.transfer;
 
-import com.bss.application.event.transactions.TransferRequestedEvent;
-import com.bss.application.exception.JsonSerializationException;
+import com.bss.application.dto.response.transfer.TransferBatchItemResponse;
+import com.bss.application.dto.response.transfer.TransferBatchResponse;
 import com.bss.domain.outbox.OutboxEvent;
 import com.bss.domain.outbox.OutboxEventRepository;
+import com.bss.domain.outbox.TransferDetails;
 import com.bss.domain.transfer.Transfer;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.bss.infrastructure.postgres.TransferWorkNotifier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,15 +37,15 @@ class TransferServiceImplTest {
     private OutboxEventRepository outboxEventRepository;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private PlatformTransactionManager transactionManager;
 
-    @InjectMocks
     private TransferServiceImpl transferService;
 
     private Transfer validTransfer;
 
     @BeforeEach
     void setUp() {
+        transferService = new TransferServiceImpl(outboxEventRepository, 3, Optional.empty(), Optional.empty(), 5_000, transactionManager);
         validTransfer = new Transfer(
                 1L,
                 2L,
@@ -48,12 +55,9 @@ class TransferServiceImplTest {
     }
 
     @Test
-    @DisplayName("Should save OutboxEvent for a valid transfer")
-    void transfer_shouldSaveOutboxEvent_forValidTransfer() throws JsonProcessingException {
+    @DisplayName("Should save OutboxEvent with typed transfer columns for a valid transfer")
+    void transfer_shouldSaveOutboxEvent_forValidTransfer() {
         // Arrange
-        String expectedJson = "{\"senderAccountId\":1,\"receiverAccountId\":2,\"amount\":100.00}";
-        when(objectMapper.writeValueAsString(any(TransferRequestedEvent.class))).thenReturn(expectedJson);
-
         ArgumentCaptor<OutboxEvent> eventCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
 
         // Act
@@ -67,7 +71,13 @@ class TransferServiceImplTest {
         assertEquals("Transfer", capturedEvent.getAggregateType());
         assertEquals(validTransfer.getIdempotencyKey().toString(), capturedEvent.getAggregateId());
         assertEquals("TransferRequested", capturedEvent.getEventType());
-        assertEquals(expectedJson, capturedEvent.getPayload());
+        assertNull(capturedEvent.getPayload());
+
+        TransferDetails details = capturedEvent.getTransfer();
+        assertEquals(1L, details.getSenderAccountId());
+        assertEquals(2L, details.getReceiverAccountId());
+        assertEquals(new BigDecimal("100.00"), details.getAmount());
+        assertEquals(validTransfer.getIdempotencyKey(), details.getIdempotencyKey());
     }
 
     @Test
@@ -86,18 +96,133 @@ class TransferServiceImplTest {
     }
 
     @Test
-    @DisplayName("Should throw JsonSerializationException when JSON serialization fails")
-    void transfer_shouldThrowJsonSerializationException_whenSerializationFails() throws JsonProcessingException {
+    @DisplayName("Should persist all valid transfers of a batch with a single saveAll")
+    void transferBatch_shouldPersistValidTransfersInOneCall() {
         // Arrange
-        when(objectMapper.writeValueAsString(any(TransferRequestedEvent.class)))
-                .thenThrow(new JsonProcessingException("Serialization error") {});
+        Transfer second = new Transfer(3L, 4L, new BigDecimal("5.00"), UUID.randomUUID());
 
-        // Act & Assert
-        JsonSerializationException exception = assertThrows(JsonSerializationException.class, () -> {
-            transferService.transfer(validTransfer);
-        });
+        // Act
+        TransferBatchResponse response = transferService.transferBatch(List.of(validTransfer, second));
 
-        assertTrue(exception.getMessage().contains("Error serializing transfer event"));
+        // Assert
+        ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository, times(1)).saveAll(captor.capture());
         verify(outboxEventRepository, never()).save(any());
+        assertEquals(2, captor.getValue().size());
+        assertEquals(2, response.accepted());
+        assertEquals(0, response.rejected());
+        assertTrue(response.results().stream().allMatch(r -> r.status() == 202));
+    }
+
+    @Test
+    @DisplayName("Should report invalid and duplicated items individually without rejecting the batch")
+    void transferBatch_shouldRejectInvalidItemsIndividually() {
+        // Arrange
+        Transfer sameAccount = new Transfer(1L, 1L, BigDecimal.TEN, UUID.randomUUID());
+        Transfer duplicated = new Transfer(5L, 6L, BigDecimal.ONE, validTransfer.getIdempotencyKey());
+
+        // Act
+        TransferBatchResponse response = transferService.transferBatch(List.of(validTransfer, sameAccount, duplicated));
+
+        // Assert
+        assertEquals(1, response.accepted());
+        assertEquals(2, response.rejected());
+        List<TransferBatchItemResponse> results = response.results();
+        assertEquals(202, results.get(0).status());
+        assertEquals(400, results.get(1).status());
+        assertEquals("Sender and receiver accounts cannot be the same.", results.get(1).error());
+        assertEquals(409, results.get(2).status());
+        verify(outboxEventRepository).saveAll(argThat(events -> ((List<?>) events).size() == 1));
+    }
+
+    @Test
+    @DisplayName("Should reject items with missing fields or non-positive amounts")
+    void transferBatch_shouldRejectIncompleteItems() {
+        // Arrange
+        List<Transfer> transfers = new ArrayList<>();
+        transfers.add(null);
+        transfers.add(new Transfer(1L, null, BigDecimal.TEN, UUID.randomUUID()));
+        transfers.add(new Transfer(1L, 2L, BigDecimal.ZERO, UUID.randomUUID()));
+
+        // Act
+        TransferBatchResponse response = transferService.transferBatch(transfers);
+
+        // Assert
+        assertEquals(0, response.accepted());
+        assertTrue(response.results().stream().allMatch(r -> r.status() == 400));
+        verify(outboxEventRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException for empty or oversized batches")
+    void transferBatch_shouldRejectEmptyOrOversizedBatches() {
+        List<Transfer> oversized = Collections.nCopies(4, validTransfer);
+
+        assertThrows(IllegalArgumentException.class, () -> transferService.transferBatch(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> transferService.transferBatch(oversized));
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should hand the outbox event to the group commit coalescer when enabled")
+    void transfer_shouldUseCoalescer_whenGroupCommitEnabled() {
+        // Arrange
+        TransferCommitCoalescer coalescer = mock(TransferCommitCoalescer.class);
+        when(coalescer.submit(any(OutboxEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
+        TransferServiceImpl coalescedService = new TransferServiceImpl(outboxEventRepository, 3, Optional.of(coalescer), Optional.empty(), 5_000, transactionManager);
+
+        // Act
+        coalescedService.transfer(validTransfer);
+
+        // Assert
+        verify(coalescer).submit(any(OutboxEvent.class));
+        verify(outboxEventRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should rethrow the group commit failure cause to the caller")
+    void transfer_shouldRethrowCoalescerFailureCause() {
+        // Arrange
+        TransferCommitCoalescer coalescer = mock(TransferCommitCoalescer.class);
+        IllegalStateException failure = new IllegalStateException("commit failed");
+        when(coalescer.submit(any(OutboxEvent.class))).thenReturn(CompletableFuture.failedFuture(failure));
+        TransferServiceImpl coalescedService = new TransferServiceImpl(outboxEventRepository, 3, Optional.of(coalescer), Optional.empty(), 5_000, transactionManager);
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> coalescedService.transfer(validTransfer));
+        assertEquals("commit failed", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for a group commit that does not complete in time")
+    void transfer_shouldTimeOutWaitingForGroupCommit() {
+        // Arrange
+        TransferCommitCoalescer coalescer = mock(TransferCommitCoalescer.class);
+        when(coalescer.submit(any(OutboxEvent.class))).thenReturn(new CompletableFuture<>());
+        TransferServiceImpl coalescedService = new TransferServiceImpl(outboxEventRepository, 3, Optional.of(coalescer), Optional.empty(), 50, transactionManager);
+
+        // Act & Assert
+        assertThrows(QueryTimeoutException.class, () -> coalescedService.transfer(validTransfer));
+    }
+
+    @Test
+    @DisplayName("Should notify transfer workers in the transaction that persists a transfer and a batch")
+    void shouldNotifyWorkersAfterPersisting() {
+        // Arrange
+        TransferWorkNotifier notifier = mock(TransferWorkNotifier.class);
+        TransferServiceImpl notifyingService = new TransferServiceImpl(outboxEventRepository, 3, Optional.empty(), Optional.of(notifier), 5_000, transactionManager);
+
+        // Act
+        notifyingService.transfer(validTransfer);
+        notifyingService.transferBatch(List.of(validTransfer));
+
+        // Assert
+        InOrder inOrder = inOrder(transactionManager, outboxEventRepository, notifier);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(outboxEventRepository).save(any(OutboxEvent.class));
+        inOrder.verify(notifier).notifyTransfersPending();
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(outboxEventRepository).saveAll(anyList());
+        inOrder.verify(notifier).notifyTransfersPending();
     }
 }
@@ -10,6 +10,7 @@ import com.bss.application.service.account.port.in.AccountService;
 import com.bss.domain.user.Role;
 import com.bss.domain.user.User;
 import com.bss.domain.user.UserRepository;
+import com.bss.infrastructure.redis.NegativeCache;
 import com.bss.domain.user.UserStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -26,6 +27,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -47,6 +49,8 @@ class UserServiceImplTest {
     private AccountService accountService;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private NegativeCache negativeCache;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -74,6 +78,7 @@ class UserServiceImplTest {
 
         verify(userRepository).save(user);
         verify(accountService).createAccountForUser(user, new BigDecimal("1000.00"));
+        verify(negativeCache).evictAfterCommit("users", List.of(1L));
         verify(userMapper).toUserResponse(user);
     }
 
@@ -126,6 +131,16 @@ class UserServiceImplTest {
         // Act & Assert
         assertThrows(UserNotFoundException.class, () -> userService.findUserById(userId));
         verify(userMapper, never()).toUserResponse(any());
+        verify(negativeCache).putMissing("users", userId);
+    }
+
+    @Test
+    @DisplayName("findUserById should not query the repository for an id recently found missing")
+    void findUserById_shouldSkipRepositoryForRecentlyMissingUser() {
+        when(negativeCache.isMissing("users", 99L)).thenReturn(true);
+
+        assertThrows(UserNotFoundException.class, () -> userService.findUserById(99L));
+        verify(userRepository, never()).findById(anyLong());
     }
 
     // Tests for updateUser
@@ -0,0 +1,103 @@
+package com.bss.domain.account;
+
+import com.bss.domain.user.Role;
+import com.bss.domain.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountBalanceNettingTest {
+
+    private Account alice;
+    private Account bob;
+    private AccountBalanceNetting netting;
+
+    @BeforeEach
+    void setUp() {
+        alice = account(1L, "100.00");
+        bob = account(2L, "10.00");
+        netting = new AccountBalanceNetting();
+    }
+
+    @Test
+    @DisplayName("Should apply transfers in order against running balances")
+    void shouldApplyTransfersAgainstRunningBalances() {
+        netting.transfer(alice, bob, new BigDecimal("80.00"));
+
+        // Alice only has 20.00 left in the batch, although her entity still says 100.00
+        assertThrows(InsufficientBalanceException.class, () -> netting.transfer(alice, bob, new BigDecimal("30.00")));
+
+        netting.transfer(bob, alice, new BigDecimal("90.00"));
+
+        assertEquals(new BigDecimal("110.00"), netting.balanceOf(alice));
+        assertEquals(new BigDecimal("0.00"), netting.balanceOf(bob));
+        assertEquals(Map.of(1L, new BigDecimal("10.00"), 2L, new BigDecimal("-10.00")), netting.netDeltas());
+        assertEquals(new BigDecimal("100.00"), alice.getBalance());
+    }
+
+    @Test
+    @DisplayName("Should leave the sender untouched when the receiver rejects the deposit")
+    void shouldNotApplyHalfATransfer() {
+        bob.block();
+
+        assertThrows(IllegalStateException.class, () -> netting.transfer(alice, bob, new BigDecimal("10.00")));
+
+        assertEquals(new BigDecimal("100.00"), netting.balanceOf(alice));
+        assertTrue(netting.netDeltas().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should omit accounts whose net change is zero")
+    void shouldOmitZeroDeltas() {
+        netting.transfer(alice, bob, new BigDecimal("5.00"));
+        netting.transfer(bob, alice, new BigDecimal("5.00"));
+
+        assertTrue(netting.netDeltas().isEmpty());
+    }
+
+    private Account account(Long id, String balance) {
+        User user = new User("User " + id, "doc" + id, "user" + id + "@test.com", Role.ROLE_EMPLOYEE);
+        Account account = new Account(user, new BigDecimal(balance));
+        ReflectionTestUtils.setField(account, "id", id);
+        return account;
+    }
+
+    @Test
+    @DisplayName("Should credit the first locked slot of a striped account")
+    void shouldCreditStripedAccountThroughSlot() {
+        bob.stripe(4);
+        BalanceSlotKey slot = new BalanceSlotKey(2L, 3);
+        netting = new AccountBalanceNetting(Map.of(slot, new BigDecimal("5.00")));
+
+        netting.transfer(alice, bob, new BigDecimal("20.00"));
+
+        AccountBalanceNetting.BalanceWrites writes = netting.balanceWrites();
+        assertEquals(Map.of(1L, new BigDecimal("-20.00")), writes.accountDeltas());
+        assertEquals(Map.of(slot, new BigDecimal("20.00")), writes.slotDeltas());
+    }
+
+    @Test
+    @DisplayName("Should debit a striped account from its row first and then from its slots in order")
+    void shouldDebitStripedAccountRowThenSlots() {
+        bob.stripe(2);
+        BalanceSlotKey slot0 = new BalanceSlotKey(2L, 0);
+        BalanceSlotKey slot1 = new BalanceSlotKey(2L, 1);
+        netting = new AccountBalanceNetting(Map.of(slot0, new BigDecimal("15.00"), slot1, new BigDecimal("40.00")));
+
+        // 10.00 on the row + 55.00 in slots
+        assertEquals(new BigDecimal("65.00"), netting.balanceOf(bob));
+        netting.transfer(bob, alice, new BigDecimal("50.00"));
+
+        AccountBalanceNetting.BalanceWrites writes = netting.balanceWrites();
+        assertEquals(Map.of(1L, new BigDecimal("50.00"), 2L, new BigDecimal("-10.00")), writes.accountDeltas());
+        assertEquals(Map.of(slot0, new BigDecimal("-15.00"), slot1, new BigDecimal("-25.00")), writes.slotDeltas());
+    }
+}
@@ -160,4 +160,23 @@ class AccountTest {
         ReflectionTestUtils.setField(account, "version", 1L);
         assertEquals(1L, account.getVersion());
     }
+
+    @Test
+    @DisplayName("Should stripe account once and reject direct balance adjustments afterwards")
+    void shouldStripeAccountOnce() {
+        account.stripe(4);
+
+        assertTrue(account.isStriped());
+        assertEquals(4, account.getBalanceSlots());
+        assertThrows(IllegalStateException.class, () -> account.stripe(8));
+        assertThrows(IllegalStateException.class, () -> account.adjustBalance(BigDecimal.ONE));
+    }
+
+    @Test
+    @DisplayName("Should reject a slot count outside the allowed range")
+    void shouldRejectInvalidSlotCount() {
+        assertThrows(IllegalArgumentException.class, () -> account.stripe(1));
+        assertThrows(IllegalArgumentException.class, () -> account.stripe(Account.MAX_BALANCE_SLOTS + 1));
+        assertFalse(account.isStriped());
+    }
 }
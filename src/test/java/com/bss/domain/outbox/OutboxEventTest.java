@@ -3,6 +3,7 @@ package com.bss.domain.outbox;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -31,9 +32,23 @@ class OutboxEventTest {
         assertEquals(OutboxEventStatus.UNPROCESSED, event.getStatus());
         assertEquals(0, event.getRetryCount());
         assertNotNull(event.getCreatedAt());
+        assertEquals(event.getCreatedAt(), event.getNextAttemptAt()); // Due immediately
         assertNull(event.getLockedAt());
     }
 
+    @Test
+    @DisplayName("Should schedule a retry: back to UNPROCESSED, due at the given time")
+    void shouldScheduleRetry() {
+        OutboxEvent event = new OutboxEvent("Transfer", "123", "TransferRequested", "{}");
+        event.setStatus(OutboxEventStatus.PROCESSING);
+        LocalDateTime nextAttemptAt = event.getCreatedAt().plusSeconds(30);
+
+        event.scheduleRetry(nextAttemptAt);
+
+        assertEquals(OutboxEventStatus.UNPROCESSED, event.getStatus());
+        assertEquals(nextAttemptAt, event.getNextAttemptAt());
+    }
+
     @Test
     @DisplayName("Should increment retry count")
     void shouldIncrementRetryCount() {
@@ -138,4 +153,15 @@ class OutboxEventTest {
         // Assert
         assertEquals(10, event.getRetryCount());
     }
+
+    @Test
+    @DisplayName("Should derive the shard key from the sender account of a typed transfer")
+    void shouldDeriveShardKeyFromSenderAccount() {
+        TransferDetails details = new TransferDetails(1025L, 7L, new BigDecimal("10.00"), UUID.randomUUID());
+
+        OutboxEvent event = new OutboxEvent("Transfer", "123", "TransferRequested", details);
+
+        assertEquals(1, event.getShardKey());
+        assertNull(new OutboxEvent("Transfer", "123", "TransferRequested", "{}").getShardKey());
+    }
 }
@@ -41,7 +41,10 @@ class KafkaConsumerConfigTest {
     private FixedBackOff errorHandlerBackOff;
 
     @Autowired
-    private ConcurrentKafkaListenerContainerFactory<String, Object> factory;
+    private ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory;
+
+    @Autowired
+    private ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory;
 
     @Test
     @DisplayName("ConsumerFactory should have secure and correct properties")
@@ -56,6 +59,7 @@ class KafkaConsumerConfigTest {
 
         assertThat(props.get(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG)).isEqualTo(StringDeserializer.class);
         assertThat(props.get(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG)).isEqualTo(JsonDeserializer.class);
+        assertThat(props.get(ConsumerConfig.ISOLATION_LEVEL_CONFIG)).isEqualTo("read_committed");
     }
 
     @Test
@@ -77,10 +81,20 @@ class KafkaConsumerConfigTest {
     @Test
     @DisplayName("KafkaListenerContainerFactory should be wired with correct ConsumerFactory and ErrorHandler")
     void kafkaListenerContainerFactory_shouldBeWiredCorrectly() {
-        ConsumerFactory<?, ?> factoryConsumerFactory = (ConsumerFactory<?, ?>) ReflectionTestUtils.getField(factory, "consumerFactory");
+        ConsumerFactory<?, ?> factoryConsumerFactory = (ConsumerFactory<?, ?>) ReflectionTestUtils.getField(kafkaListenerContainerFactory, "consumerFactory");
         assertThat(factoryConsumerFactory).isSameAs(consumerFactory);
 
-        CommonErrorHandler factoryErrorHandler = (CommonErrorHandler) ReflectionTestUtils.getField(factory, "commonErrorHandler");
+        CommonErrorHandler factoryErrorHandler = (CommonErrorHandler) ReflectionTestUtils.getField(kafkaListenerContainerFactory, "commonErrorHandler");
         assertThat(factoryErrorHandler).isSameAs(errorHandler);
     }
+
+    @Test
+    @DisplayName("Batch container factory should consume whole polls with the configured concurrency")
+    void batchKafkaListenerContainerFactory_shouldBeBatchWithConcurrency() {
+        assertThat(batchKafkaListenerContainerFactory.isBatchListener()).isTrue();
+        assertThat(ReflectionTestUtils.getField(batchKafkaListenerContainerFactory, "concurrency")).isEqualTo(3);
+        assertThat(batchKafkaListenerContainerFactory.getContainerProperties().getKafkaConsumerProperties()
+                .getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG)).isEqualTo("500");
+        assertThat(ReflectionTestUtils.getField(batchKafkaListenerContainerFactory, "commonErrorHandler")).isSameAs(errorHandler);
+    }
 }
@@ -29,6 +29,9 @@ class KafkaProducerConfigTest {
     @Autowired
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @Autowired
+    private ProducerFactory<String, String> rawProducerFactory;
+
     @Test
     @DisplayName("ProducerFactory should have robust configuration for financial transactions")
     void producerFactory_shouldHaveRobustConfiguration() {
@@ -54,4 +57,29 @@ class KafkaProducerConfigTest {
         ProducerFactory<?, ?> templateFactory = (ProducerFactory<?, ?>) ReflectionTestUtils.getField(kafkaTemplate, "producerFactory");
         assertThat(templateFactory).isSameAs(producerFactory);
     }
+
+    @Test
+    @DisplayName("Raw ProducerFactory should write values as strings with the same delivery guarantees")
+    void rawProducerFactory_shouldSerializeStringsWithRobustConfiguration() {
+        Map<String, Object> props = rawProducerFactory.getConfigurationProperties();
+
+        assertThat(props.get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG)).isEqualTo(StringSerializer.class);
+        assertThat(props.get(ProducerConfig.ACKS_CONFIG)).isEqualTo("all");
+        assertThat(props.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG)).isEqualTo(true);
+        assertThat(props).doesNotContainKey(JsonSerializer.ADD_TYPE_INFO_HEADERS);
+    }
+
+    @Test
+    @DisplayName("Transactional raw producer should carry the transaction id prefix and a bounded commit")
+    void transactionalRawProducerFactory_shouldBeTransactional() {
+        KafkaProducerConfig config = new KafkaProducerConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", "localhost:9092");
+
+        ProducerFactory<String, String> factory = config.transactionalRawProducerFactory("ledger-relay-node-a-", 10_000);
+
+        assertThat(factory.transactionCapable()).isTrue();
+        assertThat(factory.getTransactionIdPrefix()).isEqualTo("ledger-relay-node-a-");
+        assertThat(factory.getConfigurationProperties().get(ProducerConfig.MAX_BLOCK_MS_CONFIG)).isEqualTo(10_000L);
+        assertThat(factory.getConfigurationProperties().get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG)).isEqualTo(StringSerializer.class);
+    }
 }
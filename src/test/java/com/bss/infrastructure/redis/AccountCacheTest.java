@@ -0,0 +1,135 @@
+package com.bss.infrastructure.redis;
+
+import com.bss.application.dto.response.account.AccountResponse;
+import com.bss.domain.account.AccountStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountCacheTest {
+
+    private final RedisSerializer<Object> serializer = new CacheConfig().valueSerializer(AccountCache.CACHE_NAME);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisConnection connection = mock(RedisConnection.class);
+    private final RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+    private final RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+    private final AccountCache accountCache = new AccountCache(redisTemplate, serializer, Duration.ofMinutes(10));
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        lenient().when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        lenient().when(connection.stringCommands()).thenReturn(stringCommands);
+        lenient().when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(inv -> inv.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        lenient().when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenAnswer(inv -> {
+                    inv.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+                    return List.of();
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read a cached account from its cache key")
+    void shouldReadCachedAccount() {
+        AccountResponse account = account(1L, 4L);
+        when(stringCommands.get(aryEq(bytes("accounts::1")))).thenReturn(serializer.serialize(account));
+
+        assertEquals(account, accountCache.get(1L));
+        assertNull(accountCache.get(2L));
+    }
+
+    @Test
+    @DisplayName("Should treat an unavailable Redis as a miss")
+    @SuppressWarnings("unchecked")
+    void shouldMissWhenRedisIsDown() {
+        when(redisTemplate.execute(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertNull(accountCache.get(1L));
+        assertDoesNotThrow(() -> accountCache.put(account(1L, 4L)));
+    }
+
+    @Test
+    @DisplayName("Should write an account with its version and the cache TTL through the version check")
+    void shouldPutWithVersion() {
+        AccountResponse account = account(1L, 4L);
+
+        accountCache.put(account);
+
+        verify(scriptingCommands).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(2),
+                aryEq(bytes("accounts::1")), aryEq(bytes("accounts::1:version")),
+                aryEq(serializer.serialize(account)), aryEq(bytes("4")), aryEq(bytes("600000")));
+    }
+
+    @Test
+    @DisplayName("Should write through in one pipeline only once the transaction commits")
+    @SuppressWarnings("unchecked")
+    void shouldWriteThroughAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        accountCache.putAllAfterCommit(List.of(account(1L, 4L), account(2L, 9L)));
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+        verify(scriptingCommands, times(2)).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(2), any(byte[][].class));
+    }
+
+    @Test
+    @DisplayName("Should evict by recording the version without a value")
+    void shouldEvictWithVersion() {
+        accountCache.evictAfterCommit(1L, 5L); // No transaction: runs immediately
+
+        verify(scriptingCommands).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(2),
+                aryEq(bytes("accounts::1")), aryEq(bytes("accounts::1:version")),
+                aryEq(new byte[0]), aryEq(bytes("5")), aryEq(bytes("600000")));
+    }
+
+    private static AccountResponse account(Long id, long version) {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 30);
+        AccountResponse account = new AccountResponse(id, 100L, new BigDecimal("250.00"), AccountStatus.ACTIVE, now, now);
+        account.setVersion(version);
+        return account;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,23 +1,41 @@
 package com.bss.infrastructure.redis;
 
+import com.bss.application.controller.transaction.mapper.TransactionMapper;
+import com.bss.domain.transaction.TransactionRepository;
+import com.bss.domain.user.Role;
+import com.bss.domain.user.User;
+import com.bss.domain.user.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class CacheConfigTest {
 
@@ -34,16 +52,13 @@ class CacheConfigTest {
     }
 
     @Test
-    @DisplayName("Should create CacheManager with specific configurations")
+    @DisplayName("Should create the Redis CacheManager with specific configurations")
     void shouldCreateCacheManagerWithSpecificConfigs() {
         RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
         
-        CacheManager cacheManager = cacheConfig.cacheManager(connectionFactory);
+        RedisCacheManager redisCacheManager = cacheConfig.redisCacheManager(connectionFactory);
 
-        assertNotNull(cacheManager);
-        assertTrue(cacheManager instanceof RedisCacheManager);
-        
-        RedisCacheManager redisCacheManager = (RedisCacheManager) cacheManager;
+        assertNotNull(redisCacheManager);
         
         // Access private field to verify initial configurations
         @SuppressWarnings("unchecked")
@@ -60,6 +75,57 @@ class CacheConfigTest {
         assertEquals(Duration.ofMinutes(10), initialCacheConfiguration.get("transactions").getTtl());
     }
 
+    @Test
+    @DisplayName("Should put a two-level cache in front of every Redis cache")
+    void shouldWrapRedisCachesInTwoLevelCaches() {
+        RedisCacheManager redisCacheManager = cacheConfig.redisCacheManager(mock(RedisConnectionFactory.class));
+        redisCacheManager.afterPropertiesSet();
+        ObjectProvider<MeterRegistry> meterRegistry = new StaticListableBeanFactory(Map.of("registry", new SimpleMeterRegistry()))
+                .getBeanProvider(MeterRegistry.class);
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+
+        CacheManager cacheManager = cacheConfig.cacheManager(redisCacheManager, mock(StringRedisTemplate.class), meterRegistry, new MockEnvironment(),
+                beans.getBeanProvider(UserRepository.class), beans.getBeanProvider(TransactionRepository.class),
+                beans.getBeanProvider(TransactionMapper.class), 100, 30_000);
+
+        assertTrue(cacheManager.getCache("users") instanceof TwoLevelCache);
+        assertSame(cacheManager.getCache("users"), cacheManager.getCache("users"));
+        assertTrue(cacheManager.getCacheNames().containsAll(Set.of("accounts", "users", "transactions")));
+    }
+
+    @Test
+    @DisplayName("Should read the load policy of each cache from its properties")
+    void shouldResolveLoadPolicyPerCache() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("ledger.cache.users.refresh-ahead-ms", "60000")
+                .withProperty("ledger.cache.transactions.single-flight", "false");
+
+        assertEquals(new TwoLevelCache.LoadPolicy(true, Duration.ofMinutes(1)), CacheConfig.loadPolicy(environment, "users"));
+        assertEquals(new TwoLevelCache.LoadPolicy(false, null), CacheConfig.loadPolicy(environment, "transactions"));
+        assertEquals(TwoLevelCache.LoadPolicy.SINGLE_FLIGHT, CacheConfig.loadPolicy(environment, "other"));
+    }
+
+    @Test
+    @DisplayName("Should refresh users and transactions through their repositories, bypassing the cache")
+    void shouldRefreshThroughRepositories() {
+        UserRepository userRepository = mock(UserRepository.class);
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        User user = new User("Alice", "12345678900", "alice@example.com", Role.ROLE_CLIENT);
+        when(userRepository.findByIdUncached(42L)).thenReturn(Optional.of(user));
+        when(transactionRepository.findById(7L)).thenReturn(Optional.empty());
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of(
+                "userRepository", userRepository, "transactionRepository", transactionRepository, "transactionMapper", new TransactionMapper()));
+
+        Map<String, TwoLevelCache.RefreshLoader> loaders = CacheConfig.refreshLoaders(beans.getBeanProvider(UserRepository.class),
+                beans.getBeanProvider(TransactionRepository.class), beans.getBeanProvider(TransactionMapper.class));
+
+        assertSame(user, loaders.get("users").load(42L));
+        assertNull(loaders.get("transactions").load(7L));
+        assertNull(loaders.get("accounts")); // Written through by the transfer processor instead
+        verify(userRepository, never()).findById(any());
+    }
+
     @Test
     @DisplayName("Should configure ObjectMapper correctly")
     void shouldConfigureObjectMapperCorrectly() throws ClassNotFoundException {
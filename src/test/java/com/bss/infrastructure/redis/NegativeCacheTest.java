@@ -0,0 +1,105 @@
+package com.bss.infrastructure.redis;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NegativeCacheTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final NegativeCache negativeCache = new NegativeCache(redisTemplate, meterRegistry, 100, Duration.ofMinutes(1));
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should remember missing ids per cache and count the hits")
+    void shouldRememberMissingIds() {
+        negativeCache.putMissing("users", 7L);
+
+        assertTrue(negativeCache.isMissing("users", 7L));
+        assertFalse(negativeCache.isMissing("accounts", 7L));
+        assertFalse(negativeCache.isMissing("users", 8L));
+        assertEquals(1.0, meterRegistry.get("ledger.cache.negative.hits").tag("cache", "users").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should forget created ids only after commit and tell the other nodes")
+    void shouldEvictAfterCommit() {
+        negativeCache.putMissing("transactions", 1L);
+        negativeCache.putMissing("transactions", 2L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        negativeCache.evictAfterCommit("transactions", List.of(1L, 2L));
+
+        assertTrue(negativeCache.isMissing("transactions", 1L));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertFalse(negativeCache.isMissing("transactions", 1L));
+        assertFalse(negativeCache.isMissing("transactions", 2L));
+        verify(redisTemplate).convertAndSend(eq(NegativeCache.INVALIDATION_CHANNEL), endsWith("\ntransactions\n1,2"));
+    }
+
+    @Test
+    @DisplayName("Should keep the local eviction when the invalidation cannot be published")
+    void shouldSurvivePublishFailure() {
+        negativeCache.putMissing("users", 1L);
+        when(redisTemplate.convertAndSend(anyString(), any())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> negativeCache.evictAfterCommit("users", List.of(1L)));
+        assertFalse(negativeCache.isMissing("users", 1L));
+    }
+
+    @Test
+    @DisplayName("Should drop ids created on another node")
+    void shouldApplyRemoteInvalidation() {
+        negativeCache.putMissing("accounts", 5L);
+        negativeCache.putMissing("accounts", 6L);
+
+        negativeCache.onMessage(message("other-node\naccounts\n5"), null);
+
+        assertFalse(negativeCache.isMissing("accounts", 5L));
+        assertTrue(negativeCache.isMissing("accounts", 6L));
+    }
+
+    @Test
+    @DisplayName("Should not publish when nothing was created")
+    void shouldIgnoreEmptyEviction() {
+        negativeCache.evictAfterCommit("transactions", List.of());
+
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(NegativeCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -19,6 +19,7 @@ import org.testcontainers.utility.DockerImageName;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -61,6 +62,9 @@ class RedisCacheIntegrationTest {
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private AccountCache accountCache;
+
     @Test
     void testCacheSerialization() {
         // 1. Prepare Data
@@ -84,4 +88,22 @@ class RedisCacheIntegrationTest {
         assertThat(cachedResponse.getStatus()).isEqualTo(originalResponse.getStatus());
         assertThat(cachedResponse.getCreatedAt()).isEqualToIgnoringNanos(originalResponse.getCreatedAt());
     }
+
+    @Test
+    void accountCacheShouldIgnoreWritesOlderThanTheCachedVersion() {
+        LocalDateTime now = LocalDateTime.now();
+        AccountResponse committed = new AccountResponse(2L, 100L, BigDecimal.valueOf(300), AccountStatus.ACTIVE, now, now);
+        committed.setVersion(6L);
+        AccountResponse staleRead = new AccountResponse(2L, 100L, BigDecimal.valueOf(500), AccountStatus.ACTIVE, now, now);
+        staleRead.setVersion(5L);
+
+        accountCache.putAllAfterCommit(List.of(committed));
+        accountCache.put(staleRead);
+        assertThat(accountCache.get(2L).getBalance()).isEqualByComparingTo("300");
+
+        // An eviction keeps rejecting reads of versions before it
+        accountCache.evictAfterCommit(2L, 7L);
+        accountCache.put(committed);
+        assertThat(accountCache.get(2L)).isNull();
+    }
 }
@@ -0,0 +1,127 @@
+package com.bss.infrastructure.redis;
+
+import com.bss.application.dto.response.account.AccountResponse;
+import com.bss.application.dto.response.transaction.TransactionResponse;
+import com.bss.domain.account.AccountStatus;
+import com.bss.domain.user.Role;
+import com.bss.domain.user.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.hateoas.Link;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmileRedisSerializerTest {
+
+    private final CacheConfig cacheConfig = new CacheConfig();
+
+    @Test
+    @DisplayName("Should round-trip a TransactionResponse in fewer bytes than the JSON serializer")
+    void shouldRoundTripTransactionResponseCompactly() {
+        RedisSerializer<Object> smile = cacheConfig.valueSerializer("transactions");
+        RedisSerializer<Object> json = cacheConfig.valueSerializer(null);
+        TransactionResponse response = transactionResponse();
+
+        byte[] bytes = smile.serialize(response);
+
+        assertInstanceOf(SmileRedisSerializer.class, smile);
+        assertEquals(SmileRedisSerializer.FORMAT_SMILE_V1, bytes[0]);
+        assertTrue(bytes.length < json.serialize(response).length);
+        assertEquals(response, smile.deserialize(bytes));
+    }
+
+    @Test
+    @DisplayName("Should leave HATEOAS links out of the cached TransactionResponse")
+    void shouldNotStoreLinks() {
+        RedisSerializer<Object> smile = cacheConfig.valueSerializer("transactions");
+        TransactionResponse response = transactionResponse();
+        response.add(Link.of("/api/v1/transactions/1"));
+
+        TransactionResponse cached = (TransactionResponse) smile.deserialize(smile.serialize(response));
+
+        assertTrue(cached.getLinks().isEmpty());
+        assertEquals(response.getId(), cached.getId());
+    }
+
+    @Test
+    @DisplayName("Should round-trip a User entity")
+    void shouldRoundTripUser() {
+        RedisSerializer<Object> smile = cacheConfig.valueSerializer("users");
+        User user = user();
+
+        User cached = (User) smile.deserialize(smile.serialize(user));
+
+        assertEquals(42L, cached.getId());
+        assertEquals("alice@example.com", cached.getEmail());
+        assertEquals(Role.ROLE_CLIENT, cached.getRole());
+        assertEquals(user.getCreatedAt(), cached.getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("Should store every cached type in fewer bytes than the JSON serializer")
+    void shouldBeSmallerThanJsonForEveryCachedType() {
+        RedisSerializer<Object> json = cacheConfig.valueSerializer(null);
+        AccountResponse account = new AccountResponse(1_001L, 42L, new BigDecimal("98765.43"), AccountStatus.ACTIVE,
+                LocalDateTime.of(2024, 5, 1, 10, 30), LocalDateTime.of(2024, 5, 1, 10, 30));
+
+        Map<String, Object> valuesByCache = Map.of("transactions", transactionResponse(), "users", user(), "accounts", account);
+
+        valuesByCache.forEach((cacheName, value) -> {
+            int smileBytes = cacheConfig.valueSerializer(cacheName).serialize(value).length;
+            int jsonBytes = json.serialize(value).length;
+            assertTrue(smileBytes < jsonBytes, cacheName + ": " + smileBytes + " Smile bytes, " + jsonBytes + " JSON bytes");
+        });
+    }
+
+    @Test
+    @DisplayName("Should still read entries written by the JSON serializer")
+    void shouldReadLegacyJsonEntries() {
+        TransactionResponse response = transactionResponse();
+        byte[] legacy = cacheConfig.valueSerializer(null).serialize(response);
+
+        assertEquals(response, cacheConfig.valueSerializer("transactions").deserialize(legacy));
+    }
+
+    @Test
+    @DisplayName("Should map null to an empty value and back")
+    void shouldHandleNull() {
+        RedisSerializer<Object> smile = cacheConfig.valueSerializer("users");
+
+        assertArrayEquals(new byte[0], smile.serialize(null));
+        assertNull(smile.deserialize(new byte[0]));
+        assertNull(smile.deserialize(null));
+    }
+
+    @Test
+    @DisplayName("Should use JSON for every cache when Smile is switched off")
+    void shouldFallBackToJson() {
+        ReflectionTestUtils.setField(cacheConfig, "serializationFormat", "json");
+
+        assertTrue(cacheConfig.valueSerializer("transactions") == cacheConfig.valueSerializer(null));
+    }
+
+    private static User user() {
+        User user = new User("Alice", "12345678900", "alice@example.com", Role.ROLE_CLIENT);
+        ReflectionTestUtils.setField(user, "id", 42L);
+        ReflectionTestUtils.setField(user, "createdAt", LocalDateTime.of(2024, 5, 1, 10, 30));
+        return user;
+    }
+
+    private static TransactionResponse transactionResponse() {
+        TransactionResponse response = new TransactionResponse(1L, 10L, 20L, new BigDecimal("150.75"), "SUCCESS", null,
+                UUID.fromString("7d444840-9dc0-11d1-b245-5ffdce74fad2"));
+        response.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_000_000));
+        return response;
+    }
+}
@@ -0,0 +1,98 @@
+package com.bss.infrastructure.redis;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoLevelCacheManagerTest {
+
+    private ConcurrentMapCacheManager l2CacheManager;
+    private StringRedisTemplate redisTemplate;
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        l2CacheManager = new ConcurrentMapCacheManager("users");
+        redisTemplate = mock(StringRedisTemplate.class);
+        cacheManager = new TwoLevelCacheManager(l2CacheManager, cacheName -> new GenericJackson2JsonRedisSerializer(), redisTemplate,
+                new SimpleMeterRegistry(), 100, Duration.ofSeconds(30));
+    }
+
+    @Test
+    @DisplayName("Invalidations should survive an encode/decode round trip")
+    void invalidationShouldRoundTrip() {
+        TwoLevelCacheManager.Invalidation eviction = new TwoLevelCacheManager.Invalidation("node-a", "users", "42");
+        TwoLevelCacheManager.Invalidation clear = new TwoLevelCacheManager.Invalidation("node-a", "users", null);
+
+        assertEquals(eviction, TwoLevelCacheManager.Invalidation.decode(eviction.encode()));
+        assertEquals(clear, TwoLevelCacheManager.Invalidation.decode(clear.encode()));
+        assertNull(TwoLevelCacheManager.Invalidation.decode("garbage"));
+    }
+
+    @Test
+    @DisplayName("A put should be published on the invalidation channel")
+    void putShouldBePublished() {
+        cacheManager.getCache("users").put(1L, "alice");
+
+        verify(redisTemplate).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    @DisplayName("An invalidation from another node should evict the L1 copy")
+    void remoteInvalidationShouldEvictL1() {
+        Cache cache = cacheManager.getCache("users");
+        cache.put(1L, "alice");
+        l2CacheManager.getCache("users").put(1L, "bob"); // Written by another node
+
+        cacheManager.onMessage(message(new TwoLevelCacheManager.Invalidation("node-b", "users", "1").encode()), null);
+
+        assertEquals("bob", cache.get(1L, String.class));
+    }
+
+    @Test
+    @DisplayName("A node should ignore its own invalidations")
+    void ownInvalidationShouldBeIgnored() {
+        Cache cache = cacheManager.getCache("users");
+        when(redisTemplate.convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), anyString())).thenAnswer(invocation -> {
+            cacheManager.onMessage(message(invocation.getArgument(1)), null); // Redis echoes it back to the publisher
+            return 1L;
+        });
+
+        cache.put(1L, "alice");
+        l2CacheManager.getCache("users").put(1L, "bob");
+
+        assertEquals("alice", cache.get(1L, String.class)); // Still served from L1
+    }
+
+    @Test
+    @DisplayName("A failed publish should not fail the cache write")
+    void failedPublishShouldNotFailWrite() {
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenThrow(new IllegalStateException("Redis is down"));
+
+        cacheManager.getCache("users").put(1L, "alice");
+
+        assertEquals("alice", l2CacheManager.getCache("users").get(1L).get());
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,287 @@
+package com.bss.infrastructure.redis;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TwoLevelCacheTest {
+
+    private Cache l2;
+    private SimpleMeterRegistry meterRegistry;
+    private List<String> published;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        l2 = spy(new ConcurrentMapCache("users"));
+        meterRegistry = new SimpleMeterRegistry();
+        published = new CopyOnWriteArrayList<>(); // Refreshes publish from a virtual thread
+        cache = new TwoLevelCache(l2, Caffeine.newBuilder().maximumSize(100).build(), new GenericJackson2JsonRedisSerializer(),
+                (cacheName, key) -> published.add(cacheName + "::" + key), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("An L2 hit should fill L1 so the next read does not reach L2")
+    void l2HitShouldFillL1() {
+        l2.put(1L, new Item("alice"));
+
+        assertEquals("alice", cache.get(1L, Item.class).getName());
+        assertEquals("alice", cache.get(1L, Item.class).getName());
+
+        verify(l2, times(1)).get(1L);
+        assertEquals(1.0, gets("l1", "hit"));
+        assertEquals(1.0, gets("l1", "miss"));
+        assertEquals(1.0, gets("l2", "hit"));
+        assertEquals(0.0, gets("l2", "miss"));
+    }
+
+    @Test
+    @DisplayName("L1 hits should hand out copies, so callers cannot mutate the cached value")
+    void l1HitsShouldReturnCopies() {
+        cache.put(1L, new Item("alice"));
+
+        Item first = cache.get(1L, Item.class);
+        first.setName("mutated");
+        Item second = cache.get(1L, Item.class);
+
+        assertNotSame(first, second);
+        assertEquals("alice", second.getName());
+    }
+
+    @Test
+    @DisplayName("A miss on both levels should return null and be counted on both")
+    void missShouldBeCountedOnBothLevels() {
+        assertNull(cache.get(1L));
+
+        assertEquals(1.0, gets("l1", "miss"));
+        assertEquals(1.0, gets("l2", "miss"));
+    }
+
+    @Test
+    @DisplayName("Puts, evictions and clears should be broadcast to the other nodes")
+    void changesShouldBeBroadcast() {
+        cache.put(1L, new Item("alice"));
+        cache.evict(1L);
+        cache.clear();
+
+        assertEquals(List.of("users::1", "users::1", "users::null"), published);
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    @DisplayName("A remote eviction should drop only the L1 copy")
+    void remoteEvictionShouldDropL1Copy() {
+        cache.put(1L, new Item("alice"));
+        l2.put(1L, new Item("bob")); // Changed by another node
+
+        assertEquals("alice", cache.get(1L, Item.class).getName());
+        cache.evictLocal("1");
+        assertEquals("bob", cache.get(1L, Item.class).getName());
+    }
+
+    @Test
+    @DisplayName("Cached null values should stay null when served from L1")
+    void nullValuesShouldBeServedFromL1() {
+        l2.put(1L, null);
+
+        assertNull(cache.get(1L).get());
+        assertNull(cache.get(1L).get());
+        assertEquals(1.0, gets("l1", "hit"));
+    }
+
+    @Test
+    @DisplayName("Loaded nulls should not be cached when L2 disallows null values")
+    void loadedNullsShouldNotBeCachedWhenDisallowed() {
+        l2 = spy(new ConcurrentMapCache("users", false));
+        cache = new TwoLevelCache(l2, Caffeine.newBuilder().maximumSize(100).build(), new GenericJackson2JsonRedisSerializer(),
+                (cacheName, key) -> published.add(cacheName + "::" + key), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get(1L, () -> { loads.incrementAndGet(); return null; }));
+        assertNull(cache.get(1L, () -> { loads.incrementAndGet(); return null; }));
+
+        assertEquals(2, loads.get());
+        verify(l2, never()).put(any(), any());
+    }
+
+    @Test
+    @DisplayName("Concurrent misses of a key should run the loader once and each get their own copy")
+    void concurrentMissesShouldShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<Item> loader = () -> {
+            loads.incrementAndGet();
+            release.await();
+            return new Item("alice");
+        };
+
+        int callers = 8;
+        List<Future<Item>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get(1L, loader)));
+            }
+            while (coalesced() < callers - 1) {
+                Thread.onSpinWait(); // Every other caller is now waiting on the leader's load
+            }
+            release.countDown();
+
+            Set<Item> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<Item> result : results) {
+                assertEquals("alice", result.get(5, TimeUnit.SECONDS).getName());
+                distinct.add(result.get());
+            }
+            assertEquals(callers, distinct.size());
+        }
+        assertEquals(1, loads.get());
+        verify(l2, times(1)).put(eq(1L), any());
+    }
+
+    @Test
+    @DisplayName("A failed load should reach the caller as a ValueRetrievalException and not be cached")
+    void failedLoadShouldPropagate() {
+        Callable<Item> loader = () -> {
+            throw new IllegalStateException("database down");
+        };
+
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(1L, loader));
+
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertNull(l2.get(1L));
+        assertEquals("alice", cache.get(1L, () -> new Item("alice")).getName()); // Nothing left in flight
+    }
+
+    @Test
+    @DisplayName("An L2 hit close to expiry should be reloaded in the background through the cache's refresh loader")
+    void shouldRefreshAheadEntriesCloseToExpiry() {
+        TwoLevelCache.InvalidationPublisher publisher = mock(TwoLevelCache.InvalidationPublisher.class);
+        cache = refreshAheadCache(Duration.ofSeconds(10), publisher, key -> new Item("bob"));
+        l2.put(1L, new Item("alice"));
+        AtomicInteger callerLoads = new AtomicInteger();
+
+        assertEquals("alice", cache.get(1L, () -> { callerLoads.incrementAndGet(); return new Item("carol"); }).getName());
+
+        // The value changed, so the refresh ends by telling the other nodes
+        verify(publisher, timeout(5_000)).publish("users", "1");
+        verify(l2).put(eq(1L), argThat(item -> "bob".equals(((Item) item).getName())));
+        verify(publisher, times(1)).publish(any(), any());
+        assertEquals(0, callerLoads.get()); // The @Cacheable invocation has returned, its loader is not called again
+    }
+
+    @Test
+    @DisplayName("A refresh that finds the value unchanged should renew L2 without invalidating other nodes")
+    void shouldNotBroadcastUnchangedRefresh() {
+        TwoLevelCache.InvalidationPublisher publisher = mock(TwoLevelCache.InvalidationPublisher.class);
+        cache = refreshAheadCache(Duration.ofSeconds(10), publisher, key -> new Item("alice"));
+        l2.put(1L, new Item("alice"));
+
+        assertEquals("alice", cache.get(1L, () -> new Item("alice")).getName());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (refreshes("success") < 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait(); // Counted once the refresh has written L2 and L1
+        }
+        assertEquals(1.0, refreshes("success"));
+        verify(l2, times(2)).put(eq(1L), any()); // The setup put, then the refresh
+        verify(publisher, never()).publish(any(), any());
+    }
+
+    @Test
+    @DisplayName("A cache without a refresh loader should not refresh ahead")
+    void shouldNotRefreshWithoutLoader() {
+        cache = refreshAheadCache(Duration.ofSeconds(10), (cacheName, key) -> published.add(cacheName + "::" + key), null);
+        l2.put(1L, new Item("alice"));
+
+        assertEquals("alice", cache.get(1L, () -> new Item("bob")).getName());
+
+        verify(l2, after(200).times(1)).put(any(), any()); // Only the setup put
+        assertEquals(0.0, refreshes("success"));
+    }
+
+    @Test
+    @DisplayName("An entry with enough TTL left should not be refreshed")
+    void shouldNotRefreshEntriesWithTtlLeft() {
+        cache = refreshAheadCache(Duration.ofMinutes(5), (cacheName, key) -> published.add(cacheName + "::" + key),
+                key -> new Item("bob"));
+        l2.put(1L, new Item("alice"));
+
+        assertEquals("alice", cache.get(1L, () -> new Item("bob")).getName());
+
+        verify(l2, after(200).times(1)).put(any(), any()); // Only the setup put
+        assertEquals(0.0, refreshes("success"));
+    }
+
+    private TwoLevelCache refreshAheadCache(Duration remainingTtl, TwoLevelCache.InvalidationPublisher publisher,
+                                            TwoLevelCache.RefreshLoader refreshLoader) {
+        return new TwoLevelCache(l2, Caffeine.newBuilder().maximumSize(100).build(), new GenericJackson2JsonRedisSerializer(),
+                publisher, meterRegistry,
+                new TwoLevelCache.LoadPolicy(true, Duration.ofMinutes(1)), key -> remainingTtl, refreshLoader);
+    }
+
+    private double refreshes(String result) {
+        return meterRegistry.get("ledger.cache.refreshes").tag("result", result).counter().count();
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("ledger.cache.loads.coalesced").counter().count();
+    }
+
+    private double gets(String level, String result) {
+        return meterRegistry.get("ledger.cache.gets").tag("level", level).tag("result", result).counter().count();
+    }
+
+    public static class Item {
+        private String name;
+
+        public Item() {
+        }
+
+        Item(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}